@@ -0,0 +1,67 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * CodeAnalyser.getAnalysis (via Method.getAnalysis) for every method in the corpus.  Analysis
+ * results are cached on the method, so every invocation gets freshly loaded class files.
+ *
+ * Op03Blocks.topologicalSort is only reachable from inside CodeAnalyser, as one of its more
+ * aggressive passes - the forceTopSort=true run turns it on for every method, so the difference
+ * between the two is the cost of the topological sort pass (and the rewrites that follow it).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"false", "true"})
+    public String forceTopSort;
+
+    private Decompilation decompilation;
+    private List<ClassFile> classFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        decompilation = new Decompilation(Corpus.load(),
+                Collections.singletonMap(OptionsImpl.FORCE_TOPSORT.getName(), forceTopSort));
+    }
+
+    @Setup(Level.Invocation)
+    public void load() {
+        classFiles = decompilation.loadAll(decompilation.newState());
+    }
+
+    @Benchmark
+    public void getAnalysis(Blackhole blackhole) {
+        for (ClassFile classFile : classFiles) {
+            for (Method method : classFile.getMethods()) {
+                if (!method.hasCodeAttribute()) continue;
+                blackhole.consume(method.getAnalysis());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Parses every class in the corpus (constant pool, fields, methods, attributes - but no code
+ * analysis), reading through either the current ByteData, or the old stream based decoding.
+ *
+ *   java -jar target/benchmarks.jar ByteDataBenchmark -prof gc
+ *
+ * shows the difference in both time and allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ByteDataBenchmark {
+
+    @Param({"direct", "stream"})
+    public String byteData;
+
+    private Corpus corpus;
+    private DCCommonState state;
+
+    @Setup
+    public void setup() throws IOException {
+        corpus = Corpus.load();
+        state = new Decompilation(corpus, Collections.<String, String>emptyMap()).newState();
+    }
+
+    private ByteData wrap(byte[] content) {
+        return "stream".equals(byteData) ? new StreamBackedByteData(content, 0) : new BaseByteData(content);
+    }
+
+    @Benchmark
+    public void parseClassFiles(Blackhole blackhole) {
+        for (Corpus.Entry entry : corpus.getEntries()) {
+            blackhole.consume(new ClassFile(wrap(entry.getContent()), entry.getPath(), state));
+        }
+    }
+}
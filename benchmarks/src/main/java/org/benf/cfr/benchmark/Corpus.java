@@ -0,0 +1,161 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+ * The class files we benchmark against, read into memory up front so that we're not measuring IO.
+ *
+ * By default this is ~90 of CFR's own classes - the op graph, entities and collections packages, which
+ * are nicely varied and fairly gnarly - taken from the CFR build the benchmarks were packaged with.
+ * That means the corpus moves with CFR; to compare two CFR versions on exactly the same input, give
+ * both the same jar with -Dcfr.benchmark.corpus=path/to.jar
+ */
+public class Corpus {
+    public static final String CORPUS_PROPERTY = "cfr.benchmark.corpus";
+
+    // Just the classes directly in each of these, not sub packages.
+    private static final String[] DEFAULT_PACKAGES = {
+            "org/benf/cfr/reader/bytecode/analysis/opgraph/",
+            "org/benf/cfr/reader/entities/",
+            "org/benf/cfr/reader/util/collections/"
+    };
+
+    private final String name;
+    private final List<Entry> entries;
+
+    private Corpus(String name, List<Entry> entries) {
+        this.name = name;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public static Corpus load() throws IOException {
+        String path = System.getProperty(CORPUS_PROPERTY);
+        return path != null ? load(new File(path)) : loadDefault();
+    }
+
+    public static Corpus load(File jar) throws IOException {
+        List<Entry> entries = new ArrayList<Entry>();
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (!isClass(zipEntry)) continue;
+                try (InputStream is = zipFile.getInputStream(zipEntry)) {
+                    entries.add(new Entry(zipEntry.getName(), readFully(is)));
+                }
+            }
+        }
+        return make(jar.getPath(), entries);
+    }
+
+    private static Corpus loadDefault() throws IOException {
+        URL location = ClassFile.class.getProtectionDomain().getCodeSource().getLocation();
+        File source;
+        try {
+            source = new File(location.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        List<Entry> entries = new ArrayList<Entry>();
+        if (source.isDirectory()) {
+            for (String pkg : DEFAULT_PACKAGES) {
+                File[] files = new File(source, pkg).listFiles();
+                if (files == null) continue;
+                for (File file : files) {
+                    if (!file.isFile() || !file.getName().endsWith(".class")) continue;
+                    try (InputStream is = new FileInputStream(file)) {
+                        entries.add(new Entry(pkg + file.getName(), readFully(is)));
+                    }
+                }
+            }
+        } else {
+            try (ZipFile zipFile = new ZipFile(source)) {
+                Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+                while (zipEntries.hasMoreElements()) {
+                    ZipEntry zipEntry = zipEntries.nextElement();
+                    if (!isClass(zipEntry) || !isDefault(zipEntry.getName())) continue;
+                    try (InputStream is = zipFile.getInputStream(zipEntry)) {
+                        entries.add(new Entry(zipEntry.getName(), readFully(is)));
+                    }
+                }
+            }
+        }
+        // Same order however we found them.
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.getPath().compareTo(b.getPath());
+            }
+        });
+        return make(source.getPath(), entries);
+    }
+
+    private static boolean isDefault(String path) {
+        for (String pkg : DEFAULT_PACKAGES) {
+            if (path.startsWith(pkg) && path.indexOf('/', pkg.length()) == -1) return true;
+        }
+        return false;
+    }
+
+    private static boolean isClass(ZipEntry zipEntry) {
+        return !zipEntry.isDirectory() && zipEntry.getName().endsWith(".class");
+    }
+
+    private static Corpus make(String name, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            throw new IllegalStateException("No class files in " + name);
+        }
+        return new Corpus(name, entries);
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            baos.write(buffer, 0, read);
+        }
+        return baos.toByteArray();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public static class Entry {
+        private final String path;
+        private final byte[] content;
+
+        Entry(String path, byte[] content) {
+            this.path = path;
+            this.content = content;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+    }
+}
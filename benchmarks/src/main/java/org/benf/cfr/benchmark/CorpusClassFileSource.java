@@ -0,0 +1,68 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.apiunreleased.ClassFileSource2;
+import org.benf.cfr.reader.apiunreleased.JarContent;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.state.ClassFileSourceImpl;
+import org.benf.cfr.reader.state.LibraryAwareClassFileSource;
+import org.benf.cfr.reader.util.getopt.Options;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Serves corpus classes from memory, and everything else (i.e. the JDK) as CFR normally would.
+ *
+ * Anything not in the corpus (or in a jar added to it) is a library class, so can be loaded once into a
+ * shared library state, and not reloaded for every benchmark invocation.
+ */
+class CorpusClassFileSource implements ClassFileSource2, LibraryAwareClassFileSource {
+    private final Map<String, byte[]> content = new HashMap<String, byte[]>();
+    private final ClassFileSourceImpl delegate;
+
+    CorpusClassFileSource(Corpus corpus, Options options) {
+        for (Corpus.Entry entry : corpus.getEntries()) {
+            content.put(entry.getPath(), entry.getContent());
+        }
+        this.delegate = new ClassFileSourceImpl(options);
+    }
+
+    @Override
+    public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+        byte[] bytes = content.get(path);
+        if (bytes != null) return Pair.make(bytes, path);
+        return delegate.getClassFileContent(path);
+    }
+
+    @Override
+    public boolean isLibraryClass(String path) {
+        return !content.containsKey(path) && delegate.isLibraryClass(path);
+    }
+
+    @Override
+    public void informAnalysisRelativePathDetail(String usePath, String classFilePath) {
+        // Corpus classes are always where they should be, but anything added with addJarContent may not be.
+        delegate.informAnalysisRelativePathDetail(usePath, classFilePath);
+    }
+
+    @Override
+    public String getPossiblyRenamedPath(String path) {
+        return content.containsKey(path) ? path : delegate.getPossiblyRenamedPath(path);
+    }
+
+    /*
+     * Jars are added to the delegate - so their classes are served from disk, while the corpus is
+     * still served from memory.
+     */
+    @Override
+    public JarContent addJarContent(String jarPath) {
+        return delegate.addJarContent(jarPath);
+    }
+
+    @Override
+    public Collection<String> addJar(String jarPath) {
+        return addJarContent(jarPath).getClassFiles();
+    }
+}
@@ -0,0 +1,62 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Sets up analysis of a corpus the way the jar driver would, so stages can be benchmarked
+ * in isolation.
+ */
+class Decompilation {
+    private final Corpus corpus;
+    private final Options options;
+    private final CorpusClassFileSource source;
+    private final DCCommonState libraryState;
+
+    Decompilation(Corpus corpus, Map<String, String> optionValues) {
+        this.corpus = corpus;
+        this.options = new OptionsImpl(new HashMap<String, String>(optionValues));
+        this.source = new CorpusClassFileSource(corpus, options);
+        this.libraryState = new DCCommonState(options, source);
+    }
+
+    Options getOptions() {
+        return options;
+    }
+
+    /*
+     * A fresh state, so nothing from the corpus has been loaded (or analysed) yet - but JDK
+     * classes are shared with every other state, so only get loaded once.
+     */
+    DCCommonState newState() {
+        return new DCCommonState(options, source, libraryState);
+    }
+
+    List<ClassFile> loadAll(DCCommonState state) {
+        List<ClassFile> res = new ArrayList<ClassFile>();
+        for (Corpus.Entry entry : corpus.getEntries()) {
+            res.add(state.getClassFile(entry.getPath()));
+        }
+        return res;
+    }
+
+    /*
+     * As the jar driver does - top level classes only, with their inner classes attached.
+     */
+    List<ClassFile> loadTopLevel(DCCommonState state) {
+        List<ClassFile> res = new ArrayList<ClassFile>();
+        for (ClassFile classFile : loadAll(state)) {
+            if (classFile.isInnerClass()) continue;
+            classFile.loadInnerClasses(state);
+            res.add(classFile);
+        }
+        return res;
+    }
+}
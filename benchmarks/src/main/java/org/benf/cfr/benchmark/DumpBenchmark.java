@@ -0,0 +1,68 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.state.TypeUsageCollectorImpl;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.output.IllegalIdentifierDump;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * ClassFile.dump of every (fully analysed) top level class in the corpus, into a dumper which
+ * discards its output - i.e. the cost of turning analysis into text, without any IO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DumpBenchmark {
+
+    private Options options;
+    private IllegalIdentifierDump illegalIdentifierDump;
+    private List<ClassFile> classFiles;
+    private List<TypeUsageInformation> typeUsages;
+
+    @Setup
+    public void setup() throws IOException {
+        Decompilation decompilation = new Decompilation(Corpus.load(), Collections.<String, String>emptyMap());
+        options = decompilation.getOptions();
+        illegalIdentifierDump = IllegalIdentifierDump.Factory.get(options);
+        DCCommonState state = decompilation.newState();
+        classFiles = decompilation.loadTopLevel(state);
+        typeUsages = new ArrayList<TypeUsageInformation>();
+        for (ClassFile classFile : classFiles) {
+            classFile.analyseTop(state);
+            TypeUsageCollectorImpl collector = new TypeUsageCollectorImpl(classFile);
+            classFile.collectTypeUsages(collector);
+            typeUsages.add(collector.getTypeUsageInformation());
+        }
+    }
+
+    @Benchmark
+    public void dump(Blackhole blackhole) {
+        for (int x = 0; x < classFiles.size(); ++x) {
+            NullDumper dumper = new NullDumper(typeUsages.get(x), options, illegalIdentifierDump);
+            classFiles.get(x).dump(dumper);
+            blackhole.consume(dumper.getWritten());
+        }
+    }
+}
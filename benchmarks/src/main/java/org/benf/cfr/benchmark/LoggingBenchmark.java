@@ -0,0 +1,49 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.util.output.LoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+ * The cost of a debug log statement when debug logging is off (as it is unless -Dcfr.loglevel
+ * says otherwise) - as it used to be in ConstantPool.processRaw, relying on the logger's level
+ * check, and guarded by LoggerFactory.DEBUG, as it is now.
+ *
+ *   java -jar target/benchmarks.jar LoggingBenchmark -prof gc
+ *
+ * gc.alloc.rate.norm should be ~0 B/op for guarded; unguarded pays for building the message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final Logger logger = LoggerFactory.create(LoggingBenchmark.class);
+
+    // Not final, so the message can't be folded to a constant.
+    private int count = 1234;
+
+    @Benchmark
+    public int unguarded() {
+        logger.info("Processing " + count + " constpool entries.");
+        return count;
+    }
+
+    @Benchmark
+    public int guarded() {
+        if (LoggerFactory.DEBUG) logger.info("Processing " + count + " constpool entries.");
+        return count;
+    }
+}
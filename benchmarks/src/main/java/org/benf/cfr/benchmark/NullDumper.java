@@ -0,0 +1,36 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.output.IllegalIdentifierDump;
+import org.benf.cfr.reader.util.output.StreamDumper;
+
+/*
+ * Does all the work of producing output, then throws it away.  (Counts it, so it can't be
+ * optimised away).
+ */
+class NullDumper extends StreamDumper {
+    private long written;
+
+    NullDumper(TypeUsageInformation typeUsageInformation, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+        super(typeUsageInformation, options, illegalIdentifierDump);
+    }
+
+    @Override
+    protected void write(String s) {
+        written += s.length();
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    @Override
+    public void addSummaryError(Method method, String s) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,64 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.constantpool.ConstantPool;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class file parsing - the whole of the ClassFile constructor, and just the constant pool
+ * (ConstantPool.processRaw), which is the bulk of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    // Offsets in the class file format.
+    private static final int OFFSET_OF_CONSTANT_POOL_COUNT = 8;
+    private static final int OFFSET_OF_CONSTANT_POOL = 10;
+
+    private Corpus corpus;
+    private DCCommonState state;
+
+    @Setup
+    public void setup() throws IOException {
+        corpus = Corpus.load();
+        state = new Decompilation(corpus, Collections.<String, String>emptyMap()).newState();
+    }
+
+    @Benchmark
+    public void classFile(Blackhole blackhole) {
+        for (Corpus.Entry entry : corpus.getEntries()) {
+            blackhole.consume(new ClassFile(new BaseByteData(entry.getContent()), entry.getPath(), state));
+        }
+    }
+
+    @Benchmark
+    public void constantPool(Blackhole blackhole) {
+        for (Corpus.Entry entry : corpus.getEntries()) {
+            ByteData data = new BaseByteData(entry.getContent());
+            int count = data.getU2At(OFFSET_OF_CONSTANT_POOL_COUNT);
+            // The pool only needs its class file to name itself, which we never ask it to.
+            blackhole.consume(new ConstantPool(null, state, data.getOffsetData(OFFSET_OF_CONSTANT_POOL), count));
+        }
+    }
+}
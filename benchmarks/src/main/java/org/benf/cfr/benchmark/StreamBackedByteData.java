@@ -0,0 +1,123 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.util.ConfusedCFRException;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.benf.cfr.reader.util.bytestream.OffsettingByteData;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/*
+ * How ByteData used to decode values - a fresh DataInputStream for every read.  Kept only so
+ * ByteDataBenchmark has something to compare against.
+ */
+class StreamBackedByteData implements OffsettingByteData {
+    private final byte[] data;
+    private final int originalOffset;
+    private int mutableOffset;
+
+    StreamBackedByteData(byte[] data, int offset) {
+        this.data = data;
+        this.originalOffset = offset;
+    }
+
+    private DataInputStream rawDataAsStream(long o, int len) {
+        return new DataInputStream(new ByteArrayInputStream(data, (int) (originalOffset + mutableOffset + o), len));
+    }
+
+    @Override
+    public void advance(long offset) {
+        mutableOffset += offset;
+    }
+
+    @Override
+    public long getOffset() {
+        return mutableOffset;
+    }
+
+    @Override
+    public byte getS1At(long o) {
+        return data[(int) (originalOffset + mutableOffset + o)];
+    }
+
+    @Override
+    public short getU1At(long o) {
+        try {
+            return (short) rawDataAsStream(o, 1).readUnsignedByte();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public short getS2At(long o) {
+        try {
+            return rawDataAsStream(o, 2).readShort();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public int getU2At(long o) {
+        try {
+            return rawDataAsStream(o, 2).readUnsignedShort();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public int getS4At(long o) {
+        try {
+            return rawDataAsStream(o, 4).readInt();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public double getDoubleAt(long o) {
+        try {
+            return rawDataAsStream(o, 8).readDouble();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public float getFloatAt(long o) {
+        try {
+            return rawDataAsStream(o, 4).readFloat();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public long getLongAt(long o) {
+        try {
+            return rawDataAsStream(o, 8).readLong();
+        } catch (IOException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public byte[] getBytesAt(int count, long o) {
+        byte[] res = new byte[count];
+        System.arraycopy(data, (int) (originalOffset + mutableOffset + o), res, 0, count);
+        return res;
+    }
+
+    @Override
+    public ByteData getOffsetData(long offset) {
+        return getOffsettingOffsetData(offset);
+    }
+
+    @Override
+    public OffsettingByteData getOffsettingOffsetData(long offset) {
+        return new StreamBackedByteData(data, (int) (originalOffset + mutableOffset + offset));
+    }
+}
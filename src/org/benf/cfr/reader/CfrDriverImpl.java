@@ -1,15 +1,20 @@
 package org.benf.cfr.reader;
 
+import org.benf.cfr.reader.api.AnalysisPassListener;
 import org.benf.cfr.reader.api.CfrDriver;
 import org.benf.cfr.reader.api.ClassFileSource;
 import org.benf.cfr.reader.api.OutputSinkFactory;
 import org.benf.cfr.reader.apiunreleased.ClassFileSource2;
+import org.benf.cfr.reader.bytecode.PassTimingReport;
+import org.benf.cfr.reader.bytecode.ThreadAllocation;
 import org.benf.cfr.reader.state.ClassFileSourceImpl;
 import org.benf.cfr.reader.state.ClassFileSourceWrapper;
 import org.benf.cfr.reader.state.DCCommonState;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.ArchiveOutput;
+import org.benf.cfr.reader.util.output.DecompilationReport;
 import org.benf.cfr.reader.util.output.DumperFactory;
 import org.benf.cfr.reader.util.output.InternalDumperFactoryImpl;
 import org.benf.cfr.reader.util.output.SinkDumperFactory;
@@ -22,8 +27,14 @@ public class CfrDriverImpl implements CfrDriver {
     private final Options options;
     private final ClassFileSource2 classFileSource;
     private final OutputSinkFactory outputSinkFactory;
+    private final AnalysisPassListener analysisPassListener;
+    private final DCCommonState libraryState;
 
     public CfrDriverImpl(ClassFileSource source, OutputSinkFactory outputSinkFactory, Options options) {
+        this(source, outputSinkFactory, options, null);
+    }
+
+    public CfrDriverImpl(ClassFileSource source, OutputSinkFactory outputSinkFactory, Options options, AnalysisPassListener analysisPassListener) {
         if (options == null) {
             options = new OptionsImpl(new HashMap<String, String>());
         }
@@ -32,7 +43,21 @@ public class CfrDriverImpl implements CfrDriver {
         }
         this.outputSinkFactory = outputSinkFactory;
         this.options = options;
+        this.analysisPassListener = analysisPassListener;
         this.classFileSource = source instanceof ClassFileSource2 ? (ClassFileSource2)source : new ClassFileSourceWrapper(source);
+        this.libraryState = null;
+    }
+
+    /*
+     * Library classes come from (and are kept in) libraryState, which outlives us, rather than
+     * being loaded again for every call to analyse.
+     */
+    CfrDriverImpl(ClassFileSource2 source, OutputSinkFactory outputSinkFactory, Options options, DCCommonState libraryState) {
+        this.outputSinkFactory = outputSinkFactory;
+        this.options = options;
+        this.analysisPassListener = null;
+        this.classFileSource = source;
+        this.libraryState = libraryState;
     }
 
     @Override
@@ -45,27 +70,95 @@ public class CfrDriverImpl implements CfrDriver {
          */
         boolean skipInnerClass = toAnalyse.size() > 1 && options.getOption(OptionsImpl.SKIP_BATCH_INNER_CLASSES);
 
+        /*
+         * Library classes don't depend on what we're analysing, so can optionally be kept between inputs.
+         */
+        DCCommonState libraryState = this.libraryState;
+        if (libraryState == null && options.getOption(OptionsImpl.SHARE_LIBRARY_STATE)) {
+            libraryState = new DCCommonState(options, classFileSource);
+        }
+
+        PassTimingReport passTimingReport = options.getOption(OptionsImpl.ANALYSIS_PASS_TIMINGS) ?
+                new PassTimingReport() : null;
+        AnalysisPassListener passListener = combine(analysisPassListener, passTimingReport);
+        if (passListener != null && options.getOption(OptionsImpl.ANALYSIS_PASS_ALLOCATIONS)) {
+            ThreadAllocation.enable();
+        }
+        if (libraryState != null) {
+            libraryState.setAnalysisPassListener(passListener);
+        }
+
+        /*
+         * Everything goes in one archive, so that has to outlive the dumper factory for each input.
+         */
+        ArchiveOutput archiveOutput = outputSinkFactory == null && options.optionIsSet(OptionsImpl.OUTPUT_ZIP) ?
+                new ArchiveOutput(options) : null;
+        DecompilationReport report = options.optionIsSet(OptionsImpl.REPORT) ?
+                new DecompilationReport(options) : null;
+
         Collections.sort(toAnalyse);
-        for (String path : toAnalyse) {
-            // TODO : We shouldn't have to discard state here.  But we do, because
-            // it causes test fails.  (used class name table retains useful symbols).
-            classFileSource.informAnalysisRelativePathDetail(null, null);
-            // Note - both of these need to be reset, as they have caches.
-            DCCommonState dcCommonState = new DCCommonState(options, classFileSource);
-            DumperFactory dumperFactory = outputSinkFactory != null ?
-                    new SinkDumperFactory(outputSinkFactory, options) :
-                    new InternalDumperFactoryImpl(options);
+        try {
+            for (String path : toAnalyse) {
+                // TODO : We shouldn't have to discard state here.  But we do, because
+                // it causes test fails.  (used class name table retains useful symbols).
+                classFileSource.informAnalysisRelativePathDetail(null, null);
+                // Note - both of these need to be reset, as they have caches.
+                DCCommonState dcCommonState = new DCCommonState(options, classFileSource, libraryState);
+                dcCommonState.setAnalysisPassListener(passListener);
+                dcCommonState.setDecompilationReport(report);
+                if (report != null) {
+                    report.setInput(path);
+                }
+                DumperFactory dumperFactory = outputSinkFactory != null ?
+                        new SinkDumperFactory(outputSinkFactory, options) :
+                        new InternalDumperFactoryImpl(options, archiveOutput);
 
-            AnalysisType type = options.getOption(OptionsImpl.ANALYSE_AS);
-            if (type == null || type == AnalysisType.DETECT) {
-                type = dcCommonState.detectClsJar(path);
-            }
+                AnalysisType type = options.getOption(OptionsImpl.ANALYSE_AS);
+                if (type == null || type == AnalysisType.DETECT) {
+                    type = dcCommonState.detectClsJar(path);
+                }
 
-            if (type == AnalysisType.JAR || type == AnalysisType.WAR) {
-                Driver.doJar(dcCommonState, path, dumperFactory);
-            } else if (type == AnalysisType.CLASS) {
-                Driver.doClass(dcCommonState, path, skipInnerClass, dumperFactory);
+                if (type == AnalysisType.JAR || type == AnalysisType.WAR) {
+                    Driver.doJar(dcCommonState, path, dumperFactory);
+                } else if (type == AnalysisType.CLASS) {
+                    Driver.doClass(dcCommonState, path, skipInnerClass, dumperFactory);
+                }
+                if (report != null) {
+                    report.inputComplete(dcCommonState.getClassFileCacheStatistics());
+                }
+            }
+        } finally {
+            // We hold jars open while analysing - don't keep them beyond that.
+            if (classFileSource instanceof ClassFileSourceImpl) {
+                ((ClassFileSourceImpl) classFileSource).closeArchives();
+            }
+            if (archiveOutput != null) {
+                archiveOutput.close();
+            }
+            if (report != null) {
+                report.close();
+            }
+            if (passTimingReport != null) {
+                System.err.print(passTimingReport.getReport());
             }
         }
     }
+
+    private static AnalysisPassListener combine(final AnalysisPassListener a, final AnalysisPassListener b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return new AnalysisPassListener() {
+            @Override
+            public void passComplete(String method, int recoveryPass, String pass, long nanos, long allocatedBytes) {
+                a.passComplete(method, recoveryPass, pass, nanos, allocatedBytes);
+                b.passComplete(method, recoveryPass, pass, nanos, allocatedBytes);
+            }
+
+            @Override
+            public void methodComplete(String method, int recoveryPasses, long nanos) {
+                a.methodComplete(method, recoveryPasses, nanos);
+                b.methodComplete(method, recoveryPasses, nanos);
+            }
+        };
+    }
 }
@@ -0,0 +1,354 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.state.ClassFileSourceImpl;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.getopt.GetOptParser;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.getopt.PermittedOptionProvider;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+
+/*
+ * Stays running, and decompiles whatever it's asked to, so that callers (IDEs, build tools) don't
+ * pay for starting a VM, warming up, and loading the runtime and class path every time.
+ *
+ * Requests are read from stdin (--server stdio) or from connections to a port on localhost
+ * (--server 1234).  Each request is one line, just like a command line (path, then any options,
+ * which are added to those the server was started with).  Arguments are separated by whitespace,
+ * and can be "quoted".
+ *
+ * Each response is a sequence of messages, finished by a line saying END.  A message is a header
+ * line - TYPE LENGTH [CLASSNAME] - followed by LENGTH bytes of UTF8, and a newline.  TYPE is one of
+ * JAVA (with CLASSNAME), SUMMARY, PROGRESS, EXCEPTION, or ERROR if the request itself was bad.
+ * Messages are sent as soon as they're available, so the java for a jar arrives a class at a time.
+ *
+ * Library classes are loaded once per set of options, and shared between requests; so if a jar on
+ * the class path changes, the server needs restarting.  Anything named in a request is always
+ * read again.  Only the MAX_WORKSPACES most recently used sets of options are kept (and the jars
+ * they had open closed).  Requests with the same options are served one at a time, as they share
+ * state which isn't thread safe; requests with different options can run at the same time.
+ *
+ * Any local user can connect to the port, so a request can only give options which change how
+ * classes are analysed and displayed - not ones which write files, change how the server itself
+ * behaves, or change the class path (which would mean indexing it all over again).  Those have to
+ * be given when the server is started.  Similarly, the first line
+ * on each connection has to be the token printed when the server starts, otherwise the connection
+ * is refused.  (Not needed for stdio - whoever can write to that started us.)
+ */
+class DecompilationServer {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String STDIO = "stdio";
+    private static final int MAX_WORKSPACES = 4;
+
+    private static final Set<String> REQUEST_OPTIONS = new HashSet<String>();
+
+    static {
+        List<PermittedOptionProvider.ArgumentParam<?, ?>> permitted = Arrays.<PermittedOptionProvider.ArgumentParam<?, ?>>asList(
+                OptionsImpl.ENUM_SWITCH, OptionsImpl.ENUM_SUGAR, OptionsImpl.STRING_SWITCH, OptionsImpl.SWITCH_EXPRESSION,
+                OptionsImpl.PREVIEW_FEATURES, OptionsImpl.ARRAY_ITERATOR, OptionsImpl.COLLECTION_ITERATOR,
+                OptionsImpl.DECOMPILE_INNER_CLASSES, OptionsImpl.SKIP_BATCH_INNER_CLASSES, OptionsImpl.REMOVE_BOILERPLATE,
+                OptionsImpl.REMOVE_INNER_CLASS_SYNTHETICS, OptionsImpl.REWRITE_LAMBDAS, OptionsImpl.HIDE_BRIDGE_METHODS,
+                OptionsImpl.LIFT_CONSTRUCTOR_INIT, OptionsImpl.REMOVE_DEAD_METHODS, OptionsImpl.REMOVE_BAD_GENERICS,
+                OptionsImpl.SUGAR_ASSERTS, OptionsImpl.SUGAR_BOXING, OptionsImpl.SHOW_CFR_VERSION, OptionsImpl.DECODE_FINALLY,
+                OptionsImpl.TIDY_MONITORS, OptionsImpl.COMMENT_MONITORS, OptionsImpl.LENIENT, OptionsImpl.DECOMPILER_COMMENTS,
+                OptionsImpl.FORCE_TOPSORT, OptionsImpl.FORCE_TOPSORT_EXTRA, OptionsImpl.FORCE_PRUNE_EXCEPTIONS,
+                OptionsImpl.FORCE_AGGRESSIVE_EXCEPTION_AGG, OptionsImpl.FORCE_COND_PROPAGATE, OptionsImpl.FORCE_RETURNING_IFS,
+                OptionsImpl.FOR_LOOP_CAPTURE, OptionsImpl.FORCE_PASS, OptionsImpl.RECOVER_TYPECLASHES,
+                OptionsImpl.USE_RECOVERED_ITERATOR_TYPE_HINTS, OptionsImpl.IGNORE_EXCEPTIONS, OptionsImpl.IGNORE_EXCEPTIONS_ALWAYS,
+                OptionsImpl.SUGAR_STRINGBUFFER, OptionsImpl.SUGAR_STRINGBUILDER, OptionsImpl.SUGAR_STRINGCONCATFACTORY,
+                OptionsImpl.RECOVER, OptionsImpl.ECLIPSE, OptionsImpl.OVERRIDES, OptionsImpl.SHOW_INFERRABLE,
+                OptionsImpl.HIDE_UTF8, OptionsImpl.HIDE_LONGSTRINGS, OptionsImpl.ALLOW_CORRECTING, OptionsImpl.LABELLED_BLOCKS,
+                OptionsImpl.JAVA_4_CLASS_OBJECTS, OptionsImpl.HIDE_LANG_IMPORTS, OptionsImpl.RELINK_CONSTANT_STRINGS,
+                OptionsImpl.REWRITE_TRY_RESOURCES, OptionsImpl.PULL_CODE_CASE, OptionsImpl.ELIDE_SCALA,
+                OptionsImpl.AGGRESSIVE_SIZE_REDUCTION_THRESHOLD, OptionsImpl.STATIC_INIT_RETURN, OptionsImpl.USE_NAME_TABLE,
+                OptionsImpl.RENAME_DUP_MEMBERS, OptionsImpl.RENAME_ENUM_MEMBERS, OptionsImpl.RENAME_SMALL_MEMBERS,
+                OptionsImpl.RENAME_ILLEGAL_IDENTS, OptionsImpl.CASE_INSENSITIVE_FS_RENAME,
+                OptionsImpl.ANALYSE_AS, OptionsImpl.JAR_FILTER, OptionsImpl.METHODNAME,
+                OptionsImpl.METHOD_TIME_LIMIT, OptionsImpl.METHOD_WORK_LIMIT, OptionsImpl.SILENT);
+        for (PermittedOptionProvider.ArgumentParam<?, ?> option : permitted) {
+            REQUEST_OPTIONS.add(option.getName());
+        }
+    }
+
+    private final String server;
+    private final Map<String, String> baseOptions;
+    private final String token;
+    // Guarded by itself.
+    private final Map<Map<String, String>, Workspace> workspaces = new LinkedHashMap<Map<String, String>, Workspace>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Map<String, String>, Workspace> eldest) {
+            if (size() <= MAX_WORKSPACES) return false;
+            eldest.getValue().evict();
+            return true;
+        }
+    };
+
+    DecompilationServer(Options options) {
+        this.server = options.getOption(OptionsImpl.SERVER);
+        this.baseOptions = ((OptionsImpl) options).getExplicitOptions();
+        this.baseOptions.remove(OptionsImpl.SERVER.getName());
+        this.token = newToken();
+    }
+
+    void run() throws IOException {
+        if (STDIO.equals(server)) {
+            serve(System.in, System.out, null);
+            return;
+        }
+        int port;
+        try {
+            port = Integer.parseInt(server);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected '" + STDIO + "' or a port number, not " + server);
+        }
+        ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+        System.err.println("Listening on port " + serverSocket.getLocalPort() + ", token " + token);
+        try {
+            while (true) {
+                final Socket socket = serverSocket.accept();
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            try {
+                                serve(socket.getInputStream(), socket.getOutputStream(), token);
+                            } finally {
+                                socket.close();
+                            }
+                        } catch (IOException ignore) {
+                            // Client went away.
+                        }
+                    }
+                }, "cfr-server-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    /*
+     * If token is given, nothing is served until we've been sent it.
+     */
+    void serve(InputStream in, OutputStream out, String token) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+        OutputStream bufferedOut = new BufferedOutputStream(out);
+        String line;
+        if (token != null) {
+            line = reader.readLine();
+            if (line == null || !MessageDigest.isEqual(token.getBytes(UTF8), line.trim().getBytes(UTF8))) {
+                Response response = new Response(bufferedOut);
+                response.message("ERROR", null, "Bad token");
+                response.end();
+                return;
+            }
+        }
+        while ((line = reader.readLine()) != null) {
+            List<String> args = tokenise(line);
+            if (args.isEmpty()) continue;
+            handle(args, new Response(bufferedOut));
+        }
+    }
+
+    private void handle(List<String> args, Response response) throws IOException {
+        try {
+            Pair<List<String>, Options> parsed = new GetOptParser().parse(args.toArray(new String[0]), OptionsImpl.getFactory());
+            List<String> files = parsed.getFirst();
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("Nothing to decompile");
+            }
+            Map<String, String> requestOptions = ((OptionsImpl) parsed.getSecond()).getExplicitOptions();
+            for (String option : requestOptions.keySet()) {
+                if (!REQUEST_OPTIONS.contains(option)) {
+                    throw new IllegalArgumentException("--" + option + " can't be given in a request, only when starting the server");
+                }
+            }
+            Map<String, String> options = new TreeMap<String, String>(baseOptions);
+            options.putAll(requestOptions);
+            Workspace workspace = acquireWorkspace(options);
+            try {
+                synchronized (workspace) {
+                    ClassFileSourceImpl source = new ClassFileSourceImpl(workspace.options, workspace.source);
+                    new CfrDriverImpl(source, response, workspace.options, workspace.libraryState).analyse(files);
+                }
+            } finally {
+                releaseWorkspace(workspace);
+            }
+        } catch (RuntimeException e) {
+            if (response.failed != null) throw (IOException) response.failed.getCause();
+            response.message("ERROR", null, e.toString());
+        }
+        response.end();
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Must be released when the request's done with it - a workspace which has been evicted isn't
+     * closed until nothing's using it.
+     */
+    private Workspace acquireWorkspace(Map<String, String> options) {
+        synchronized (workspaces) {
+            Workspace workspace = workspaces.get(options);
+            if (workspace == null) {
+                workspace = new Workspace(new OptionsImpl(options));
+                workspaces.put(options, workspace);
+            }
+            workspace.users++;
+            return workspace;
+        }
+    }
+
+    private void releaseWorkspace(Workspace workspace) {
+        synchronized (workspaces) {
+            workspace.users--;
+            workspace.closeIfUnused();
+        }
+    }
+
+    /*
+     * Whitespace separated, with "quotes" for anything containing whitespace.
+     */
+    private static List<String> tokenise(String line) {
+        List<String> res = ListFactory.newList();
+        StringBuilder current = null;
+        boolean quoted = false;
+        for (int x = 0; x < line.length(); ++x) {
+            char c = line.charAt(x);
+            if (c == '"') {
+                quoted = !quoted;
+                if (current == null) current = new StringBuilder();
+                continue;
+            }
+            if (!quoted && Character.isWhitespace(c)) {
+                if (current != null) {
+                    res.add(current.toString());
+                    current = null;
+                }
+                continue;
+            }
+            if (current == null) current = new StringBuilder();
+            current.append(c);
+        }
+        if (current != null) res.add(current.toString());
+        return res;
+    }
+
+    /*
+     * Everything which is shared between requests with the same options.  Analysis holds its lock;
+     * users and evicted are guarded by the lock on workspaces.
+     */
+    private static class Workspace {
+        private final Options options;
+        private final ClassFileSourceImpl source;
+        private final DCCommonState libraryState;
+        private int users;
+        private boolean evicted;
+
+        private Workspace(Options options) {
+            this.options = options;
+            this.source = new ClassFileSourceImpl(options);
+            this.libraryState = new DCCommonState(options, source);
+        }
+
+        private void evict() {
+            evicted = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (evicted && users == 0) {
+                source.closeArchives();
+            }
+        }
+    }
+
+    private static class Response implements OutputSinkFactory {
+        private final OutputStream out;
+        // If we can't write to the client, there's no point carrying on.
+        private UncheckedIOException failed;
+
+        private Response(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+            if (sinkType == SinkType.JAVA && available.contains(SinkClass.DECOMPILED)) {
+                return Arrays.asList(SinkClass.DECOMPILED, SinkClass.STRING);
+            }
+            return Collections.singletonList(SinkClass.STRING);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Sink<T> getSink(final SinkType sinkType, SinkClass sinkClass) {
+            if (sinkType == SinkType.JAVA && sinkClass == SinkClass.DECOMPILED) {
+                return (Sink<T>) new Sink<SinkReturns.Decompiled>() {
+                    @Override
+                    public void write(SinkReturns.Decompiled sinkable) {
+                        String packageName = sinkable.getPackageName();
+                        String className = packageName.length() == 0 ? sinkable.getClassName() : packageName + "." + sinkable.getClassName();
+                        message(sinkType.name(), className, sinkable.getJava());
+                    }
+                };
+            }
+            return (Sink<T>) new Sink<String>() {
+                @Override
+                public void write(String sinkable) {
+                    message(sinkType.name(), null, sinkable);
+                }
+            };
+        }
+
+        private void message(String type, String className, String content) {
+            byte[] bytes = content.getBytes(UTF8);
+            String header = type + " " + bytes.length + (className == null ? "" : " " + className) + "\n";
+            try {
+                out.write(header.getBytes(UTF8));
+                out.write(bytes);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                failed = new UncheckedIOException(e);
+                throw failed;
+            }
+        }
+
+        private void end() throws IOException {
+            out.write("END\n".getBytes(UTF8));
+            out.flush();
+        }
+    }
+
+    private static class UncheckedIOException extends RuntimeException {
+        private UncheckedIOException(IOException cause) {
+            super(cause);
+        }
+    }
+}
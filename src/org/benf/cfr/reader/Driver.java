@@ -32,11 +32,15 @@ class Driver {
         IllegalIdentifierDump illegalIdentifierDump = IllegalIdentifierDump.Factory.get(options);
         Dumper d = new ToStringDumper(); // sentinel dumper.
         ExceptionDumper ed = dumperFactory.getExceptionDumper();
+        DecompilationReport.Entry reportEntry = null;
         try {
             SummaryDumper summaryDumper = new NopSummaryDumper();
             ClassFile c = dcCommonState.getClassFileMaybePath(path);
             if (skipInnerClass && c.isInnerClass()) return;
 
+            if (dcCommonState.getDecompilationReport() != null) {
+                reportEntry = dcCommonState.getDecompilationReport().start(c.getClassType());
+            }
             dcCommonState.configureWith(c);
             dumperFactory.getProgressDumper().analysingType(c.getClassType());
 
@@ -61,8 +65,12 @@ class Driver {
              */
             TypeUsageCollector collectingDumper = new TypeUsageCollectorImpl(c);
             c.collectTypeUsages(collectingDumper);
+            if (reportEntry != null) reportEntry.analysed(c);
 
             d = dumperFactory.getNewTopLevelDumper(c.getClassType(), summaryDumper, collectingDumper.getTypeUsageInformation(), illegalIdentifierDump);
+            if (reportEntry != null) {
+                d = reportEntry.count(d, options, illegalIdentifierDump);
+            }
 
             String methname = options.getOption(OptionsImpl.METHODNAME);
             if (methname == null) {
@@ -78,9 +86,11 @@ class Driver {
             }
             d.print("");
         } catch (Exception e) {
+            if (reportEntry != null) reportEntry.failed(e);
             ed.noteException(path, null, e);
         } finally {
             if (d != null) d.close();
+            if (reportEntry != null) reportEntry.finish();
         }
     }
 
@@ -163,11 +173,12 @@ class Driver {
 
         // If we're dumping a class which is SPECIFIC to a version, i.e. other than 0, we override the common state
         // so that it will look up in all version going back from that.
+        BinaryFunction<String, DCCommonState, ClassFile> versionCacheAccess = null;
         if (forVersion > 0) {
             dumperFactory = dumperFactory.getFactoryWithPrefix("/" + MiscConstants.MULTI_RELEASE_PREFIX + forVersion + "/", forVersion);
             Collections.reverse(versionsSeen);
             // We create a new classfile source, which will preferentially hit X, then X-1 down to X.
-            dcCommonState = new DCCommonState(dcCommonState, new BinaryFunction<String, DCCommonState, ClassFile>() {
+            versionCacheAccess = new BinaryFunction<String, DCCommonState, ClassFile>() {
                 @Override
                 public ClassFile invoke(String arg, DCCommonState arg2) {
                     // First we try to load forVersion, then forVersion-1, etc.
@@ -184,15 +195,30 @@ class Driver {
                     }
                     throw new CannotLoadClassException(arg, lastException);
                 }
-            });
+            };
+            dcCommonState = new DCCommonState(dcCommonState, versionCacheAccess);
         }
 
+        // Has to see every class in the jar, not just those we're dumping.
+        IncrementalCache incrementalCache = IncrementalCache.create(options, types, forVersion);
         types = Functional.filter(types, new Predicate<JavaTypeInstance>() {
             @Override
             public boolean test(JavaTypeInstance in) {
                 return matcher.test(in.getRawName());
             }
         });
+        /*
+         * With more than one thread, each class is analysed on its own, so that output doesn't depend
+         * on how many there are.  See ParallelJarDriver.
+         *
+         * So it is when using the incremental cache - otherwise what we kept for a class would depend on
+         * which classes happened to be analysed before it, and could differ from decompiling it afresh.
+         */
+        int threads = options.getOption(OptionsImpl.THREADS);
+        if (threads > 1 || incrementalCache != null) {
+            new ParallelJarDriver(threads, dcCommonState, versionCacheAccess, dumperFactory, illegalIdentifierDump, summaryDumper, progressDumper, incrementalCache).doTypes(types);
+            return;
+        }
         /*
          * If resolving names, we need a first pass...... otherwise foreign referents will
          * not see the renaming, depending on order of class files....
@@ -205,8 +231,10 @@ class Driver {
          * If we're working on a case insensitive file system (OH COME ON!) then make sure that
          * we don't have any collisions.
          */
+        DecompilationReport report = dcCommonState.getDecompilationReport();
         for (JavaTypeInstance type : types) {
             Dumper d = new ToStringDumper();  // Sentinel dumper.
+            DecompilationReport.Entry reportEntry = null;
             try {
                 ClassFile c = dcCommonState.getClassFile(type);
                 // Don't explicitly dump inner classes.  But make sure we ask the CLASS if it's
@@ -215,6 +243,9 @@ class Driver {
                     d = null;
                     continue;
                 }
+                if (report != null) {
+                    reportEntry = report.start(type);
+                }
                 if (!silent) {
                     progressDumper.analysingType(type);
                 }
@@ -226,7 +257,11 @@ class Driver {
 
                 TypeUsageCollector collectingDumper = new TypeUsageCollectorImpl(c);
                 c.collectTypeUsages(collectingDumper);
+                if (reportEntry != null) reportEntry.analysed(c);
                 d = dumperFactory.getNewTopLevelDumper(c.getClassType(), summaryDumper, collectingDumper.getTypeUsageInformation(), illegalIdentifierDump);
+                if (reportEntry != null) {
+                    d = reportEntry.count(d, options, illegalIdentifierDump);
+                }
 
                 c.dump(d);
                 d.print("\n");
@@ -237,9 +272,11 @@ class Driver {
             } catch (Dumper.CannotCreate e) {
                 throw e;
             } catch (RuntimeException e) {
+                if (reportEntry != null) reportEntry.failed(e);
                 d.print(e.toString()).print("\n").print("\n").print("\n");
             } finally {
                 if (d != null) d.close();
+                if (reportEntry != null) reportEntry.finish();
             }
 
         }
@@ -0,0 +1,362 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.bytecode.analysis.types.ClassSignature;
+import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.state.TypeUsageInformationEmpty;
+import org.benf.cfr.reader.util.CannotLoadClassException;
+import org.benf.cfr.reader.util.MiscConstants;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/*
+ * Keeps what we dumped for each top level class of a jar, so that when the jar is decompiled again
+ * (with a few classes changed) we can copy most classes' output rather than decompile them again.
+ *
+ * Output is filed under a hash of everything we believe it could depend on -
+ *  - the cfr version, and options which affect output.
+ *  - the class itself, and its inner classes.
+ *  - every class in the jar they refer to, and the supertypes of those (so eg a changed enum
+ *    switched on, or a changed method in a base class, means we decompile again).
+ *  - the size and date of anything on the extra class path, and which runtime we're using.
+ * So a stale entry is never found, it's just never used again.  Only the most recently used
+ * MAX_ENTRIES are kept - using an entry touches it, and the oldest are removed when a run starts.
+ *
+ * Classes are always analysed in isolation when the cache is in use (see Driver and ParallelJarDriver),
+ * as otherwise their output would depend on which classes were analysed before them, which the key
+ * can't capture.
+ *
+ * Some options (renaming members, case insensitive file systems) make a class's output depend on
+ * every other class in the jar, so then every class in the jar is part of every hash.
+ *
+ * Output which reported errors to the summary isn't kept - errors might be down to a time limit,
+ * and couldn't be replayed anyway.
+ */
+class IncrementalCache {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".java";
+    private static final int MAX_ENTRIES = 65536;
+
+    /*
+     * Options which change where output goes, or how fast we get there, but not what it says.
+     * (How many THREADS doesn't matter, as classes are analysed in isolation anyway.)
+     */
+    private static final Set<String> IGNORED_OPTIONS = SetFactory.newSet(Arrays.asList(
+            OptionsImpl.OUTPUT_DIR.getName(), OptionsImpl.OUTPUT_PATH.getName(), OptionsImpl.OUTPUT_ZIP.getName(),
+            OptionsImpl.REPORT.getName(), OptionsImpl.CLOBBER_FILES.getName(),
+            OptionsImpl.SILENT.getName(), OptionsImpl.THREADS.getName(), OptionsImpl.INCREMENTAL_CACHE.getName(),
+            OptionsImpl.CLASS_PATH_CACHE.getName(), OptionsImpl.ANALYSIS_PASS_TIMINGS.getName(),
+            OptionsImpl.ANALYSIS_PASS_ALLOCATIONS.getName(), OptionsImpl.MMAP_JARS.getName(),
+            OptionsImpl.CLASS_CACHE_SIZE.getName(), OptionsImpl.CLASS_CACHE_SOFT.getName(),
+            OptionsImpl.SHARE_LIBRARY_STATE.getName(), OptionsImpl.LOMEM.getName()));
+
+    private final File directory;
+    private final Options options;
+    private final byte[] context;
+    private final Set<String> jarPaths;
+    private final boolean wholeJar;
+    private final Map<String, byte[]> digests = Collections.synchronizedMap(MapFactory.<String, byte[]>newMap());
+    private byte[] jarDigest;
+
+    private IncrementalCache(File directory, OptionsImpl options, List<JavaTypeInstance> types) {
+        this.directory = directory;
+        this.options = options;
+        this.context = getContext(options);
+        this.jarPaths = SetFactory.newSet();
+        for (JavaTypeInstance type : types) {
+            jarPaths.add(getPath(type.getRawName()));
+        }
+        this.wholeJar = options.getOption(OptionsImpl.RENAME_DUP_MEMBERS) ||
+                options.getOption(OptionsImpl.RENAME_ENUM_MEMBERS) ||
+                options.getOption(OptionsImpl.RENAME_SMALL_MEMBERS) > 0 ||
+                options.getOption(OptionsImpl.RENAME_ILLEGAL_IDENTS) ||
+                options.getOption(OptionsImpl.CASE_INSENSITIVE_FS_RENAME);
+    }
+
+    /*
+     * Null unless we've been asked for one.  Versioned (multi release) classes are too fiddly to
+     * identify reliably, so are always decompiled.
+     */
+    static IncrementalCache create(Options options, List<JavaTypeInstance> types, int forVersion) {
+        String dir = options.getOption(OptionsImpl.INCREMENTAL_CACHE);
+        if (dir == null || forVersion != 0 || !(options instanceof OptionsImpl)) return null;
+        File directory = new File(dir);
+        trim(directory, MAX_ENTRIES);
+        return new IncrementalCache(directory, (OptionsImpl) options, types);
+    }
+
+    /*
+     * Removes all but the maxEntries most recently used entries.  Another run may still be using this
+     * directory - if it loses an entry, it just decompiles that class again.
+     */
+    static void trim(File directory, int maxEntries) {
+        File[] subdirs = directory.listFiles();
+        if (subdirs == null) return;
+        List<File> entries = ListFactory.newList();
+        for (File subdir : subdirs) {
+            File[] files = subdir.listFiles();
+            if (files == null) continue;
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) entries.add(file);
+            }
+        }
+        if (entries.size() <= maxEntries) return;
+        final Map<File, Long> lastModified = MapFactory.newMap();
+        for (File entry : entries) {
+            lastModified.put(entry, entry.lastModified());
+        }
+        Collections.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                int res = lastModified.get(o1).compareTo(lastModified.get(o2));
+                return res != 0 ? res : o1.compareTo(o2);
+            }
+        });
+        for (File entry : entries.subList(0, entries.size() - maxEntries)) {
+            entry.delete();
+        }
+    }
+
+    /*
+     * Null if we can't work out what this depends on (one of its inner classes can't be loaded, or a
+     * class can't be read) - in which case, just decompile it.
+     * Call after inner classes have been loaded.
+     */
+    String getKey(DCCommonState state, ClassFile classFile) {
+        Collection<String> dependencies = getDependencies(state, classFile);
+        if (dependencies == null) return null;
+        try {
+            MessageDigest md = newDigest();
+            md.update(context);
+            if (wholeJar) md.update(getJarDigest(state));
+            // Classes which refer to each other will have the same dependencies!
+            md.update(classFile.getFilePath().getBytes(UTF8));
+            for (String path : dependencies) {
+                md.update(path.getBytes(UTF8));
+                md.update(getDigest(state, path));
+            }
+            return toHex(md.digest());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Null if we haven't seen this before.
+     */
+    String get(String key) {
+        File file = getFile(key);
+        if (!file.isFile()) return null;
+        // Most recently used, as far as trim is concerned.
+        file.setLastModified(System.currentTimeMillis());
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                ByteArrayOutputStream content = new ByteArrayOutputStream((int) file.length());
+                byte[] buffer = new byte[8192];
+                int len;
+                while ((len = in.read(buffer)) > 0) {
+                    content.write(buffer, 0, len);
+                }
+                return new String(content.toByteArray(), UTF8);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    void replay(String content, JavaTypeInstance type, DumperFactory dumperFactory, SummaryDumper summaryDumper, IllegalIdentifierDump illegalIdentifierDump) {
+        Dumper d = dumperFactory.getNewTopLevelDumper(type, summaryDumper, new TypeUsageInformationEmpty(), illegalIdentifierDump);
+        try {
+            RecordingDumper.replay(d, content);
+        } finally {
+            d.close();
+        }
+    }
+
+    RecordingDumper record(Dumper d, IllegalIdentifierDump illegalIdentifierDump) {
+        return new RecordingDumper(d, options, illegalIdentifierDump);
+    }
+
+    /*
+     * Written to a temporary file, then moved into place, so a concurrent run never reads half an
+     * entry.  Failing to write is fine - we'll just have to decompile it again next time.
+     */
+    void put(String key, RecordingDumper d) {
+        if (d.hasSummaryErrors()) return;
+        File file = getFile(key);
+        File parent = file.getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) return;
+        try {
+            File tmp = File.createTempFile(key, ".tmp", parent);
+            try {
+                OutputStream out = new FileOutputStream(tmp);
+                try {
+                    out.write(d.getRecording().getBytes(UTF8));
+                } finally {
+                    out.close();
+                }
+                if (!tmp.renameTo(file)) {
+                    // Windows won't rename over an existing file - but then someone else has already written it.
+                    return;
+                }
+            } finally {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            // Never mind.
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(new File(directory, key.substring(0, 2)), key.substring(2) + SUFFIX);
+    }
+
+    /*
+     * Paths of the classes (in this jar) which we think the output for classFile depends on, in a
+     * stable order.  Null if one of its own inner classes can't be loaded.
+     *
+     * Inner classes (which are dumped as part of this) are followed as far as they go - other classes
+     * only as far as their supertypes.
+     */
+    private Collection<String> getDependencies(DCCommonState state, ClassFile classFile) {
+        String topPrefix = ClassNameUtils.convertToPath(classFile.getClassType().getRawName()) + MiscConstants.INNER_CLASS_SEP_CHAR;
+        Set<String> res = new TreeSet<String>();
+        Set<String> ownSeen = SetFactory.newSet();
+        LinkedList<ClassFile> own = ListFactory.newLinkedList();
+        for (JavaTypeInstance type : classFile.getAllClassTypes()) {
+            String path = getPath(type.getRawName());
+            if (ownSeen.add(path)) {
+                ClassFile ownClass = type == classFile.getClassType() ? classFile : loadOrNull(state, path);
+                if (ownClass == null) return null;
+                own.add(ownClass);
+            }
+        }
+        while (!own.isEmpty()) {
+            ClassFile ownClass = own.removeFirst();
+            res.add(ownClass.getFilePath());
+            for (String name : ownClass.getConstantPool().getReferencedClassNames()) {
+                name = stripArray(name);
+                String path = getPath(name);
+                if (!jarPaths.contains(path)) continue;
+                if (name.startsWith(topPrefix)) {
+                    if (ownSeen.add(path)) {
+                        ClassFile inner = loadOrNull(state, path);
+                        if (inner != null) own.add(inner);
+                    }
+                    continue;
+                }
+                addWithSupers(state, path, res);
+            }
+        }
+        return res;
+    }
+
+    private void addWithSupers(DCCommonState state, String path, Set<String> res) {
+        if (!res.add(path)) return;
+        ClassFile classFile = loadOrNull(state, path);
+        if (classFile == null) return;
+        ClassSignature signature = classFile.getClassSignature();
+        List<JavaTypeInstance> supers = ListFactory.newList();
+        if (signature.getSuperClass() != null) supers.add(signature.getSuperClass());
+        if (signature.getInterfaces() != null) supers.addAll(signature.getInterfaces());
+        for (JavaTypeInstance superType : supers) {
+            String superPath = getPath(superType.getDeGenerifiedType().getRawName());
+            if (jarPaths.contains(superPath)) addWithSupers(state, superPath, res);
+        }
+    }
+
+    private static ClassFile loadOrNull(DCCommonState state, String path) {
+        try {
+            return state.getClassFile(path);
+        } catch (CannotLoadClassException e) {
+            return null;
+        }
+    }
+
+    private byte[] getDigest(DCCommonState state, String path) throws IOException {
+        byte[] res = digests.get(path);
+        if (res == null) {
+            MessageDigest md = newDigest();
+            md.update(state.getClassFileSource().getClassFileContent(path).getFirst());
+            res = md.digest();
+            digests.put(path, res);
+        }
+        return res;
+    }
+
+    private synchronized byte[] getJarDigest(DCCommonState state) throws IOException {
+        if (jarDigest == null) {
+            MessageDigest md = newDigest();
+            for (String path : new TreeSet<String>(jarPaths)) {
+                md.update(path.getBytes(UTF8));
+                md.update(getDigest(state, path));
+            }
+            jarDigest = md.digest();
+        }
+        return jarDigest;
+    }
+
+    private static byte[] getContext(OptionsImpl options) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(MiscConstants.CFR_VERSION).append('\n');
+        sb.append(System.getProperty("java.home")).append(' ').append(System.getProperty("java.version")).append('\n');
+        for (Map.Entry<String, String> option : options.getExplicitOptions().entrySet()) {
+            if (IGNORED_OPTIONS.contains(option.getKey())) continue;
+            sb.append(option.getKey()).append('=').append(option.getValue()).append('\n');
+        }
+        // Output from before classes were always analysed in isolation mustn't be found.
+        sb.append("isolated\n");
+        String extraClassPath = options.getOption(OptionsImpl.EXTRA_CLASS_PATH);
+        if (extraClassPath != null) {
+            for (String path : extraClassPath.split("" + File.pathSeparatorChar)) {
+                File file = new File(path);
+                sb.append(file.getAbsolutePath()).append(' ').append(file.length()).append(' ').append(file.lastModified()).append('\n');
+            }
+        }
+        MessageDigest md = newDigest();
+        md.update(sb.toString().getBytes(UTF8));
+        return md.digest();
+    }
+
+    private static String stripArray(String name) {
+        if (!name.startsWith("[")) return name;
+        int idx = name.lastIndexOf('[') + 1;
+        if (name.charAt(idx) != 'L' || !name.endsWith(";")) return name;
+        return name.substring(idx + 1, name.length() - 1);
+    }
+
+    private static String getPath(String name) {
+        return ClassNameUtils.convertToPath(name) + ".class";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
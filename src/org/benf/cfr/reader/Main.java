@@ -8,6 +8,7 @@ import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.DumperFactory;
 
+import java.io.IOException;
 import java.util.List;
 
 public class Main {
@@ -31,7 +32,7 @@ public class Main {
             Pair<List<String>, Options> processedArgs = getOptParser.parse(args, OptionsImpl.getFactory());
             files = processedArgs.getFirst();
             options = processedArgs.getSecond();
-            if (files.size() == 0) {
+            if (files.size() == 0 && !options.optionIsSet(OptionsImpl.SERVER)) {
                 throw new IllegalArgumentException("Insufficient unqualified parameters - provide at least one filename.");
             }
         } catch (Exception e) {
@@ -39,11 +40,21 @@ public class Main {
             System.exit(1);
         }
 
-        if (options.optionIsSet(OptionsImpl.HELP) || files.isEmpty()) {
+        if (options.optionIsSet(OptionsImpl.HELP)) {
             getOptParser.showOptionHelp(OptionsImpl.getFactory(), options, OptionsImpl.HELP);
             return;
         }
 
+        if (options.optionIsSet(OptionsImpl.SERVER)) {
+            try {
+                new DecompilationServer(options).run();
+            } catch (IOException e) {
+                System.err.println("Server failed : " + e);
+                System.exit(1);
+            }
+            return;
+        }
+
         CfrDriver cfrDriver = new CfrDriver.Builder().withBuiltOptions(options).build();
         cfrDriver.analyse(files);
     }
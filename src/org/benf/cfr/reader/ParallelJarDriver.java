@@ -0,0 +1,276 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.apiunreleased.ClassFileSource2;
+import org.benf.cfr.reader.bytecode.analysis.stack.StackEntry;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.bytecode.analysis.types.RawJavaType;
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.relationship.FixedMemberNames;
+import org.benf.cfr.reader.relationship.MemberNameResolver;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.state.SynchronizedClassFileSource;
+import org.benf.cfr.reader.state.TypeUsageCollector;
+import org.benf.cfr.reader.state.TypeUsageCollectorImpl;
+import org.benf.cfr.reader.util.functors.BinaryFunction;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.*;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Decompiles the top level classes of a jar on a pool of worker threads (or, with one thread, in turn on
+ * this one).
+ *
+ * Analysing a class leaves state hanging off the class files it touched (not least its own), and that
+ * can change how classes analysed later come out.  So that output can't depend on which classes a
+ * thread happened to see first (or on how many threads there are), each class is analysed with a
+ * DCCommonState of its own.  Library classes aren't analysed, so those are loaded once, into a library
+ * state which every class's state shares.  Note that this means output can differ in details from the
+ * single threaded driver, where each class sees everything analysed before it.
+ *
+ * Workers only analyse.  Dumping happens on the calling thread, taking each class's analysis in the
+ * original order - so output is in the same order as the single threaded driver produces, and the
+ * dumper factory, summary and progress dumpers never see concurrent calls.
+ */
+class ParallelJarDriver {
+    // How many classes each worker may be ahead of the one we're waiting to dump.
+    private static final int QUEUED_PER_THREAD = 4;
+
+    private final int threads;
+    private final DCCommonState dcCommonState;
+    private final BinaryFunction<String, DCCommonState, ClassFile> versionCacheAccess;
+    private final DumperFactory dumperFactory;
+    private final IllegalIdentifierDump illegalIdentifierDump;
+    private final SummaryDumper summaryDumper;
+    private final ProgressDumper progressDumper;
+    private final IncrementalCache incrementalCache;
+    private final DecompilationReport report;
+    private final boolean lomem;
+    private final boolean silent;
+    private final boolean loadInnerClasses;
+    private final boolean resolveNames;
+
+    ParallelJarDriver(int threads, DCCommonState dcCommonState, BinaryFunction<String, DCCommonState, ClassFile> versionCacheAccess, DumperFactory dumperFactory, IllegalIdentifierDump illegalIdentifierDump, SummaryDumper summaryDumper, ProgressDumper progressDumper, IncrementalCache incrementalCache) {
+        Options options = dcCommonState.getOptions();
+        this.threads = Math.max(threads, 1);
+        this.dcCommonState = dcCommonState;
+        this.versionCacheAccess = versionCacheAccess;
+        this.dumperFactory = dumperFactory;
+        this.illegalIdentifierDump = illegalIdentifierDump;
+        this.summaryDumper = summaryDumper;
+        this.progressDumper = progressDumper;
+        this.incrementalCache = incrementalCache;
+        this.lomem = options.getOption(OptionsImpl.LOMEM);
+        this.report = dcCommonState.getDecompilationReport();
+        this.silent = options.getOption(OptionsImpl.SILENT);
+        this.loadInnerClasses = options.getOption(OptionsImpl.DECOMPILE_INNER_CLASSES);
+        this.resolveNames = options.getOption(OptionsImpl.RENAME_DUP_MEMBERS) ||
+                options.getOption(OptionsImpl.RENAME_ENUM_MEMBERS);
+    }
+
+    void doTypes(final List<JavaTypeInstance> types) {
+        ClassFileSource2 classFileSource = dcCommonState.getClassFileSource();
+        if (threads > 1) {
+            classFileSource = new SynchronizedClassFileSource(classFileSource);
+        }
+        DCCommonState libraryState = new DCCommonState(dcCommonState, classFileSource, null);
+        /*
+         * As with the single threaded version, name resolution has to see every type before we analyse
+         * any of them - do that once, and give each class's state the answers.
+         */
+        FixedMemberNames fixedMemberNames = null;
+        if (resolveNames) {
+            DCCommonState namingState = newTaskState(classFileSource, libraryState, null);
+            fixedMemberNames = MemberNameResolver.resolveNamesForCopies(namingState, types);
+        }
+        /*
+         * Primitive types hash by identity, and so affect the iteration order of (eg) declarations.  Make
+         * sure their hashes are settled here, rather than by whichever worker gets there first.
+         */
+        for (RawJavaType rawJavaType : RawJavaType.values()) {
+            rawJavaType.hashCode();
+        }
+
+        if (threads == 1) {
+            for (JavaTypeInstance type : types) {
+                dump(new TypeTask(type, classFileSource, libraryState, fixedMemberNames).call());
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        try {
+            Iterator<JavaTypeInstance> todo = types.iterator();
+            LinkedList<Future<Analysed>> pending = new LinkedList<Future<Analysed>>();
+            while (pending.size() < threads * QUEUED_PER_THREAD && todo.hasNext()) {
+                pending.add(executor.submit(new TypeTask(todo.next(), classFileSource, libraryState, fixedMemberNames)));
+            }
+            while (!pending.isEmpty()) {
+                Analysed analysed = getResult(pending.removeFirst());
+                // Keep the workers busy while we dump.
+                if (todo.hasNext()) {
+                    pending.add(executor.submit(new TypeTask(todo.next(), classFileSource, libraryState, fixedMemberNames)));
+                }
+                dump(analysed);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Analysed getResult(Future<Analysed> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private DCCommonState newTaskState(ClassFileSource2 classFileSource, DCCommonState libraryState, FixedMemberNames fixedMemberNames) {
+        DCCommonState state = new DCCommonState(dcCommonState, classFileSource, libraryState);
+        state.setFixedMemberNames(fixedMemberNames);
+        if (versionCacheAccess != null) {
+            state = new DCCommonState(state, versionCacheAccess);
+        }
+        return state;
+    }
+
+    /*
+     * Everything we found out about a class before dumping it.  Null collectingDumper (and null cached)
+     * means there's nothing to dump.
+     */
+    private static class Analysed {
+        private final JavaTypeInstance type;
+        private ClassFile classFile;
+        private boolean topLevel;
+        private TypeUsageCollector collectingDumper;
+        private String cacheKey;
+        private String cached;
+        private DecompilationReport.Entry reportEntry;
+
+        private Analysed(JavaTypeInstance type) {
+            this.type = type;
+        }
+    }
+
+    private class TypeTask implements Callable<Analysed> {
+        private final JavaTypeInstance type;
+        private final ClassFileSource2 classFileSource;
+        private final DCCommonState libraryState;
+        private final FixedMemberNames fixedMemberNames;
+
+        private TypeTask(JavaTypeInstance type, ClassFileSource2 classFileSource, DCCommonState libraryState, FixedMemberNames fixedMemberNames) {
+            this.type = type;
+            this.classFileSource = classFileSource;
+            this.libraryState = libraryState;
+            this.fixedMemberNames = fixedMemberNames;
+        }
+
+        @Override
+        public Analysed call() {
+            DCCommonState state = newTaskState(classFileSource, libraryState, fixedMemberNames);
+            // Likewise, ids feed hashes.
+            StackEntry.resetIds();
+            Analysed res = new Analysed(type);
+            try {
+                ClassFile c = state.getClassFile(type);
+                res.classFile = c;
+                // Don't explicitly dump inner classes.  But make sure we ask the CLASS if it's
+                // an inner class, rather than using the name, as scala tends to abuse '$'.
+                res.topLevel = !c.isInnerClass();
+                if (!res.topLevel) return res;
+                if (report != null) {
+                    res.reportEntry = report.start(type);
+                }
+                if (loadInnerClasses) {
+                    c.loadInnerClasses(state);
+                }
+                if (incrementalCache != null) {
+                    res.cacheKey = incrementalCache.getKey(state, c);
+                    if (res.cacheKey != null) res.cached = incrementalCache.get(res.cacheKey);
+                }
+                if (res.cached == null) {
+                    c.analyseTop(state);
+                    TypeUsageCollector collectingDumper = new TypeUsageCollectorImpl(c);
+                    c.collectTypeUsages(collectingDumper);
+                    res.collectingDumper = collectingDumper;
+                    if (res.reportEntry != null) res.reportEntry.analysed(c);
+                }
+            } catch (RuntimeException e) {
+                // As with the single threaded driver, a failure before we have a dumper is lost.
+                res.collectingDumper = null;
+                if (res.reportEntry != null) res.reportEntry.failed(e);
+            }
+            return res;
+        }
+    }
+
+    private void dump(Analysed analysed) {
+        if (!analysed.topLevel) return;
+        DecompilationReport.Entry reportEntry = analysed.reportEntry;
+        try {
+            if (!silent) {
+                progressDumper.analysingType(analysed.type);
+            }
+            ClassFile c = analysed.classFile;
+            if (analysed.cached != null) {
+                incrementalCache.replay(analysed.cached, c.getClassType(), dumperFactory, summaryDumper, illegalIdentifierDump);
+                if (reportEntry != null) reportEntry.cached(analysed.cached);
+                return;
+            }
+            if (analysed.collectingDumper == null) return;
+            Dumper d = new ToStringDumper();  // Sentinel dumper.
+            try {
+                d = dumperFactory.getNewTopLevelDumper(c.getClassType(), summaryDumper, analysed.collectingDumper.getTypeUsageInformation(), illegalIdentifierDump);
+                if (reportEntry != null) {
+                    d = reportEntry.count(d, dcCommonState.getOptions(), illegalIdentifierDump);
+                }
+                RecordingDumper recordingDumper = null;
+                if (analysed.cacheKey != null) {
+                    d = recordingDumper = incrementalCache.record(d, illegalIdentifierDump);
+                }
+                c.dump(d);
+                d.print("\n");
+                d.print("\n");
+                if (recordingDumper != null) {
+                    incrementalCache.put(analysed.cacheKey, recordingDumper);
+                }
+                if (lomem) {
+                    c.releaseCode();
+                }
+            } catch (Dumper.CannotCreate e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (reportEntry != null) reportEntry.failed(e);
+                d.print(e.toString()).print("\n").print("\n").print("\n");
+            } finally {
+                d.close();
+            }
+        } finally {
+            // Written in turn, so the report is in the same order as it would be with one thread.
+            if (reportEntry != null) reportEntry.finish();
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cfr-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
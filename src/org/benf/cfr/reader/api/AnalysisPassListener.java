@@ -0,0 +1,36 @@
+package org.benf.cfr.reader.api;
+
+/**
+ * Notified of the cost of each pass CFR makes while analysing a method's code.
+ *
+ * Provide one with {@link CfrDriver.Builder#withAnalysisPassListener(AnalysisPassListener)}, or use
+ * the {@code passtimings} option to have CFR print an aggregated report at the end of its run.
+ *
+ * If decompiling with more than one thread, calls may arrive concurrently.
+ */
+public interface AnalysisPassListener {
+    /**
+     * A pass has completed.
+     *
+     * @param method         method being analysed, as class name and method signature.
+     * @param recoveryPass   0 for the initial attempt at analysis, or the index of the recovery pass
+     *                       (i.e. retry with more aggressive options), if the initial attempt failed.
+     * @param pass           name of the pass, eg "Op03Rewriters.condenseConditionals".  A pass that runs
+     *                       more than once in an analysis will be reported each time it runs.  A pass
+     *                       run from more than one point in the analysis is numbered by that point
+     *                       after the first, eg "Cleaner.sortAndRenumber#2".
+     * @param nanos          wall time spent in the pass.
+     * @param allocatedBytes bytes allocated by the analysing thread during the pass, or -1 if not measured.
+     *                       (see the {@code passallocations} option).
+     */
+    void passComplete(String method, int recoveryPass, String pass, long nanos, long allocatedBytes);
+
+    /**
+     * All analysis (including any recovery passes) of a method has completed.
+     *
+     * @param method         method analysed.
+     * @param recoveryPasses number of recovery passes run - 0 if the initial attempt succeeded.
+     * @param nanos          total wall time spent analysing the method.
+     */
+    void methodComplete(String method, int recoveryPasses, long nanos);
+}
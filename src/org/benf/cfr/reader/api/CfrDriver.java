@@ -30,6 +30,7 @@ public interface CfrDriver {
         ClassFileSource source = null;
         Options builtOptions = null;
         OutputSinkFactory output = null;
+        AnalysisPassListener analysisPassListener = null;
 
         /**
          * Overrides where CFR searches for bytecode.
@@ -86,6 +87,18 @@ public interface CfrDriver {
             return this;
         }
 
+        /**
+         * Be told how long each analysis pass takes, for each method analysed.
+         * See {@link AnalysisPassListener}.
+         *
+         * @param listener listener to notify.
+         * @return this builder.
+         */
+        public Builder withAnalysisPassListener(AnalysisPassListener listener) {
+            this.analysisPassListener = listener;
+            return this;
+        }
+
         /**
          * Given provided artifacts, build an instance of {@link CfrDriver}.
          * Note that if artifacts are not provided, you will get default CFR behaviour.
@@ -93,7 +106,7 @@ public interface CfrDriver {
          * @return Constructed instance of {@link CfrDriver}
          */
         public CfrDriver build() {
-            return new CfrDriverImpl(source, output, builtOptions);
+            return new CfrDriverImpl(source, output, builtOptions, analysisPassListener);
         }
     }
 }
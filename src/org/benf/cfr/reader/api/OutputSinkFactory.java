@@ -22,7 +22,9 @@ public interface OutputSinkFactory {
         /** Sinks will accept {@link org.benf.cfr.reader.api.SinkReturns.DecompiledMultiVer} */
         DECOMPILED_MULTIVER(SinkReturns.DecompiledMultiVer.class),
         /** Sinks will accept {@link org.benf.cfr.reader.api.SinkReturns.ExceptionMessage} */
-        EXCEPTION_MESSAGE(SinkReturns.ExceptionMessage.class);
+        EXCEPTION_MESSAGE(SinkReturns.ExceptionMessage.class),
+        /** Sinks will accept {@link org.benf.cfr.reader.api.SinkReturns.DecompiledFragment} - several per class */
+        DECOMPILED_FRAGMENT(SinkReturns.DecompiledFragment.class);
 
         /**
          * Get the type of message that the sink will be expected to take.
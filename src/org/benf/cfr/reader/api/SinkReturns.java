@@ -61,4 +61,44 @@ public interface SinkReturns {
         int getRuntimeFrom();
     }
 
+    /**
+     * A piece of the decompiled java for a class, delivered while the class is still being
+     * dumped, rather than all at once at the end.<br>
+     * <br>
+     * Fragments for a class arrive in order, and the last one (which may be empty) says so.
+     * Dumping doesn't continue until the sink returns, so a sink which blocks (eg on a socket)
+     * holds up decompilation rather than letting output pile up in memory.
+     */
+    interface DecompiledFragment {
+        /**
+         * @return the package of the class that is being dumped
+         */
+        String getPackageName();
+
+        /**
+         * @return the name of the class that is being dumped
+         */
+        String getClassName();
+
+        /**
+         * As {@link DecompiledMultiVer#getRuntimeFrom()}.
+         *
+         * @return visible from JRE version.
+         */
+        int getRuntimeFrom();
+
+        /**
+         * NB: this is reused for the next fragment - it is only valid until the sink returns, so
+         * copy it if it needs to be kept.
+         *
+         * @return the next piece of decompiled java.
+         */
+        CharSequence getJava();
+
+        /**
+         * @return true if this is the final fragment for this class.
+         */
+        boolean isLast();
+    }
+
 }
@@ -0,0 +1,55 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.util.AnalysisBudgetExceededException;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+/*
+ * Bounds how much effort we'll spend on one method, over all of its passes - a single pathological
+ * method shouldn't be able to stall a whole jar.
+ *
+ * This is cooperative - it's checked as each pass completes, so a single pass can still overrun.
+ * Work is counted as instructions processed per pass, i.e. method size * passes run.
+ */
+class AnalysisBudget {
+    private final long deadline;
+    private final long timeLimitMs;
+    private final long workLimit;
+    private long work;
+    private boolean exhausted;
+
+    private AnalysisBudget(long timeLimitMs, long workLimit) {
+        this.timeLimitMs = timeLimitMs;
+        this.workLimit = workLimit;
+        this.deadline = timeLimitMs > 0 ? System.nanoTime() + timeLimitMs * 1000000L : 0;
+    }
+
+    /*
+     * Null if no limits have been set.
+     */
+    static AnalysisBudget create(Options options) {
+        int timeLimitMs = options.getOption(OptionsImpl.METHOD_TIME_LIMIT);
+        int workLimit = options.getOption(OptionsImpl.METHOD_WORK_LIMIT);
+        if (timeLimitMs <= 0 && workLimit <= 0) return null;
+        return new AnalysisBudget(timeLimitMs, workLimit);
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    void charge(int instructions, String pass) {
+        work += instructions;
+        if (workLimit > 0 && work > workLimit) {
+            exceeded("work limit of " + workLimit + " (--" + OptionsImpl.METHOD_WORK_LIMIT.getName() + ")", pass);
+        }
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            exceeded("time limit of " + timeLimitMs + "ms (--" + OptionsImpl.METHOD_TIME_LIMIT.getName() + ")", pass);
+        }
+    }
+
+    private void exceeded(String limit, String pass) {
+        exhausted = true;
+        throw new AnalysisBudgetExceededException("Analysis exceeded " + limit + " after " + pass);
+    }
+}
@@ -0,0 +1,40 @@
+package org.benf.cfr.reader.bytecode;
+
+/*
+ * How analysis of a method's code went - kept (it's small) after the analysis itself may have
+ * been released, so it can be reported on.
+ */
+public class AnalysisOutcome {
+    public static final int INITIAL_PASS = -1;
+
+    private final int recoveryPass;
+    private final String failure;
+    private final long nanos;
+
+    AnalysisOutcome(int recoveryPass, String failure, long nanos) {
+        this.recoveryPass = recoveryPass;
+        this.failure = failure;
+        this.nanos = nanos;
+    }
+
+    /*
+     * INITIAL_PASS if the initial attempt was used, otherwise the recovery pass whose result was - as
+     * an index into the recovery options, so it's what --recpass would need to reproduce it.  (Not a
+     * count of passes run, as passes which can't help are skipped.)
+     */
+    public int getRecoveryPass() {
+        return recoveryPass;
+    }
+
+    /*
+     * Null if analysis succeeded.  Otherwise the (simple) name of the exception that analysis
+     * failed with, or "incomplete" if it produced code, but code with problems.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -2,19 +2,37 @@ package org.benf.cfr.reader.bytecode;
 
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
 import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredFakeDecompFailure;
+import org.benf.cfr.reader.util.AnalysisBudgetExceededException;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
 
 public class AnalysisResultFromException implements AnalysisResult {
     private final Op04StructuredStatement code;
     private final DecompilerComments comments;
+    private final Exception exception;
 
     public AnalysisResultFromException(Exception e) {
-        this.code = new Op04StructuredStatement(new StructuredFakeDecompFailure(e));
-        this.comments = new DecompilerComments();
+        this(e, new StructuredFakeDecompFailure(e));
         comments.addComment(new DecompilerComment("Exception decompiling", e));
     }
 
+    private AnalysisResultFromException(Exception e, StructuredFakeDecompFailure failure) {
+        this.exception = e;
+        this.code = new Op04StructuredStatement(failure);
+        this.comments = new DecompilerComments();
+    }
+
+    /*
+     * Gave up on purpose - CodeAnalyser adds the (one) comment saying so.
+     */
+    static AnalysisResultFromException budgetExceeded(AnalysisBudgetExceededException e) {
+        return new AnalysisResultFromException(e, StructuredFakeDecompFailure.withoutStackTrace(e));
+    }
+
+    public Exception getException() {
+        return exception;
+    }
+
     @Override
     public boolean isFailed() {
         return true;
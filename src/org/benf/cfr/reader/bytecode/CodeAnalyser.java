@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.bytecode;
 
+import org.benf.cfr.reader.api.AnalysisPassListener;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.*;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op2rewriters.*;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters.*;
@@ -7,6 +8,7 @@ import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.SwitchEnumRewr
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.SwitchStringRewriter;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker.IllegalReturnChecker;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker.LooseCatchChecker;
+import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker.Op04Checker;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker.VoidVariableChecker;
 import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.ExplicitTypeCallRewriter;
 import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.StringBuilderRewriter;
@@ -21,6 +23,7 @@ import org.benf.cfr.reader.entities.constantpool.ConstantPool;
 import org.benf.cfr.reader.entities.exceptions.ExceptionAggregator;
 import org.benf.cfr.reader.entities.exceptions.ExceptionTableEntry;
 import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.AnalysisBudgetExceededException;
 import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
@@ -41,6 +44,7 @@ public class CodeAnalyser {
     private Method method;
 
     private Op04StructuredStatement analysed;
+    private AnalysisOutcome outcome;
 
 
     public CodeAnalyser(AttributeCode attributeCode) {
@@ -105,6 +109,13 @@ public class CodeAnalyser {
         if (analysed != null) return analysed;
 
         Options options = dcCommonState.getOptions();
+        AnalysisPassListener passListener = dcCommonState.getAnalysisPassListener();
+        long startTime = System.nanoTime();
+        String methodName = passListener == null ? null : getMethodName();
+        // Number of recovery passes run, and which (index into recoveryOptionsArr) gave the result we used.
+        int recoveryAttempts = 0;
+        int usedPass = AnalysisOutcome.INITIAL_PASS;
+        AnalysisBudget budget = AnalysisBudget.create(options);
         List<Op01WithProcessedDataAndByteJumps> instrs = getInstrs();
 
         AnalysisResult res;
@@ -120,24 +131,32 @@ public class CodeAnalyser {
                 throw new IllegalArgumentException("Illegal recovery pass idx");
             }
             RecoveryOptions.Applied applied = recoveryOptionsArr[pass].apply(dcCommonState, options, bytecodeMeta);
-            res = getAnalysisOrWrapFail(pass, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta);
+            res = getAnalysisOrWrapFail(pass, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta, methodName, budget);
+            recoveryAttempts = 1;
+            usedPass = pass;
         } else {
 
-            res = getAnalysisOrWrapFail(0, instrs, dcCommonState, options, null, bytecodeMeta);
+            res = getAnalysisOrWrapFail(0, instrs, dcCommonState, options, null, bytecodeMeta, methodName, budget);
 
             if (res.isFailed() && options.getOption(OptionsImpl.RECOVER)) {
                 int passIdx = 1;
-                for (RecoveryOptions recoveryOptions : recoveryOptionsArr) {
-                    RecoveryOptions.Applied applied = recoveryOptions.apply(dcCommonState, options, bytecodeMeta);
+                for (int x = 0; x < recoveryOptionsArr.length; ++x) {
+                    if (budget != null && budget.isExhausted()) break;
+                    RecoveryOptions.Applied applied = recoveryOptionsArr[x].apply(dcCommonState, options, bytecodeMeta);
                     if (!applied.valid) continue;
-                    AnalysisResult nextRes = getAnalysisOrWrapFail(passIdx++, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta);
+                    recoveryAttempts++;
+                    AnalysisResult nextRes = getAnalysisOrWrapFail(passIdx++, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta, methodName, budget);
                     if (nextRes != null) {
                         if (res.isFailed() && nextRes.isFailed()) {
                             // If they both failed, only replace if the later failure is not an exception.
                             // (or if the earlier one is).
-                            if (res.isThrown() || !nextRes.isThrown()) res = nextRes;
+                            if (res.isThrown() || !nextRes.isThrown()) {
+                                res = nextRes;
+                                usedPass = x;
+                            }
                         } else {
                             res = nextRes;
+                            usedPass = x;
                         }
                     }
                     if (res.isFailed()) continue;
@@ -146,6 +165,10 @@ public class CodeAnalyser {
             }
         }
 
+        if (budget != null && budget.isExhausted() && res.getComments() != null) {
+            res.getComments().addComment(DecompilerComment.ANALYSIS_BUDGET);
+        }
+
         if (res.getComments() != null) {
             method.setComments(res.getComments());
         }
@@ -156,9 +179,33 @@ public class CodeAnalyser {
         res.getAnonymousClassUsage().useNotes();
 
         analysed = res.getCode();
+        long nanos = System.nanoTime() - startTime;
+        outcome = new AnalysisOutcome(usedPass, getFailure(res), nanos);
+        if (passListener != null) {
+            passListener.methodComplete(methodName, recoveryAttempts, nanos);
+        }
         return analysed;
     }
 
+    private static String getFailure(AnalysisResult res) {
+        if (!res.isFailed()) return null;
+        if (res instanceof AnalysisResultFromException) {
+            return ((AnalysisResultFromException) res).getException().getClass().getSimpleName();
+        }
+        return "incomplete";
+    }
+
+    /*
+     * Null if we've not been analysed.
+     */
+    public AnalysisOutcome getAnalysisOutcome() {
+        return outcome;
+    }
+
+    private String getMethodName() {
+        return method.getClassFile().getClassType().getRawName() + "." + method.getMethodPrototype().getComparableString();
+    }
+
     /*
      * This list isn't going to change with recovery passes, so avoid recomputing.
      */
@@ -183,11 +230,15 @@ public class CodeAnalyser {
         return instrs;
     }
 
-    private AnalysisResult getAnalysisOrWrapFail(int passIdx, List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState commonState, Options options, List<DecompilerComment> extraComments, BytecodeMeta bytecodeMeta) {
+    private AnalysisResult getAnalysisOrWrapFail(int passIdx, List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState commonState, Options options, List<DecompilerComment> extraComments, BytecodeMeta bytecodeMeta, String methodName, AnalysisBudget budget) {
+        PassTimer timer = PassTimer.create(commonState.getAnalysisPassListener(), methodName, passIdx, options.getOption(OptionsImpl.ANALYSIS_PASS_ALLOCATIONS), budget, instrs.size());
         try {
-            AnalysisResult res = getAnalysisInner(instrs, commonState, options, bytecodeMeta, passIdx);
+            AnalysisResult res = getAnalysisInner(instrs, commonState, options, bytecodeMeta, passIdx, timer);
             if (extraComments != null) res.getComments().addComments(extraComments);
             return res;
+        } catch (AnalysisBudgetExceededException e) {
+            // Not a bug, so there's no stack trace to show.
+            return AnalysisResultFromException.budgetExceeded(e);
         } catch (RuntimeException e) {
             return new AnalysisResultFromException(e);
         }
@@ -197,8 +248,11 @@ public class CodeAnalyser {
      * Note that the options passed in here only apply to this function - don't pass around.
      *
      * passIdx is only useful for breakpointing.
+     *
+     * timer.lap is called as each pass finishes - if nothing's listening, and there's no budget
+     * (which it will throw if exceeded), it's a no-op.
      */
-    private AnalysisResult getAnalysisInner(List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta, int passIdx) {
+    private AnalysisResult getAnalysisInner(List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta, int passIdx, PassTimer timer) {
 
         boolean willSort = options.getOption(OptionsImpl.FORCE_TOPSORT) == Troolean.TRUE;
 
@@ -248,6 +302,7 @@ public class CodeAnalyser {
                 }
             }
         }
+        timer.lap("Op02 creation");
 
 
         BlockIdentifierFactory blockIdentifierFactory = new BlockIdentifierFactory();
@@ -262,6 +317,7 @@ public class CodeAnalyser {
         if (exceptions.RemovedLoopingExceptions()) {
             comments.addComment(DecompilerComment.LOOPING_EXCEPTIONS);
         }
+        timer.lap("ExceptionAggregator");
 
         //
         // We know the ranges covered by each exception handler - insert try / catch statements around
@@ -277,6 +333,7 @@ public class CodeAnalyser {
              * This one's less safe, but...
              */
             exceptions.removeSynchronisedHandlers(lutByOffset, lutByIdx, instrs);
+            timer.lap("ExceptionAggregator.aggressivePruning");
         }
 
         /*
@@ -288,11 +345,14 @@ public class CodeAnalyser {
         if (options.getOption(OptionsImpl.REWRITE_LAMBDAS, classFileVersion) &&
                 bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.USES_INVOKEDYNAMIC)) {
             Op02GetClassRewriter.removeInvokeGetClass(classFile, op2list, GetClassTestLambda.INSTANCE);
+            timer.lap("Op02GetClassRewriter.removeInvokeGetClass");
         }
         Op02GetClassRewriter.removeInvokeGetClass(classFile, op2list, GetClassTestInnerConstructor.INSTANCE);
+        timer.lap("Op02GetClassRewriter.removeInvokeGetClass#2");
 
         long codeLength = originalCodeAttribute.getCodeLength();
         op2list = Op02WithProcessedDataAndRefs.insertExceptionBlocks(op2list, exceptions, lutByOffset, cp, codeLength, options);
+        timer.lap("Op02WithProcessedDataAndRefs.insertExceptionBlocks");
         // lutByOffset is no longer valid at this point, but we might still need it to determine variable lifetime (i.e what
         // was the instruction BEFORE this one)
 
@@ -304,6 +364,7 @@ public class CodeAnalyser {
          */
         if (aggressiveSizeReductions) {
             Op02RedundantStoreRewriter.rewrite(op2list, originalCodeAttribute.getMaxLocals());
+            timer.lap("Op02RedundantStoreRewriter.rewrite");
         }
 
 
@@ -312,6 +373,7 @@ public class CodeAnalyser {
         // This is the point at which we combine temporaries from merging
         // stacks.
         Op02WithProcessedDataAndRefs.populateStackInfo(op2list, method);
+        timer.lap("Op02WithProcessedDataAndRefs.populateStackInfo");
 
         /* Extra fun.  A ret can have a jump back to the instruction immediately following the JSR that called it.
          * So we have to search for RET instructions, then for each of them find any JSRs which could call it, and add
@@ -321,9 +383,12 @@ public class CodeAnalyser {
          * This applies to the targets of JSRs too. (though there's nothing stopping the target of the JSR from returning a
          * DIFFERENT stack depth).
          */
-        if (Op02WithProcessedDataAndRefs.processJSR(op2list)) {
+        boolean hasJSR = Op02WithProcessedDataAndRefs.processJSR(op2list);
+        timer.lap("Op02WithProcessedDataAndRefs.processJSR");
+        if (hasJSR) {
             // Repopulate stack info, as it will have changed, as we might have cloned instructions.
             Op02WithProcessedDataAndRefs.populateStackInfo(op2list, method);
+            timer.lap("Op02WithProcessedDataAndRefs.populateStackInfo#2");
         }
 
 
@@ -332,10 +397,12 @@ public class CodeAnalyser {
         // can generate bytecode with unreachable operations, which confuses later stages which
         // expect all parents of opcodes to have been processed in a DFS.
         Op02WithProcessedDataAndRefs.unlinkUnreachable(op2list);
+        timer.lap("Op02WithProcessedDataAndRefs.unlinkUnreachable");
 
 
         // Discover slot re-use, infer invisible constructor parameters, etc.
         Op02WithProcessedDataAndRefs.discoverStorageLiveness(method, comments, op2list, bytecodeMeta);
+        timer.lap("Op02WithProcessedDataAndRefs.discoverStorageLiveness");
 
         // Create a non final version...
         final VariableFactory variableFactory = new VariableFactory(method);
@@ -344,54 +411,73 @@ public class CodeAnalyser {
                 new TypeHintRecoveryImpl(bytecodeMeta) : TypeHintRecoveryNone.INSTANCE;
 
         List<Op03SimpleStatement> op03SimpleParseNodes = Op02WithProcessedDataAndRefs.convertToOp03List(op2list, method, variableFactory, blockIdentifierFactory, dcCommonState, typeHintRecovery);
+        timer.lap("Op02WithProcessedDataAndRefs.convertToOp03List");
         // Renumber, just in case JSR stage (or something) has left bad labellings.
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber");
 
         // Expand any 'multiple' statements (eg from dups)
         Misc.flattenCompoundStatements(op03SimpleParseNodes);
+        timer.lap("Misc.flattenCompoundStatements");
         // Before we get complicated, see if there are any values which have been left with null/void types, but have
         // known base information which can improve it.
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new NullTypedLValueRewriter());
+        timer.lap("NullTypedLValueRewriter");
 
         // Very early, we make a pass through collecting all the method calls for a given type
         // SPECIFICALLY by type pointer, don't alias identical types.
         // We then see if we can infer information from RHS <- LHS re generics, but make sure that we
         // don't do it over aggressively (see UntypedMapTest);
         GenericInferer.inferGenericObjectInfoFromCalls(op03SimpleParseNodes);
+        timer.lap("GenericInferer.inferGenericObjectInfoFromCalls");
         
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#2");
 
         if (aggressiveSizeReductions) {
             op03SimpleParseNodes = LValuePropSimple.condenseSimpleLValues(op03SimpleParseNodes);
+            timer.lap("LValuePropSimple.condenseSimpleLValues");
         }
 
         Op03Rewriters.nopIsolatedStackValues(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.nopIsolatedStackValues");
 
         Op03SimpleStatement.assignSSAIdentifiers(method, op03SimpleParseNodes);
+        timer.lap("Op03SimpleStatement.assignSSAIdentifiers");
 
         // Condense pointless assignments
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        timer.lap("LValueProp.condenseLValues");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#3");
 
         // Before we expand raw switches, try to spot a particularly nasty pattern that kotlin
         // generates for string switches.
         op03SimpleParseNodes = KotlinSwitchHandler.extractStringSwitches(op03SimpleParseNodes, bytecodeMeta);
+        timer.lap("KotlinSwitchHandler.extractStringSwitches");
         // Expand raw switch statements into more useful ones.
         SwitchReplacer.replaceRawSwitches(method, op03SimpleParseNodes, blockIdentifierFactory, options);
+        timer.lap("SwitchReplacer.replaceRawSwitches");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#4");
 
         // Remove 2nd (+) jumps in pointless jump chains.
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removePointlessJumps");
 
         // Try to eliminate catch temporaries.
         op03SimpleParseNodes = Op03Rewriters.eliminateCatchTemporaries(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.eliminateCatchTemporaries");
 
         Op03Rewriters.identifyCatchBlocks(op03SimpleParseNodes, blockIdentifierFactory);
+        timer.lap("Op03Rewriters.identifyCatchBlocks");
 
         Op03Rewriters.combineTryCatchBlocks(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.combineTryCatchBlocks");
 
         if (options.getOption(OptionsImpl.COMMENT_MONITORS)) {
             Op03Rewriters.commentMonitors(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.commentMonitors");
         }
 
         //      Op03SimpleStatement.removePointlessExpressionStatements(op03SimpleParseNodes);
@@ -408,78 +494,110 @@ public class CodeAnalyser {
 
 
         Op03Rewriters.condenseConstruction(dcCommonState, method, op03SimpleParseNodes, anonymousClassUsage);
+        timer.lap("Op03Rewriters.condenseConstruction");
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        timer.lap("LValueProp.condenseLValues#2");
         Op03Rewriters.condenseLValueChain1(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.condenseLValueChain1");
 
         StaticInitReturnRewriter.rewrite(options, method, op03SimpleParseNodes);
+        timer.lap("StaticInitReturnRewriter.rewrite");
 
         op03SimpleParseNodes = Op03Rewriters.removeRedundantTries(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removeRedundantTries");
 
         FinallyRewriter.identifyFinally(options, method, op03SimpleParseNodes, blockIdentifierFactory);
+        timer.lap("FinallyRewriter.identifyFinally");
 
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, !willSort);
+        timer.lap("Cleaner.removeUnreachableCode");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#5");
 
         /*
          * See if try blocks can be extended with simple returns here.  This is an extra pass, because we might have
          * missed backjumps from catches earlier.
          */
         Op03Rewriters.extendTryBlocks(dcCommonState, op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.extendTryBlocks");
         Op03Rewriters.combineTryCatchEnds(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.combineTryCatchEnds");
 
         // Remove LValues which are on their own as expressionstatements.
         Op03Rewriters.removePointlessExpressionStatements(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removePointlessExpressionStatements");
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, !willSort);
+        timer.lap("Cleaner.removeUnreachableCode#2");
 
         // Now we've done our first stage condensation, we want to transform assignments which are
         // self updates into preChanges, if we can.  I.e. x = x | 3  ->  x |= 3,  x = x + 1 -> x+=1 (===++x).
         // (we do this here rather than taking advantage of INC opcodes as this allows us to catch the former)
         Op03Rewriters.replacePrePostChangeAssignments(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.replacePrePostChangeAssignments");
 
         // Some pre-changes can be converted into post-changes.
         Op03Rewriters.pushPreChangeBack(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.pushPreChangeBack");
 
         Op03Rewriters.condenseLValueChain2(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.condenseLValueChain2");
 
         // Condense again, now we've simplified constructors.
         // Inline assingments need to be dealt with HERE (!).
         Op03Rewriters.collapseAssignmentsIntoConditionals(op03SimpleParseNodes, options);
+        timer.lap("Op03Rewriters.collapseAssignmentsIntoConditionals");
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        timer.lap("LValueProp.condenseLValues#3");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#6");
 
         if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
             op03SimpleParseNodes = RemoveDeterministicJumps.apply(method, op03SimpleParseNodes);
+            timer.lap("RemoveDeterministicJumps.apply");
         }
 
         if (options.getOption(OptionsImpl.FORCE_TOPSORT) == Troolean.TRUE) {
             if (options.getOption(OptionsImpl.FORCE_RETURNING_IFS) == Troolean.TRUE) {
                 Op03Rewriters.replaceReturningIfs(op03SimpleParseNodes, true);
+                timer.lap("Op03Rewriters.replaceReturningIfs");
             }
             if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
                 Op03Rewriters.propagateToReturn2(op03SimpleParseNodes);
+                timer.lap("Op03Rewriters.propagateToReturn2");
             }
 
             op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, false);
+            timer.lap("Cleaner.removeUnreachableCode#3");
 
             op03SimpleParseNodes = Op03Blocks.topologicalSort(op03SimpleParseNodes, comments, options);
+            timer.lap("Op03Blocks.topologicalSort");
             Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.removePointlessJumps#2");
 
             /*
              * Now we've sorted, we need to rebuild switch blocks.....
              */
             SwitchReplacer.rebuildSwitches(op03SimpleParseNodes, options);
+            timer.lap("SwitchReplacer.rebuildSwitches");
             /*
              * This set of operations is /very/ aggressive.
              */
             // This is not necessarily a sensible thing to do, but we're being aggressive...
             Op03Rewriters.rejoinBlocks(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.rejoinBlocks");
             Op03Rewriters.extendTryBlocks(dcCommonState, op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.extendTryBlocks#2");
             op03SimpleParseNodes = Op03Blocks.combineTryBlocks(op03SimpleParseNodes);
+            timer.lap("Op03Blocks.combineTryBlocks");
             Op03Rewriters.combineTryCatchEnds(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.combineTryCatchEnds#2");
             Op03Rewriters.rewriteTryBackJumps(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.rewriteTryBackJumps");
             FinallyRewriter.identifyFinally(options, method, op03SimpleParseNodes, blockIdentifierFactory);
+            timer.lap("FinallyRewriter.identifyFinally#2");
             if (options.getOption(OptionsImpl.FORCE_RETURNING_IFS) == Troolean.TRUE) {
                 Op03Rewriters.replaceReturningIfs(op03SimpleParseNodes, true);
+                timer.lap("Op03Rewriters.replaceReturningIfs#2");
             }
         }
 
@@ -489,37 +607,50 @@ public class CodeAnalyser {
          */
         if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
             RemoveDeterministicJumps.propagateToReturn(method, op03SimpleParseNodes);
+            timer.lap("RemoveDeterministicJumps.propagateToReturn");
         }
 
         boolean reloop;
         do {
             Op03Rewriters.rewriteNegativeJumps(op03SimpleParseNodes, true);
+            timer.lap("Op03Rewriters.rewriteNegativeJumps");
 
             Op03Rewriters.collapseAssignmentsIntoConditionals(op03SimpleParseNodes, options);
+            timer.lap("Op03Rewriters.collapseAssignmentsIntoConditionals#2");
 
             // Collapse conditionals into || / &&
             reloop = Op03Rewriters.condenseConditionals(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.condenseConditionals");
             // Condense odder conditionals, which may involve inline ternaries which are
             // hard to work out later.  This isn't going to get everything, but may help!
             //
             reloop = reloop | Op03Rewriters.condenseConditionals2(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.condenseConditionals2");
             reloop = reloop | Op03Rewriters.normalizeDupAssigns(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.normalizeDupAssigns");
             if (reloop) {
                 LValueProp.condenseLValues(op03SimpleParseNodes);
+                timer.lap("LValueProp.condenseLValues#4");
             }
             op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+            timer.lap("Cleaner.removeUnreachableCode#4");
 
         } while (reloop);
 
         AnonymousArray.resugarAnonymousArrays(op03SimpleParseNodes);
+        timer.lap("AnonymousArray.resugarAnonymousArrays");
 
         Op03Rewriters.simplifyConditionals(op03SimpleParseNodes, false);
+        timer.lap("Op03Rewriters.simplifyConditionals");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#7");
 
         // Rewrite conditionals which jump into an immediate jump (see specifics)
         Op03Rewriters.rewriteNegativeJumps(op03SimpleParseNodes, false);
+        timer.lap("Op03Rewriters.rewriteNegativeJumps#2");
 
         Op03Rewriters.optimiseForTypes(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.optimiseForTypes");
 
         // If statements which end up jumping to the final return can really confuse loop detection, so we want
         // to remove them.
@@ -537,63 +668,85 @@ public class CodeAnalyser {
 
         if (options.getOption(OptionsImpl.ECLIPSE)) {
             Op03Rewriters.eclipseLoopPass(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.eclipseLoopPass");
         }
 
         // Identify simple while loops.
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        timer.lap("Cleaner.removeUnreachableCode#5");
         LoopIdentifier.identifyLoops1(method, op03SimpleParseNodes, blockIdentifierFactory);
+        timer.lap("LoopIdentifier.identifyLoops1");
 
         // After we've identified loops, try to push any instructions through a goto
         op03SimpleParseNodes = Op03Rewriters.pushThroughGoto(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.pushThroughGoto");
 
         // Replacing returning ifs early (above, aggressively) interferes with some nice output.
         // Normally we'd do it AFTER loops.
         if (options.getOption(OptionsImpl.FORCE_RETURNING_IFS) == Troolean.TRUE) {
             Op03Rewriters.replaceReturningIfs(op03SimpleParseNodes, false);
+            timer.lap("Op03Rewriters.replaceReturningIfs#3");
         }
 
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        timer.lap("Cleaner.sortAndRenumber#8");
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        timer.lap("Cleaner.removeUnreachableCode#6");
 
         // Perform this before simple forward if detection, as it allows us to not have to consider
         // gotos which have been relabelled as continue/break.
         Op03Rewriters.rewriteBreakStatements(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.rewriteBreakStatements");
         Op03Rewriters.rewriteDoWhileTruePredAsWhile(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.rewriteDoWhileTruePredAsWhile");
         Op03Rewriters.rewriteWhilesAsFors(options, op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.rewriteWhilesAsFors");
 
         // TODO : I think this is now redundant.
         Op03Rewriters.removeSynchronizedCatchBlocks(options, op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removeSynchronizedCatchBlocks");
 
         // identify conditionals which are of the form if (a) { xx } [ else { yy } ]
         // where xx and yy have no GOTOs in them.
         // We need another pass of this to remove jumps which are next to each other except for nops
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removeUselessNops");
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removePointlessJumps#3");
         // BUT....
         // After we've removed pointless jumps, let's possibly re-add them, so that the structure of
         // try blocks doesn't end up with confusing jumps.  See ExceptionTest11.
         // (this removal and re-adding may seem daft, (and it often is), but we normalise code
         // and handle more cases by doing it).
         Op03Rewriters.extractExceptionJumps(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.extractExceptionJumps");
         Op03Rewriters.extractAssertionJumps(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.extractAssertionJumps");
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        timer.lap("Cleaner.removeUnreachableCode#7");
 
         // Identify simple (nested) conditionals - note that this also generates ternary expressions,
         // if the conditional is simple enough.
         ConditionalRewriter.identifyNonjumpingConditionals(op03SimpleParseNodes, blockIdentifierFactory);
+        timer.lap("ConditionalRewriter.identifyNonjumpingConditionals");
         // Condense again, now we've simplified conditionals, ternaries, etc.
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        timer.lap("LValueProp.condenseLValues#5");
         if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
             Op03Rewriters.propagateToReturn2(op03SimpleParseNodes);
+            timer.lap("Op03Rewriters.propagateToReturn2#2");
         }
 
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removeUselessNops#2");
 
 
         // By now, we've (re)moved several statements, so it's possible that some jumps can be rewritten to
         // breaks again.
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removePointlessJumps#4");
         Op03Rewriters.rewriteBreakStatements(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.rewriteBreakStatements#2");
 
         // See if we can classify any more gotos - i.e. the last statement in a try block
         // which jumps to immediately after the catch block.
@@ -601,53 +754,69 @@ public class CodeAnalyser {
         // While it seems perverse to have another pass at this here, it seems to yield the best results.
         //
         Op03Rewriters.classifyGotos(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.classifyGotos");
         if (options.getOption(OptionsImpl.LABELLED_BLOCKS)) {
             Op03Rewriters.classifyAnonymousBlockGotos(op03SimpleParseNodes, false);
+            timer.lap("Op03Rewriters.classifyAnonymousBlockGotos");
         }
         //
         // By this point, we've tried to classify ternaries.  We could try pushing some literals
         // very aggressively. (i.e. a=1, if (a) b=1 else b =0; return b. ) -> return 1;
         //
         ConditionalRewriter.identifyNonjumpingConditionals(op03SimpleParseNodes, blockIdentifierFactory);
+        timer.lap("ConditionalRewriter.identifyNonjumpingConditionals#2");
 
         /*
          * Now we've got here, there's no benefit in having spurious inline assignments.  Where possible,
          * pull them out!
          */
         InlineDeAssigner.extractAssignments(op03SimpleParseNodes);
+        timer.lap("InlineDeAssigner.extractAssignments");
 
         // Introduce java 6 style for (x : array)
         boolean checkLoopTypeClash = false;
         if (options.getOption(OptionsImpl.ARRAY_ITERATOR, classFileVersion)) {
             IterLoopRewriter.rewriteArrayForLoops(op03SimpleParseNodes);
+            timer.lap("IterLoopRewriter.rewriteArrayForLoops");
             checkLoopTypeClash = true;
         }
         // and for (x : iterable)
         if (options.getOption(OptionsImpl.COLLECTION_ITERATOR, classFileVersion)) {
             IterLoopRewriter.rewriteIteratorWhileLoops(op03SimpleParseNodes);
+            timer.lap("IterLoopRewriter.rewriteIteratorWhileLoops");
             checkLoopTypeClash = true;
         }
 
         SynchronizedBlocks.findSynchronizedBlocks(op03SimpleParseNodes);
+        timer.lap("SynchronizedBlocks.findSynchronizedBlocks");
 
         Op03SimpleStatement.removePointlessSwitchDefaults(op03SimpleParseNodes);
+        timer.lap("Op03SimpleStatement.removePointlessSwitchDefaults");
 
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removeUselessNops#3");
 
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new StringBuilderRewriter(options, classFileVersion));
+        timer.lap("StringBuilderRewriter");
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new XorRewriter());
+        timer.lap("XorRewriter");
 
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        timer.lap("Cleaner.removeUnreachableCode#8");
 
         if (options.getOption(OptionsImpl.LABELLED_BLOCKS)) {
             // Before we handle anonymous blocks - see if we can convert any non-else if statements, which
             // Jump to a Goto Out of try, to just be an anonymous break to after that try statement.
             Op03Rewriters.labelAnonymousBlocks(op03SimpleParseNodes, blockIdentifierFactory);
+            timer.lap("Op03Rewriters.labelAnonymousBlocks");
         }
 
         Op03Rewriters.simplifyConditionals(op03SimpleParseNodes, true);
+        timer.lap("Op03Rewriters.simplifyConditionals#2");
         Op03Rewriters.extractExceptionMiddle(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.extractExceptionMiddle");
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.removePointlessJumps#5");
 
 
         /*
@@ -656,6 +825,7 @@ public class CodeAnalyser {
          * (albeit locals which known that they don't have a valid lookup).
          */
         Op03Rewriters.replaceStackVarsWithLocals(op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.replaceStackVarsWithLocals");
 
         /*
          * We might have eliminated temporaries which caused potential type clashes.
@@ -665,9 +835,11 @@ public class CodeAnalyser {
          * Re-scan assignments - see if we can narrow types.
          */
         Op03Rewriters.narrowAssignmentTypes(method, op03SimpleParseNodes);
+        timer.lap("Op03Rewriters.narrowAssignmentTypes");
 
         if (options.getOption(OptionsImpl.SHOW_INFERRABLE, classFileVersion)) {
             Op03Rewriters.rewriteWith(op03SimpleParseNodes, new ExplicitTypeCallRewriter());
+            timer.lap("ExplicitTypeCallRewriter");
         }
         /*
          * It's possible to have false sharing across distinct regimes in the case of loops -
@@ -681,6 +853,7 @@ public class CodeAnalyser {
             if (bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.ITERATED_TYPE_HINTS)) {
                 comments.addComment(DecompilerComment.ITERATED_TYPE_HINTS);
             }
+            timer.lap("LoopLivenessClash.detect");
         }
 
 
@@ -689,31 +862,48 @@ public class CodeAnalyser {
             // Before we handle anonymous blocks - see if we can convert any non-else if statements, which
             // Jump to a Goto Out of try, to just be an anonymous break to after that try statement.
             Op03Rewriters.classifyAnonymousBlockGotos(op03SimpleParseNodes, true);
+            timer.lap("Op03Rewriters.classifyAnonymousBlockGotos#2");
 
             Op03Rewriters.labelAnonymousBlocks(op03SimpleParseNodes, blockIdentifierFactory);
+            timer.lap("Op03Rewriters.labelAnonymousBlocks#2");
         }
 
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new BadNarrowingArgRewriter());
+        timer.lap("BadNarrowingArgRewriter");
         Cleaner.reindexInPlace(op03SimpleParseNodes);
+        timer.lap("Cleaner.reindexInPlace");
 
         Op04StructuredStatement block = Op03SimpleStatement.createInitialStructuredBlock(op03SimpleParseNodes);
+        timer.lap("Op03SimpleStatement.createInitialStructuredBlock");
 
         Op04StructuredStatement.tidyEmptyCatch(block);
+        timer.lap("Op04StructuredStatement.tidyEmptyCatch");
         Op04StructuredStatement.tidyTryCatch(block);
+        timer.lap("Op04StructuredStatement.tidyTryCatch");
         Op04StructuredStatement.convertUnstructuredIf(block);
+        timer.lap("Op04StructuredStatement.convertUnstructuredIf");
         Op04StructuredStatement.inlinePossibles(block);
+        timer.lap("Op04StructuredStatement.inlinePossibles");
         Op04StructuredStatement.removeStructuredGotos(block);
+        timer.lap("Op04StructuredStatement.removeStructuredGotos");
         Op04StructuredStatement.removePointlessBlocks(block);
+        timer.lap("Op04StructuredStatement.removePointlessBlocks");
         Op04StructuredStatement.removePointlessReturn(block);
+        timer.lap("Op04StructuredStatement.removePointlessReturn");
         Op04StructuredStatement.removePointlessControlFlow(block);
+        timer.lap("Op04StructuredStatement.removePointlessControlFlow");
         Op04StructuredStatement.removePrimitiveDeconversion(options, method, block);
+        timer.lap("Op04StructuredStatement.removePrimitiveDeconversion");
         if (options.getOption(OptionsImpl.LABELLED_BLOCKS)) {
             Op04StructuredStatement.insertLabelledBlocks(block);
+            timer.lap("Op04StructuredStatement.insertLabelledBlocks");
         }
         // It seems perverse to do a second pass for removal of pointless blocks - but now everything is in place
         // the logic is much cleaner.
         Op04StructuredStatement.removeUnnecessaryLabelledBreaks(block);
+        timer.lap("Op04StructuredStatement.removeUnnecessaryLabelledBreaks");
         Op04StructuredStatement.flattenNonReferencedBlocks(block);
+        timer.lap("Op04StructuredStatement.flattenNonReferencedBlocks");
 
         /*
          * If we can't fully structure the code, we bow out here.
@@ -722,18 +912,21 @@ public class CodeAnalyser {
         if (!block.isFullyStructured()) {
             comments.addComment(DecompilerComment.UNABLE_TO_STRUCTURE);
         } else {
-            Op04StructuredStatement.tidyTypedBooleans(block);
-            Op04StructuredStatement.prettifyBadLoops(block);
+            Op04StructuredStatement.tidyTypedBooleansAndBadLoops(block);
+            timer.lap("Op04StructuredStatement.tidyTypedBooleansAndBadLoops");
 
             // Replace with a more generic interface, etc.
 
             new SwitchStringRewriter(options, classFileVersion, bytecodeMeta).rewrite(block);
+            timer.lap("SwitchStringRewriter");
             new SwitchEnumRewriter(dcCommonState, classFile, blockIdentifierFactory).rewrite(block);
+            timer.lap("SwitchEnumRewriter");
 
             // Just prior to variable scopes, if we've got any anonymous classes, and we're J10+,
             // then see if we are addressing non-existent content of anonymous objects.
             // If we are, this indicates that var was used.
             Op04StructuredStatement.rewriteExplicitTypeUsages(method, block, anonymousClassUsage, classFile);
+            timer.lap("Op04StructuredStatement.rewriteExplicitTypeUsages");
 
             // Now we've got everything nicely block structured, we can have an easier time
             // We *have* to discover variable scopes BEFORE we rewrite lambdas, because
@@ -745,54 +938,69 @@ public class CodeAnalyser {
             // We therefore need a SEPARATE pass, post lambda, to ensure that local classes are
             // correctly processed.
             Op04StructuredStatement.discoverVariableScopes(method, block, variableFactory);
+            timer.lap("Op04StructuredStatement.discoverVariableScopes");
             if (options.getOption(OptionsImpl.REWRITE_TRY_RESOURCES, classFileVersion)) {
                 Op04StructuredStatement.removeEndResource(method.getClassFile(), block);
+                timer.lap("Op04StructuredStatement.removeEndResource");
             }
 
             if (options.getOption(OptionsImpl.SWITCH_EXPRESSION, classFileVersion)) {
                 Op04StructuredStatement.switchExpression(block, comments, classFileVersion);
+                timer.lap("Op04StructuredStatement.switchExpression");
             }
 
             Op04StructuredStatement.rewriteLambdas(dcCommonState, method, block);
+            timer.lap("Op04StructuredStatement.rewriteLambdas");
             // Now lambdas have been rewritten, reprocess ONLY to insert local class
             // definitions.
             // Note that local class definitions are removed at the point of lambda rewrite.
             Op04StructuredStatement.discoverLocalClassScopes(method, block, variableFactory);
+            timer.lap("Op04StructuredStatement.discoverLocalClassScopes");
                                             
             if (options.getOption(OptionsImpl.REMOVE_BOILERPLATE)) {
                 // Note - we ALSO try to do this in whole pass analysis.
                 if (this.method.isConstructor()) {
                     Op04StructuredStatement.removeConstructorBoilerplate(block);
+                    timer.lap("Op04StructuredStatement.removeConstructorBoilerplate");
                 }
             }
 
             // Some misc translations.
             Op04StructuredStatement.removeUnnecessaryVarargArrays(options, method, block);
+            timer.lap("Op04StructuredStatement.removeUnnecessaryVarargArrays");
 
-            Op04StructuredStatement.removePrimitiveDeconversion(options, method, block);
             // After the final boxing rewrite, go back and check for inconvertible type cast
             // chains.  (BoxingTest37b)
-            Op04StructuredStatement.rewriteBadCastChains(options, method, block);
+            Op04StructuredStatement.removePrimitiveDeconversionAndBadCastChains(options, method, block);
+            timer.lap("Op04StructuredStatement.removePrimitiveDeconversionAndBadCastChains");
             // Or narrowing casts which are no longer needed because boxed assignments allow them.
             Op04StructuredStatement.rewriteNarrowingAssignments(options, method, block);
+            timer.lap("Op04StructuredStatement.rewriteNarrowingAssignments");
 
             // Tidy variable names
             Op04StructuredStatement.tidyVariableNames(method, block, bytecodeMeta, comments, cp.getClassCache());
+            timer.lap("Op04StructuredStatement.tidyVariableNames");
 
             Op04StructuredStatement.miscKeyholeTransforms(variableFactory, block);
+            timer.lap("Op04StructuredStatement.miscKeyholeTransforms");
 
             /*
              * Now finally run some extra checks to spot wierdness.
              */
-            Op04StructuredStatement.applyChecker(new LooseCatchChecker(), block, comments);
-            Op04StructuredStatement.applyChecker(new VoidVariableChecker(), block, comments);
-            Op04StructuredStatement.applyChecker(new IllegalReturnChecker(), block, comments);
+            Op04StructuredStatement.applyCheckers(Arrays.<Op04Checker>asList(
+                    new LooseCatchChecker(),
+                    new VoidVariableChecker(),
+                    new IllegalReturnChecker()
+            ), block, comments);
+            timer.lap("Op04StructuredStatement.applyCheckers");
 
             Op04StructuredStatement.flattenNonReferencedBlocks(block);
+            timer.lap("Op04StructuredStatement.flattenNonReferencedBlocks#2");
             /*
              * And apply any type annotations we can.
              */
             Op04StructuredStatement.applyTypeAnnotations(originalCodeAttribute, block, lutByOffset, comments);
+            timer.lap("Op04StructuredStatement.applyTypeAnnotations");
         }
 
         // Only check for type clashes on first pass.
@@ -800,6 +1008,7 @@ public class CodeAnalyser {
             if (Op04StructuredStatement.checkTypeClashes(block, bytecodeMeta)) {
                 comments.addComment(DecompilerComment.TYPE_CLASHES);
             }
+            timer.lap("Op04StructuredStatement.checkTypeClashes");
         }
 
         return new AnalysisResultSuccessful(comments, block, anonymousClassUsage);
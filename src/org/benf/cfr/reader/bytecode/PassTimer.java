@@ -0,0 +1,79 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.api.AnalysisPassListener;
+
+/*
+ * Reports the time (and optionally allocation) between successive laps to an AnalysisPassListener,
+ * and charges each lap against the method's AnalysisBudget, if it has one.
+ *
+ * When nothing is listening and there's no budget, NONE is used, so lap costs no more than an empty call.
+ */
+class PassTimer {
+    static final PassTimer NONE = new PassTimer();
+
+    private PassTimer() {
+    }
+
+    static PassTimer create(AnalysisPassListener listener, String method, int recoveryPass, boolean allocations, AnalysisBudget budget, int instructions) {
+        PassTimer res = listener == null ? NONE : new Listening(listener, method, recoveryPass, allocations && ThreadAllocation.isEnabled());
+        if (budget == null) return res;
+        return new Budgeted(res, budget, instructions);
+    }
+
+    /*
+     * The pass named has just finished.
+     */
+    void lap(String pass) {
+    }
+
+    private static class Listening extends PassTimer {
+        private final AnalysisPassListener listener;
+        private final String method;
+        private final int recoveryPass;
+        private final boolean allocations;
+        private long lastTime;
+        private long lastAllocated;
+
+        private Listening(AnalysisPassListener listener, String method, int recoveryPass, boolean allocations) {
+            this.listener = listener;
+            this.method = method;
+            this.recoveryPass = recoveryPass;
+            this.allocations = allocations;
+            this.lastAllocated = allocations ? ThreadAllocation.get() : -1;
+            this.lastTime = System.nanoTime();
+        }
+
+        @Override
+        void lap(String pass) {
+            long time = System.nanoTime();
+            long allocated = -1;
+            if (allocations) {
+                long now = ThreadAllocation.get();
+                allocated = now - lastAllocated;
+                lastAllocated = now;
+            }
+            listener.passComplete(method, recoveryPass, pass, time - lastTime, allocated);
+            // Don't charge the listener to the next pass.
+            lastTime = System.nanoTime();
+            if (allocations) lastAllocated = ThreadAllocation.get();
+        }
+    }
+
+    private static class Budgeted extends PassTimer {
+        private final PassTimer delegate;
+        private final AnalysisBudget budget;
+        private final int instructions;
+
+        private Budgeted(PassTimer delegate, AnalysisBudget budget, int instructions) {
+            this.delegate = delegate;
+            this.budget = budget;
+            this.instructions = instructions;
+        }
+
+        @Override
+        void lap(String pass) {
+            delegate.lap(pass);
+            budget.charge(instructions, pass);
+        }
+    }
+}
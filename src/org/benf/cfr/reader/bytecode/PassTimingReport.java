@@ -0,0 +1,140 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.api.AnalysisPassListener;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Aggregates pass timings over a whole run - which passes dominate overall, how much recovery
+ * passes cost, and which methods were slowest.
+ */
+public class PassTimingReport implements AnalysisPassListener {
+    private static final int SLOWEST_METHODS = 10;
+
+    private final Map<String, Stat> byPass = MapFactory.newOrderedMap();
+    private final Map<Integer, Stat> byRecoveryPass = MapFactory.newTreeMap();
+    private final List<MethodTime> slowestMethods = ListFactory.newList();
+    private int methods;
+    private int recoveredMethods;
+    private long methodNanos;
+    private boolean allocations;
+
+    @Override
+    public synchronized void passComplete(String method, int recoveryPass, String pass, long nanos, long allocatedBytes) {
+        Stat stat = byPass.get(pass);
+        if (stat == null) {
+            stat = new Stat();
+            byPass.put(pass, stat);
+        }
+        stat.add(nanos, allocatedBytes);
+        stat = byRecoveryPass.get(recoveryPass);
+        if (stat == null) {
+            stat = new Stat();
+            byRecoveryPass.put(recoveryPass, stat);
+        }
+        stat.add(nanos, allocatedBytes);
+        if (allocatedBytes >= 0) allocations = true;
+    }
+
+    @Override
+    public synchronized void methodComplete(String method, int recoveryPasses, long nanos) {
+        methods++;
+        if (recoveryPasses > 0) recoveredMethods++;
+        methodNanos += nanos;
+        if (slowestMethods.size() == SLOWEST_METHODS) {
+            if (slowestMethods.get(SLOWEST_METHODS - 1).nanos >= nanos) return;
+            slowestMethods.remove(SLOWEST_METHODS - 1);
+        }
+        slowestMethods.add(new MethodTime(method, recoveryPasses, nanos));
+        Collections.sort(slowestMethods);
+    }
+
+    public synchronized String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Analysis pass timings\n");
+        sb.append(methods).append(" methods analysed in ").append(ms(methodNanos)).append("ms, ")
+                .append(recoveredMethods).append(" needed recovery passes.\n");
+
+        long passNanos = 0;
+        for (Stat stat : byPass.values()) {
+            passNanos += stat.nanos;
+        }
+
+        sb.append("\nBy pass:\n");
+        sb.append(String.format("%-55s %8s %10s %9s %6s", "pass", "runs", "total ms", "max ms", "%"));
+        if (allocations) sb.append(String.format(" %10s", "alloc MB"));
+        sb.append('\n');
+        List<Map.Entry<String, Stat>> passes = ListFactory.newList(byPass.entrySet());
+        Collections.sort(passes, new Comparator<Map.Entry<String, Stat>>() {
+            @Override
+            public int compare(Map.Entry<String, Stat> a, Map.Entry<String, Stat> b) {
+                return a.getValue().nanos < b.getValue().nanos ? 1 : (a.getValue().nanos > b.getValue().nanos ? -1 : 0);
+            }
+        });
+        for (Map.Entry<String, Stat> entry : passes) {
+            entry.getValue().appendTo(sb, entry.getKey(), passNanos);
+        }
+
+        sb.append("\nBy recovery pass:\n");
+        for (Map.Entry<Integer, Stat> entry : byRecoveryPass.entrySet()) {
+            entry.getValue().appendTo(sb, entry.getKey() == 0 ? "initial" : ("recovery " + entry.getKey()), passNanos);
+        }
+
+        sb.append("\nSlowest methods:\n");
+        for (MethodTime methodTime : slowestMethods) {
+            sb.append(String.format("%10.1fms  %s", methodTime.nanos / 1e6, methodTime.method));
+            if (methodTime.recoveryPasses > 0) {
+                sb.append(" (").append(methodTime.recoveryPasses).append(" recovery passes)");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static long ms(long nanos) {
+        return nanos / 1000000;
+    }
+
+    private class Stat {
+        private int runs;
+        private long nanos;
+        private long maxNanos;
+        private long allocated;
+
+        void add(long nanos, long allocatedBytes) {
+            this.runs++;
+            this.nanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, nanos);
+            if (allocatedBytes > 0) this.allocated += allocatedBytes;
+        }
+
+        void appendTo(StringBuilder sb, String name, long totalNanos) {
+            sb.append(String.format("%-55s %8d %10.1f %9.1f %6.2f", name, runs, nanos / 1e6, maxNanos / 1e6,
+                    totalNanos == 0 ? 0.0 : (100.0 * nanos) / totalNanos));
+            if (allocations) sb.append(String.format(" %10.1f", allocated / (1024.0 * 1024.0)));
+            sb.append('\n');
+        }
+    }
+
+    private static class MethodTime implements Comparable<MethodTime> {
+        private final String method;
+        private final int recoveryPasses;
+        private final long nanos;
+
+        private MethodTime(String method, int recoveryPasses, long nanos) {
+            this.method = method;
+            this.recoveryPasses = recoveryPasses;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int compareTo(MethodTime other) {
+            return nanos < other.nanos ? 1 : (nanos > other.nanos ? -1 : 0);
+        }
+    }
+}
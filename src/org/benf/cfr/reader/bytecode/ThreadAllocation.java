@@ -0,0 +1,58 @@
+package org.benf.cfr.reader.bytecode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/*
+ * Bytes allocated by the current thread, for PassTimer.
+ *
+ * Per thread allocation is only available on some VMs (com.sun.management.ThreadMXBean), so has to be
+ * found reflectively.  Measuring it is a VM wide setting, so nothing here turns it on behind anyone's
+ * back - whoever sets up a run asking for it calls enable() first.  Until then, nothing is measured.
+ */
+public class ThreadAllocation {
+    private static final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    private static final Class<?> beanClass = find();
+    private static volatile Method getThreadAllocatedBytes;
+
+    private static Class<?> find() {
+        try {
+            Class<?> cls = Class.forName("com.sun.management.ThreadMXBean");
+            if (!cls.isInstance(bean)) return null;
+            Method isSupported = cls.getMethod("isThreadAllocatedMemorySupported");
+            if (!(Boolean) isSupported.invoke(bean)) return null;
+            return cls;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /*
+     * Turn on allocation measurement for the whole VM, if it's supported.  Returns whether it is.
+     */
+    public static synchronized boolean enable() {
+        if (getThreadAllocatedBytes != null) return true;
+        if (beanClass == null) return false;
+        try {
+            Method setEnabled = beanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class);
+            setEnabled.invoke(bean, true);
+            getThreadAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    static boolean isEnabled() {
+        return getThreadAllocatedBytes != null;
+    }
+
+    static long get() {
+        try {
+            return (Long) getThreadAllocatedBytes.invoke(bean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -1688,26 +1688,19 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
             }
         };
 
-        LinkedList<Op02WithProcessedDataAndRefs> toProcess = ListFactory.newLinkedList();
-        toProcess.addAll(statements);
-        while (!toProcess.isEmpty()) {
-            Op02WithProcessedDataAndRefs statement = toProcess.remove();
-            SSAIdentifiers<Slot> ssaIdentifiers = statement.ssaIdentifiers;
-            boolean changed = false;
-            // If this is a catch, we know for CERTAIN that we can't be sharing a lifetime with a previous incarnation
-            // of the variable in the slot.
-            BinaryPredicate<Slot, Slot> test = testSlot;
-            if (statement.hasCatchParent) test = always;
-            for (Op02WithProcessedDataAndRefs source : statement.getSources()) {
-                if (ssaIdentifiers.mergeWith(source.ssaIdentifiers, test)) {
-                    changed = true;
-                }
+        // If this is a catch, we know for CERTAIN that we can't be sharing a lifetime with a previous incarnation
+        // of the variable in the slot.
+        SSADataflow.assign(statements, new UnaryFunction<Op02WithProcessedDataAndRefs, SSAIdentifiers<Slot>>() {
+            @Override
+            public SSAIdentifiers<Slot> invoke(Op02WithProcessedDataAndRefs arg) {
+                return arg.ssaIdentifiers;
             }
-            // If anything's changed, we need to check this statements children.
-            if (changed) {
-                toProcess.addAll(statement.getTargets());
+        }, new UnaryFunction<Op02WithProcessedDataAndRefs, BinaryPredicate<Slot, Slot>>() {
+            @Override
+            public BinaryPredicate<Slot, Slot> invoke(Op02WithProcessedDataAndRefs arg) {
+                return arg.hasCatchParent ? always : testSlot;
             }
-        }
+        }, null);
     }
 
     /*
@@ -2127,8 +2120,10 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
             return infrontOf;
         }
 
-        logger.finer("Adding " + newNode + " ident " + exceptionGroup.getTryBlockIdentifier());
-        logger.finer("Already have " + collides);
+        if (LoggerFactory.DEBUG) {
+            logger.finer("Adding " + newNode + " ident " + exceptionGroup.getTryBlockIdentifier());
+            logger.finer("Already have " + collides);
+        }
 
 
         // If there's already something, we need to figure out which belongs in what order.
@@ -2146,7 +2141,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
         }
 
         Op02WithProcessedDataAndRefs afterThis;
-        logger.finer("Insertion position = " + insertionPos);
+        if (LoggerFactory.DEBUG) logger.finer("Insertion position = " + insertionPos);
 
         if (insertionPos == collides.size()) { // end.
             collides.add(exceptionTempStatement);
@@ -2174,12 +2169,14 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
                 ExceptionTempStatement et = ets.get(idx);
                 if (et.isTry()) {
                     BlockIdentifier tryGroup = et.triggeringGroup.getTryBlockIdentifier();
-                    logger.finer("Removing try group identifier " + tryGroup + " idx " + idx);
+                    if (LoggerFactory.DEBUG) logger.finer("Removing try group identifier " + tryGroup + " idx " + idx);
                     for (int idx2 = 0; idx2 < idx; ++idx2) {
-                        logger.finest("" + ets.get(idx2).getOp());
-                        logger.finest("" + ets.get(idx2).getOp().containedInTheseBlocks + " -->");
+                        if (LoggerFactory.DEBUG) {
+                            logger.finest("" + ets.get(idx2).getOp());
+                            logger.finest("" + ets.get(idx2).getOp().containedInTheseBlocks + " -->");
+                        }
                         ets.get(idx2).getOp().containedInTheseBlocks.remove(tryGroup);
-                        logger.finest("" + ets.get(idx2).getOp().containedInTheseBlocks);
+                        if (LoggerFactory.DEBUG) logger.finest("" + ets.get(idx2).getOp().containedInTheseBlocks);
                     }
                 }
             }
@@ -23,6 +23,7 @@ import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.BinaryProcedure;
+import org.benf.cfr.reader.util.functors.UnaryFunction;
 import org.benf.cfr.reader.util.graph.GraphVisitor;
 import org.benf.cfr.reader.util.graph.GraphVisitorDFS;
 import org.benf.cfr.reader.util.output.Dumpable;
@@ -570,25 +571,12 @@ public class Op03SimpleStatement implements MutableGraph<Op03SimpleStatement>, D
             statement.collectLocallyMutatedVariables(ssaIdentifierFactory);
         }
 
-        Op03SimpleStatement entry = statements.get(0);
-
-        LinkedList<Op03SimpleStatement> toProcess = ListFactory.newLinkedList();
-        toProcess.addAll(statements);
-        while (!toProcess.isEmpty()) {
-            Op03SimpleStatement statement = toProcess.remove();
-            SSAIdentifiers<LValue> ssaIdentifiers = statement.ssaIdentifiers;
-            boolean changed = false;
-            if (statement == entry) {
-                if (ssaIdentifiers.mergeWith(initialIdents)) changed = true;
-            }
-            for (Op03SimpleStatement source : statement.getSources()) {
-                if (ssaIdentifiers.mergeWith(source.ssaIdentifiers)) changed = true;
+        SSADataflow.assign(statements, new UnaryFunction<Op03SimpleStatement, SSAIdentifiers<LValue>>() {
+            @Override
+            public SSAIdentifiers<LValue> invoke(Op03SimpleStatement arg) {
+                return arg.ssaIdentifiers;
             }
-            // If anything's changed, we need to check this statements children.
-            if (changed) {
-                toProcess.addAll(statement.getTargets());
-            }
-        }
+        }, null, initialIdents);
     }
 
     public static Op04StructuredStatement createInitialStructuredBlock(List<Op03SimpleStatement> statements) {
@@ -309,7 +309,7 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
     public void removeLastContinue(BlockIdentifier block) {
         if (structuredStatement instanceof Block) {
             boolean removed = ((Block) structuredStatement).removeLastContinue(block);
-            logger.info("Removing last continue for " + block + " succeeded? " + removed);
+            if (LoggerFactory.DEBUG) logger.info("Removing last continue for " + block + " succeeded? " + removed);
         } else {
             throw new ConfusedCFRException("Trying to remove last continue, but statement isn't block");
         }
@@ -416,7 +416,7 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
             final Stack<BlockIdentifier> blocksCurrentlyIn,
             final Stack<StackedBlock> stackedBlocks,
             final MutableProcessingBlockState mutableProcessingBlockState) {
-        logger.fine("statement is last statement in these blocks " + endOfTheseBlocks);
+        if (LoggerFactory.DEBUG) logger.fine("statement is last statement in these blocks " + endOfTheseBlocks);
 
         while (!endOfTheseBlocks.isEmpty()) {
             if (mutableProcessingBlockState.currentBlockIdentifier == null) {
@@ -481,7 +481,7 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
 
             BlockIdentifier startsThisBlock = getStartingBlocks(blocksCurrentlyIn, container.blockMembership);
             if (startsThisBlock != null) {
-                logger.fine("Starting block " + startsThisBlock);
+                if (LoggerFactory.DEBUG) logger.fine("Starting block " + startsThisBlock);
                 BlockType blockType = startsThisBlock.getBlockType();
                 // A bit confusing.  StartBlock for a while loop is the test.
                 // StartBlock for conditionals is the first element of the conditional.
@@ -752,21 +752,25 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
         new ControlFlowCleaningTransformer().transform(root);
     }
 
-    public static void tidyTypedBooleans(Op04StructuredStatement root) {
-        new TypedBooleanTidier().transform(root);
+    /*
+     * These are all independent, so each gets a go at a statement in the same walk.
+     */
+    public static void tidyTypedBooleansAndBadLoops(Op04StructuredStatement root) {
+        FusedTransformer.postOrder(Arrays.<FusableTransformer>asList(
+                new TypedBooleanTidier(),
+                new BadLoopPrettifier()
+        )).transform(root);
     }
 
     public static void miscKeyholeTransforms(VariableFactory variableFactory, Op04StructuredStatement root) {
-        new NakedNullCaster().transform(root);
-        new LambdaCleaner().transform(root);
-        new TernaryCastCleaner().transform(root);
-        new InvalidBooleanCastCleaner().transform(root);
-        new HexLiteralTidier().transform(root);
-        new InvalidExpressionStatementCleaner(variableFactory).transform(root);
-    }
-
-    public static void prettifyBadLoops(Op04StructuredStatement root) {
-        new BadLoopPrettifier().transform(root);
+        FusedTransformer.postOrder(Arrays.<FusableTransformer>asList(
+                new NakedNullCaster(),
+                new LambdaCleaner(),
+                new TernaryCastCleaner(),
+                new InvalidBooleanCastCleaner(),
+                new HexLiteralTidier(),
+                new InvalidExpressionStatementCleaner(variableFactory)
+        )).transform(root);
     }
 
     public static void removeStructuredGotos(Op04StructuredStatement root) {
@@ -1191,8 +1195,16 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
         root.transform(new ExpressionRewriterTransformer(new PrimitiveBoxingRewriter()), new StructuredScope());
     }
 
-    public static void rewriteBadCastChains(Options options, Method method, Op04StructuredStatement root) {
-        root.transform(new ExpressionRewriterTransformer(new BadCastChainRewriter()), new StructuredScope());
+    /*
+     * removePrimitiveDeconversion, followed by a check for inconvertible cast chains, in one walk.
+     */
+    public static void removePrimitiveDeconversionAndBadCastChains(Options options, Method method, Op04StructuredStatement root) {
+        List<FusableTransformer> transformers = ListFactory.newList();
+        if (options.getOption(OptionsImpl.SUGAR_BOXING)) {
+            transformers.add(new ExpressionRewriterTransformer(new PrimitiveBoxingRewriter()));
+        }
+        transformers.add(new ExpressionRewriterTransformer(new BadCastChainRewriter()));
+        FusedTransformer.preOrder(transformers).transform(root);
     }
 
     public static void rewriteNarrowingAssignments(Options options, Method method, Op04StructuredStatement root) {
@@ -1215,11 +1227,15 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
 
     /*
      * there /should/ never be any loose catch statements.
+     *
+     * All checkers share one walk.  (IllegalReturnChecker will nop out a repeated return, but none of
+     * the others care about returns).
      */
-    public static void applyChecker(Op04Checker checker, Op04StructuredStatement root, DecompilerComments comments) {
-        StructuredScope structuredScope = new StructuredScope();
-        root.transform(checker, structuredScope);
-        checker.commentInto(comments);
+    public static void applyCheckers(List<Op04Checker> checkers, Op04StructuredStatement root, DecompilerComments comments) {
+        FusedTransformer.preOrder(checkers).transform(root);
+        for (Op04Checker checker : checkers) {
+            checker.commentInto(comments);
+        }
     }
 
     public static boolean isTryWithResourceSynthetic(Method m, Op04StructuredStatement root) {
@@ -276,14 +276,10 @@ public class CondenseConditionals {
         if (tgt2.getSources().size() != 1) return false;
         if (tgt1.getTargets().size() != 1) return false;
         if (tgt2.getTargets().size() != 1) return false;
-        Op03SimpleStatement evTgt = tgt1.getTargets().get(0);
-        evTgt = Misc.followNopGoto(evTgt, true, false);
-        Op03SimpleStatement oneSource = tgt1;
-        if (!(evTgt.getSources().contains(oneSource) || evTgt.getSources().contains(oneSource = oneSource.getTargets().get(0)))) {
-            return false;
-        }
-        if (evTgt.getSources().size() < 2) return false; // FIXME.  Shouldnt' clear, below.
-        if (tgt2.getTargets().get(0) != evTgt) return false; // asserted tgt2 is a source of evTgt.
+        /*
+         * Look at the statements before the join - the join may have a great many sources (eg a long chain of
+         * ternaries), and we get asked about every if, every time round.
+         */
         Statement stm1 = tgt1.getStatement();
         Statement stm2 = tgt2.getStatement();
         if (!(stm1 instanceof AssignmentSimple && stm2 instanceof AssignmentSimple)) {
@@ -293,6 +289,14 @@ public class CondenseConditionals {
         AssignmentSimple a2 = (AssignmentSimple)stm2;
         LValue lv = a1.getCreatedLValue();
         if (!lv.equals(a2.getCreatedLValue())) return false;
+        Op03SimpleStatement evTgt = tgt1.getTargets().get(0);
+        evTgt = Misc.followNopGoto(evTgt, true, false);
+        if (tgt2.getTargets().get(0) != evTgt) return false; // asserted tgt2 is a source of evTgt.
+        Op03SimpleStatement oneSource = tgt1;
+        if (!(evTgt.getSources().contains(oneSource) || evTgt.getSources().contains(oneSource = oneSource.getTargets().get(0)))) {
+            return false;
+        }
+        if (evTgt.getSources().size() < 2) return false; // FIXME.  Shouldnt' clear, below.
         ConditionalExpression condition = innerIf.getCondition().getNegated();
         condition = condition.simplify();
         ifStatement.replaceStatement(new AssignmentSimple(lv, new TernaryExpression(condition, a1.getRValue(), a2.getRValue())));
@@ -29,7 +29,6 @@ public class ConditionalConsenser {
      * AND this chain terminates in a back jump.....
      */
     private static boolean appropriateForIfAssignmentCollapse1(Op03SimpleStatement statement) {
-        boolean extraCondSeen = false;
         boolean preCondAssignmentSeen = false;
         while (statement.getSources().size() == 1) {
             Op03SimpleStatement source = statement.getSources().get(0);
@@ -38,18 +37,17 @@ public class ConditionalConsenser {
             if (statement.getIndex().isBackJumpFrom(source)) break;
             Statement contained = source.getStatement();
             if (contained instanceof AbstractAssignment) {
-                preCondAssignmentSeen |= (!extraCondSeen);
+                preCondAssignmentSeen = true;
             } else if (contained instanceof IfStatement) {
-                extraCondSeen = true;
+                // It turns out we generate better code with this, as we want (where possible) to /avoid/ pushing these
+                // assignments.  Nothing further back can change that, so don't walk (possibly a long way) to find out.
+                return false;
             } else {
                 break;
             }
             statement = source;
         }
         if (!preCondAssignmentSeen) return false;
-        // It turns out we generate better code with this, as we want (where possible) to /avoid/ pushing these
-        // assignments.
-        if (extraCondSeen) return false;
         /* If this statement has any backjumping sources then we consider it */
         InstrIndex statementIndex = statement.getIndex();
         for (Op03SimpleStatement source : statement.getSources()) {
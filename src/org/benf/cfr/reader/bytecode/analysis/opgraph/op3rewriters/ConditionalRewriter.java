@@ -60,14 +60,15 @@ public class ConditionalRewriter {
     private static boolean considerAsTrivialIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements) {
         Op03SimpleStatement takenTarget = ifStatement.getTargets().get(1);
         Op03SimpleStatement notTakenTarget = ifStatement.getTargets().get(0);
-        int idxTaken = statements.indexOf(takenTarget);
-        int idxNotTaken = statements.indexOf(notTakenTarget);
-        if (idxTaken != idxNotTaken + 1) return false;
+        // Check the cheap things first - searching the statement list for every forward if adds up.
         if (!(takenTarget.getStatement().getClass() == GotoStatement.class &&
                 notTakenTarget.getStatement().getClass() == GotoStatement.class &&
                 takenTarget.getTargets().get(0) == notTakenTarget.getTargets().get(0))) {
             return false;
         }
+        int idxTaken = statements.indexOf(takenTarget);
+        int idxNotTaken = statements.indexOf(notTakenTarget);
+        if (idxTaken != idxNotTaken + 1) return false;
         notTakenTarget.replaceStatement(new CommentStatement("empty if block"));
         // Replace the not taken target with an 'empty if statement'.
 
@@ -21,6 +21,13 @@ public class IllegalReturnChecker implements Op04Checker {
 
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        transformLocal(in, scope);
+        if (!found) in.transformStructuredChildren(this, scope);
+        return in;
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (found) return in;
         if (in instanceof Block) {
             List<Op04StructuredStatement> stms = ((Block) in).getBlockStatements();
@@ -48,11 +55,14 @@ public class IllegalReturnChecker implements Op04Checker {
                 }
             }
         }
-
-        in.transformStructuredChildren(this, scope);
         return in;
     }
 
+    @Override
+    public boolean isFinished() {
+        return found;
+    }
+
     @Override
     public void commentInto(DecompilerComments comments) {
         if (found) {
@@ -1,8 +1,12 @@
 package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker;
 
+import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers.FusableTransformer;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers.StructuredStatementTransformer;
 import org.benf.cfr.reader.util.DecompilerComments;
 
-public interface Op04Checker extends StructuredStatementTransformer {
+/*
+ * Checkers only ever look at one statement at a time, so can share a walk.
+ */
+public interface Op04Checker extends StructuredStatementTransformer, FusableTransformer {
     void commentInto(DecompilerComments comments);
 }
@@ -16,6 +16,13 @@ public class VoidVariableChecker implements Op04Checker {
 
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        transformLocal(in, scope);
+        if (!found) in.transformStructuredChildren(this, scope);
+        return in;
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (found) return in;
         if (in instanceof StructuredDefinition) {
             InferredJavaType inferredJavaType = ((StructuredDefinition) in).getLvalue().getInferredJavaType();
@@ -24,11 +31,14 @@ public class VoidVariableChecker implements Op04Checker {
                 return in;
             }
         }
-
-        in.transformStructuredChildren(this, scope);
         return in;
     }
 
+    @Override
+    public boolean isFinished() {
+        return found;
+    }
+
     @Override
     public void commentInto(DecompilerComments comments) {
         if (found) {
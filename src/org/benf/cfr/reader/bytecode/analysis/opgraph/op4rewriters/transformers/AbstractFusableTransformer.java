@@ -0,0 +1,13 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+/*
+ * Most fusable transformers have work to do at every statement, so are never finished.
+ *
+ * (Those which already extend AbstractExpressionRewriter have to say so themselves.)
+ */
+public abstract class AbstractFusableTransformer implements StructuredStatementTransformer, FusableTransformer {
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+}
@@ -10,7 +10,7 @@ import org.benf.cfr.reader.bytecode.analysis.structured.statement.*;
 import java.util.List;
 import java.util.Set;
 
-public class BadLoopPrettifier implements StructuredStatementTransformer {
+public class BadLoopPrettifier extends AbstractFusableTransformer {
 
     public void transform(Op04StructuredStatement root) {
         StructuredScope structuredScope = new StructuredScope();
@@ -28,7 +28,11 @@ public class BadLoopPrettifier implements StructuredStatementTransformer {
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
 
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (!(in instanceof StructuredDo)) return in;
 
         StructuredDo structuredDo = (StructuredDo) in;
@@ -0,0 +1,23 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+
+/*
+ * A transformer whose work at a statement only involves that statement (and its expressions) -
+ * never its parent, siblings or children, and never anything a fellow transformer would change
+ * elsewhere in the tree.  Any number of these can therefore share a single walk of the tree (see
+ * FusedTransformer), and still produce exactly what running them one after another would.
+ */
+public interface FusableTransformer {
+    /*
+     * Transform just this statement - the caller walks the children.  Null removes the statement.
+     */
+    StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope);
+
+    /*
+     * If true, there's no point visiting any more statements.  (See AbstractFusableTransformer for
+     * those which always have something to do.)
+     */
+    boolean isFinished();
+}
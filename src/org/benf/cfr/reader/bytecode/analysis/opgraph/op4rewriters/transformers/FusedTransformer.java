@@ -0,0 +1,74 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+
+import java.util.List;
+
+/*
+ * Runs several FusableTransformers in one walk of the tree, rather than one walk each - at each
+ * statement, each transformer gets a go in the order given, so each sees exactly what it would have
+ * if they'd been run one after another.
+ *
+ * The walk is either pre order (statement, then children - as ExpressionRewriterTransformer) or
+ * post order (children, then statement - as most tidiers), and everything fused must expect the
+ * same.  Once every transformer is finished, we stop descending.
+ *
+ * A transformer may remove a statement by returning null - later transformers (and, pre order, the
+ * walk) then don't see it.
+ */
+public class FusedTransformer implements StructuredStatementTransformer {
+    private final FusableTransformer[] transformers;
+    private final boolean preOrder;
+
+    private FusedTransformer(List<? extends FusableTransformer> transformers, boolean preOrder) {
+        this.transformers = transformers.toArray(new FusableTransformer[transformers.size()]);
+        this.preOrder = preOrder;
+    }
+
+    public static FusedTransformer preOrder(List<? extends FusableTransformer> transformers) {
+        return new FusedTransformer(transformers, true);
+    }
+
+    public static FusedTransformer postOrder(List<? extends FusableTransformer> transformers) {
+        return new FusedTransformer(transformers, false);
+    }
+
+    public void transform(Op04StructuredStatement root) {
+        root.transform(this, new StructuredScope());
+    }
+
+    @Override
+    public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        if (preOrder) {
+            in = transformLocal(in, scope);
+            // Removed - so no children left to visit.
+            if (in == null) return null;
+        }
+        if (!isFinished()) in.transformStructuredChildren(this, scope);
+        if (!preOrder) in = transformLocal(in, scope);
+        return in;
+    }
+
+    private StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
+        for (FusableTransformer transformer : transformers) {
+            if (transformer.isFinished()) continue;
+            StructuredStatement out = transformer.transformLocal(in, scope);
+            if (out == null) return null;
+            if (out != in) {
+                // As Op04StructuredStatement.transform would have done, before the next one sees it.
+                out.setContainer(in.getContainer());
+                in = out;
+            }
+        }
+        return in;
+    }
+
+    private boolean isFinished() {
+        for (FusableTransformer transformer : transformers) {
+            if (!transformer.isFinished()) return false;
+        }
+        return true;
+    }
+}
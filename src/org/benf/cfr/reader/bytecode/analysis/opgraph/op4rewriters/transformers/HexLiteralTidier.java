@@ -16,7 +16,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.SSAIdentifiers;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
 
-public class HexLiteralTidier extends AbstractExpressionRewriter implements StructuredStatementTransformer {
+public class HexLiteralTidier extends AbstractExpressionRewriter implements StructuredStatementTransformer, FusableTransformer {
 
     public void transform(Op04StructuredStatement root) {
         StructuredScope structuredScope = new StructuredScope();
@@ -26,10 +26,20 @@ public class HexLiteralTidier extends AbstractExpressionRewriter implements Stru
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         in.rewriteExpressions(this);
         return in;
     }
 
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+
     private static boolean bitOp(ArithOp op) {
         switch (op) {
             case AND:
@@ -9,7 +9,7 @@ import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredAssi
 import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredExpressionStatement;
 import org.benf.cfr.reader.bytecode.analysis.variables.VariableFactory;
 
-public class InvalidExpressionStatementCleaner extends AbstractExpressionRewriter implements StructuredStatementTransformer {
+public class InvalidExpressionStatementCleaner extends AbstractExpressionRewriter implements StructuredStatementTransformer, FusableTransformer {
 
     private VariableFactory variableFactory;
 
@@ -25,6 +25,11 @@ public class InvalidExpressionStatementCleaner extends AbstractExpressionRewrite
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (in instanceof StructuredExpressionStatement) {
             Expression exp = ((StructuredExpressionStatement) in).getExpression();
             if (!exp.isValidStatement()) {
@@ -37,4 +42,9 @@ public class InvalidExpressionStatementCleaner extends AbstractExpressionRewrite
         }
         return in;
     }
+
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
 }
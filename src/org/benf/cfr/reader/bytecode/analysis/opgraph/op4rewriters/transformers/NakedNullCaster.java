@@ -18,7 +18,7 @@ import org.benf.cfr.reader.util.collections.MapFactory;
 
 import java.util.Map;
 
-public class NakedNullCaster implements StructuredStatementTransformer, ExpressionRewriter {
+public class NakedNullCaster extends AbstractFusableTransformer implements ExpressionRewriter {
 
     public void transform(Op04StructuredStatement root) {
         StructuredScope structuredScope = new StructuredScope();
@@ -28,6 +28,11 @@ public class NakedNullCaster implements StructuredStatementTransformer, Expressi
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         in.rewriteExpressions(this);
         return in;
     }
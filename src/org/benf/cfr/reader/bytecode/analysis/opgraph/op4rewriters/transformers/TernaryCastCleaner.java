@@ -14,7 +14,7 @@ import org.benf.cfr.reader.bytecode.analysis.types.RawJavaType;
 import org.benf.cfr.reader.bytecode.analysis.types.StackType;
 import org.benf.cfr.reader.bytecode.analysis.types.discovery.InferredJavaType;
 
-public class TernaryCastCleaner extends AbstractExpressionRewriter implements StructuredStatementTransformer {
+public class TernaryCastCleaner extends AbstractExpressionRewriter implements StructuredStatementTransformer, FusableTransformer {
 
     public void transform(Op04StructuredStatement root) {
         StructuredScope structuredScope = new StructuredScope();
@@ -24,10 +24,20 @@ public class TernaryCastCleaner extends AbstractExpressionRewriter implements St
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         in.rewriteExpressions(this);
         return in;
     }
 
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+
     /*
      * A couple of silly transforms we have to apply to ternaries after the fact.
      */
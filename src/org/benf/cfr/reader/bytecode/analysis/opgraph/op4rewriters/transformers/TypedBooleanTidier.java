@@ -13,7 +13,7 @@ import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
 import org.benf.cfr.reader.bytecode.analysis.types.RawJavaType;
 
-public class TypedBooleanTidier implements StructuredStatementTransformer, ExpressionRewriter {
+public class TypedBooleanTidier extends AbstractFusableTransformer implements ExpressionRewriter {
 
     public void transform(Op04StructuredStatement root) {
         StructuredScope structuredScope = new StructuredScope();
@@ -23,6 +23,11 @@ public class TypedBooleanTidier implements StructuredStatementTransformer, Expre
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         in.rewriteExpressions(this);
         return in;
     }
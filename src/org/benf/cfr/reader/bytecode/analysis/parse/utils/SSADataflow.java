@@ -0,0 +1,380 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.utils;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Graph;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.functors.BinaryPredicate;
+import org.benf.cfr.reader.util.functors.UnaryFunction;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Propagates SSA identifiers around a graph of statements until nothing changes - this is what
+ * repeated SSAIdentifiers.mergeWith calls over a worklist would do, but without building and
+ * re-merging hash maps at every step.
+ *
+ * Keys (slots, lvalues) are numbered, and each node's entry and exit state is a small table from key
+ * number to ident (see KeyState) - holding only the keys actually known there, so a huge method with
+ * a lot of locals costs no more than the maps would.  When we're done, the results are written back
+ * into each node's SSAIdentifiers, in key number order.
+ *
+ * Note that we visit nodes in exactly the order the simple worklist would (all nodes in order,
+ * then the targets of anything that changed, duplicates and all) - when a slot is reused with
+ * different stack types, the result of merging depends on the order (poison is 'equal' to {0}, and
+ * the predicate sees whichever key got there first), and we don't want different code as a result
+ * of doing this faster.  What we can do is skip a queued visit if none of the node's sources have
+ * changed their exit state since it was last visited, as merging them again can't change anything.
+ *
+ * Nodes linked to from the list, but not in it, take part just as they would in the simple worklist -
+ * they're merged from, and processed if they're the target of a change.
+ */
+public class SSADataflow<KEYTYPE, NODE extends Graph<NODE>> {
+    private static final int NONE = 0;
+    private static final int ENTRY = 1;
+    private static final int EXIT = 2;
+
+    // The list we were given, followed by anything else linked to from it.
+    private final List<NODE> nodes;
+    private final int listed;
+    private final List<SSAIdentifiers<KEYTYPE>> identifiers = ListFactory.newList();
+    private final List<BinaryPredicate<KEYTYPE, KEYTYPE>> predicates = ListFactory.newList();
+    private final Map<KEYTYPE, Integer> keyIndex = MapFactory.newMap();
+    private int[][] sources;
+    private int[][] targets;
+    private KeyState[] entry;
+    private KeyState[] exit;
+    // null where nothing's fixed at a node.  Holds what each key is fixed to, rather than an ident.
+    private KeyState[] fixedKeys;
+    // merged into the first node, in addition to its sources (eg parameters).
+    private KeyState initial;
+
+    private SSADataflow(List<NODE> nodes) {
+        this.nodes = ListFactory.newList(nodes);
+        this.listed = nodes.size();
+    }
+
+    /*
+     * nodes.get(0) is the entry point.  predicates may be null (as may the predicate for a node), in
+     * which case nothing fixed at a node is ever merged into its exit state.
+     */
+    public static <KEYTYPE, NODE extends Graph<NODE>> void assign(List<NODE> nodes,
+                                                                  UnaryFunction<NODE, SSAIdentifiers<KEYTYPE>> getIdentifiers,
+                                                                  UnaryFunction<NODE, BinaryPredicate<KEYTYPE, KEYTYPE>> getPredicate,
+                                                                  SSAIdentifiers<KEYTYPE> initialIdents) {
+        if (nodes.isEmpty()) return;
+        SSADataflow<KEYTYPE, NODE> dataflow = new SSADataflow<KEYTYPE, NODE>(nodes);
+        Map<NODE, Integer> position = dataflow.collect(getIdentifiers, getPredicate, initialIdents);
+        dataflow.setup(position, initialIdents);
+        dataflow.solve();
+        dataflow.writeBack();
+    }
+
+    /*
+     * Find every node that can take part, and number the keys they use.
+     */
+    private Map<NODE, Integer> collect(UnaryFunction<NODE, SSAIdentifiers<KEYTYPE>> getIdentifiers,
+                                       UnaryFunction<NODE, BinaryPredicate<KEYTYPE, KEYTYPE>> getPredicate,
+                                       SSAIdentifiers<KEYTYPE> initialIdents) {
+        Map<NODE, Integer> position = MapFactory.newIdentityMap();
+        for (NODE node : nodes) {
+            position.put(node, position.size());
+        }
+        for (int x = 0; x < nodes.size(); ++x) {
+            NODE node = nodes.get(x);
+            link(node.getSources(), position);
+            link(node.getTargets(), position);
+            SSAIdentifiers<KEYTYPE> idents = getIdentifiers.invoke(node);
+            identifiers.add(idents);
+            predicates.add(getPredicate == null ? null : getPredicate.invoke(node));
+            number(idents.getKnownIdentifiersOnEntry());
+            number(idents.getKnownIdentifiersOnExit());
+            number(idents.getFixedHereMap());
+        }
+        if (initialIdents != null) number(initialIdents.getKnownIdentifiersOnExit());
+        return position;
+    }
+
+    private void link(List<NODE> linked, Map<NODE, Integer> position) {
+        for (NODE node : linked) {
+            if (!position.containsKey(node)) {
+                position.put(node, nodes.size());
+                nodes.add(node);
+            }
+        }
+    }
+
+    private void setup(Map<NODE, Integer> position, SSAIdentifiers<KEYTYPE> initialIdents) {
+        int count = nodes.size();
+        sources = new int[count][];
+        targets = new int[count][];
+        entry = new KeyState[count];
+        exit = new KeyState[count];
+        fixedKeys = new KeyState[count];
+        for (int x = 0; x < count; ++x) {
+            NODE node = nodes.get(x);
+            sources[x] = indices(node.getSources(), position);
+            targets[x] = indices(node.getTargets(), position);
+            SSAIdentifiers<KEYTYPE> idents = identifiers.get(x);
+            entry[x] = load(idents.getKnownIdentifiersOnEntry());
+            exit[x] = load(idents.getKnownIdentifiersOnExit());
+            Map<KEYTYPE, KEYTYPE> fixedHere = idents.getFixedHereMap();
+            if (!fixedHere.isEmpty()) {
+                KeyState fixed = new KeyState(fixedHere.size());
+                for (Map.Entry<KEYTYPE, KEYTYPE> fix : fixedHere.entrySet()) {
+                    fixed.put(keyIndex.get(fix.getKey()), fix.getValue(), null);
+                }
+                fixedKeys[x] = fixed;
+            }
+        }
+        if (initialIdents != null) {
+            initial = load(initialIdents.getKnownIdentifiersOnExit());
+        }
+    }
+
+    private void number(Map<KEYTYPE, ?> map) {
+        for (KEYTYPE key : map.keySet()) {
+            if (!keyIndex.containsKey(key)) keyIndex.put(key, keyIndex.size());
+        }
+    }
+
+    private KeyState load(Map<KEYTYPE, SSAIdent> map) {
+        KeyState res = new KeyState(map.size());
+        for (Map.Entry<KEYTYPE, SSAIdent> known : map.entrySet()) {
+            res.put(keyIndex.get(known.getKey()), known.getKey(), known.getValue());
+        }
+        return res;
+    }
+
+    private int[] indices(List<NODE> linked, Map<NODE, Integer> position) {
+        int[] res = new int[linked.size()];
+        for (int x = 0; x < res.length; ++x) {
+            res[x] = position.get(linked.get(x));
+        }
+        return res;
+    }
+
+    private void solve() {
+        int count = nodes.size();
+        /*
+         * A change to a node's exit state is stamped with the time it happened, and a visit with the
+         * time it started, so we can tell if there's anything new to see.
+         */
+        long time = 0;
+        long[] changedAt = new long[count];
+        long[] visitedAt = new long[count];
+        Arrays.fill(visitedAt, -1);
+        IntQueue toProcess = new IntQueue(count);
+        for (int x = 0; x < listed; ++x) {
+            toProcess.add(x);
+        }
+        while (!toProcess.isEmpty()) {
+            int node = toProcess.remove();
+            if (visitedAt[node] >= 0 && !anyChangedSince(node, visitedAt[node], changedAt)) continue;
+            visitedAt[node] = time;
+            int changes = process(node);
+            if (changes == NONE) continue;
+            if ((changes & EXIT) != 0) changedAt[node] = ++time;
+            // If anything's changed, we need to check this statements children.
+            for (int target : targets[node]) {
+                toProcess.add(target);
+            }
+        }
+    }
+
+    private boolean anyChangedSince(int node, long time, long[] changedAt) {
+        for (int source : sources[node]) {
+            if (changedAt[source] > time) return true;
+        }
+        return false;
+    }
+
+    private int process(int node) {
+        BinaryPredicate<KEYTYPE, KEYTYPE> pred = predicates.get(node);
+        int changes = NONE;
+        if (node == 0 && initial != null) {
+            changes |= merge(node, initial, null);
+        }
+        for (int source : sources[node]) {
+            changes |= merge(node, exit[source], pred);
+        }
+        return changes;
+    }
+
+    /*
+     * Keys don't affect each other, so the order we go through other's doesn't matter.  (If a node is its
+     * own source, other is its exit state - but merging that into itself can't add a key, so the table
+     * isn't rebuilt under us.)
+     */
+    @SuppressWarnings("unchecked")
+    private int merge(int node, KeyState other, BinaryPredicate<KEYTYPE, KEYTYPE> pred) {
+        KeyState entryState = entry[node];
+        KeyState exitState = exit[node];
+        KeyState fixed = fixedKeys[node];
+        int changes = NONE;
+        int[] otherSlots = other.slots;
+        for (int s = 0; s < otherSlots.length; ++s) {
+            if (otherSlots[s] == KeyState.EMPTY) continue;
+            int k = otherSlots[s] - 1;
+            Object key = other.keys[s];
+            SSAIdent otherIdent = other.idents[s];
+            if (entryState.registerChange(k, key, otherIdent)) changes |= ENTRY;
+            if (fixed != null) {
+                int fixedSlot = fixed.find(k);
+                if (fixed.slots[fixedSlot] != KeyState.EMPTY) {
+                    if (pred == null || !pred.test((KEYTYPE) key, (KEYTYPE) fixed.keys[fixedSlot])) continue;
+                }
+            }
+            if (exitState.registerChange(k, key, otherIdent)) changes |= EXIT;
+        }
+        return changes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeBack() {
+        for (int x = 0; x < nodes.size(); ++x) {
+            SSAIdentifiers<KEYTYPE> idents = identifiers.get(x);
+            KeyState entryState = entry[x];
+            for (int s : entryState.inKeyOrder()) {
+                idents.setKnownIdentifierOnEntry((KEYTYPE) entryState.keys[s], entryState.idents[s]);
+            }
+            KeyState exitState = exit[x];
+            for (int s : exitState.inKeyOrder()) {
+                idents.setKnownIdentifierOnExit((KEYTYPE) exitState.keys[s], exitState.idents[s]);
+            }
+        }
+    }
+
+    /*
+     * What's known at one point - an open addressed table from key number to ident, along with the key
+     * which first put it there.  (For fixed keys, what the key's fixed to, and no ident.)
+     */
+    private static class KeyState {
+        private static final int EMPTY = 0;
+
+        // Key number + 1, or EMPTY.
+        private int[] slots;
+        private Object[] keys;
+        private SSAIdent[] idents;
+        private int size;
+
+        private KeyState(int expected) {
+            int capacity = 4;
+            while (capacity < expected * 2) capacity <<= 1;
+            slots = new int[capacity];
+            keys = new Object[capacity];
+            idents = new SSAIdent[capacity];
+        }
+
+        /*
+         * Where k is, or the empty slot it would go in.
+         */
+        private int find(int k) {
+            int mask = slots.length - 1;
+            int h = k * 0x9E3779B9;
+            int s = (h ^ h >>> 16) & mask;
+            while (slots[s] != EMPTY && slots[s] != k + 1) {
+                s = (s + 1) & mask;
+            }
+            return s;
+        }
+
+        private void put(int k, Object key, SSAIdent ident) {
+            int s = find(k);
+            if (slots[s] == EMPTY) {
+                if ((size + 1) * 2 > slots.length) {
+                    grow();
+                    s = find(k);
+                }
+                slots[s] = k + 1;
+                ++size;
+            }
+            keys[s] = key;
+            idents[s] = ident;
+        }
+
+        private boolean registerChange(int k, Object key, SSAIdent otherIdent) {
+            int s = find(k);
+            if (slots[s] == EMPTY) {
+                put(k, key, otherIdent);
+                return true;
+            }
+            SSAIdent oldIdent = idents[s];
+            SSAIdent newIdent = SSAIdentifiers.merge(oldIdent, otherIdent);
+            if (newIdent.equals(oldIdent)) return false;
+            idents[s] = newIdent;
+            return true;
+        }
+
+        private void grow() {
+            int[] oldSlots = slots;
+            Object[] oldKeys = keys;
+            SSAIdent[] oldIdents = idents;
+            slots = new int[oldSlots.length * 2];
+            keys = new Object[slots.length];
+            idents = new SSAIdent[slots.length];
+            for (int s = 0; s < oldSlots.length; ++s) {
+                if (oldSlots[s] == EMPTY) continue;
+                int to = find(oldSlots[s] - 1);
+                slots[to] = oldSlots[s];
+                keys[to] = oldKeys[s];
+                idents[to] = oldIdents[s];
+            }
+        }
+
+        /*
+         * Occupied slots, by key number.
+         */
+        private int[] inKeyOrder() {
+            long[] order = new long[size];
+            int n = 0;
+            for (int s = 0; s < slots.length; ++s) {
+                if (slots[s] != EMPTY) order[n++] = ((long) slots[s] << 32) | s;
+            }
+            Arrays.sort(order);
+            int[] res = new int[size];
+            for (int x = 0; x < size; ++x) {
+                res[x] = (int) order[x];
+            }
+            return res;
+        }
+    }
+
+    /*
+     * FIFO of node indices - there can be a lot of (mostly redundant) entries, so avoid boxing them.
+     */
+    private static class IntQueue {
+        private int[] content;
+        private int head;
+        private int size;
+
+        private IntQueue(int capacity) {
+            content = new int[Math.max(capacity, 16)];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void add(int value) {
+            if (size == content.length) {
+                int[] grown = new int[content.length * 2];
+                int first = content.length - head;
+                System.arraycopy(content, head, grown, 0, first);
+                System.arraycopy(content, 0, grown, first, head);
+                content = grown;
+                head = 0;
+            }
+            content[(head + size) % content.length] = value;
+            ++size;
+        }
+
+        private int remove() {
+            int value = content[head];
+            head = (head + 1) % content.length;
+            --size;
+            return value;
+        }
+    }
+}
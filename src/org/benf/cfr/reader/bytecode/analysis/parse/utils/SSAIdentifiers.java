@@ -56,15 +56,7 @@ public class SSAIdentifiers<KEYTYPE> {
         } else {
             // Merge
             SSAIdent oldIdent = knownIdentifiers.get(lValue);
-            Object k1 = oldIdent.getComparisonType();
-            Object k2 = otherIdent.getComparisonType();
-            SSAIdent newIdent;
-            if (k1 == k2) {
-                newIdent = oldIdent.mergeWith(otherIdent);
-            } else {
-                newIdent = SSAIdent.poison;
-            }
-
+            SSAIdent newIdent = merge(oldIdent, otherIdent);
             if (!newIdent.equals(oldIdent)) {
                 knownIdentifiers.put(lValue, newIdent);
                 return true;
@@ -73,6 +65,15 @@ public class SSAIdentifiers<KEYTYPE> {
         return false;
     }
 
+    static SSAIdent merge(SSAIdent oldIdent, SSAIdent otherIdent) {
+        Object k1 = oldIdent.getComparisonType();
+        Object k2 = otherIdent.getComparisonType();
+        if (k1 == k2) {
+            return oldIdent.mergeWith(otherIdent);
+        }
+        return SSAIdent.poison;
+    }
+
     public void consumeExit(SSAIdentifiers<KEYTYPE> other) {
         consume(other.knownIdentifiersOnExit);
     }
@@ -122,6 +123,10 @@ public class SSAIdentifiers<KEYTYPE> {
         return fixedHere.keySet();
     }
 
+    Map<KEYTYPE, KEYTYPE> getFixedHereMap() {
+        return fixedHere;
+    }
+
     /*
      * For an identifier to be a valid replacement, its' SSA identifiers need to match those of the
      * target at point of entry.
@@ -202,6 +207,10 @@ public class SSAIdentifiers<KEYTYPE> {
         return knownIdentifiersOnExit;
     }
 
+    Map<KEYTYPE, SSAIdent> getKnownIdentifiersOnEntry() {
+        return knownIdentifiersOnEntry;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
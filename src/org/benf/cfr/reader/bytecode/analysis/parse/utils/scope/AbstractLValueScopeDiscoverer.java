@@ -143,10 +143,15 @@ public abstract class AbstractLValueScopeDiscoverer implements LValueScopeDiscov
             return lValue;
         }
 
+        /*
+         * The order these come out of a hash map in is the order declarations are hoisted in.  Primitive
+         * (and so primitive array) types hash by identity, which changes with whatever else the VM has
+         * hashed first - so use the name instead, and get the same declarations every time.
+         */
         @Override
         public int hashCode() {
             int result = lValue.hashCode();
-            result = 31 * result + type.hashCode();
+            result = 31 * result + type.getRawName().hashCode();
             return result;
         }
     }
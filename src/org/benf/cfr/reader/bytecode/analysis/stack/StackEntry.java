@@ -12,7 +12,17 @@ import java.util.Set;
 
 public class StackEntry {
 
-    private static long sid = 0;
+    /*
+     * Ids feed hashCode, and so iteration order of anything keyed on stack labels.  They only need
+     * to be unique within a single analysis, so are kept per thread - that way concurrent analyses
+     * can't perturb each other's output.
+     */
+    private static final ThreadLocal<long[]> sid = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
 
     private final long id0;
     private final Set<Long> ids = SetFactory.newSet();
@@ -23,12 +33,19 @@ public class StackEntry {
     private final InferredJavaType inferredJavaType = new InferredJavaType();
 
     StackEntry(StackType stackType) {
-        id0 = sid++;
+        id0 = sid.get()[0]++;
         ids.add(id0);
         this.lValue = new StackSSALabel(id0, this);
         this.stackType = stackType;
     }
 
+    /*
+     * Only safe to call between analyses.
+     */
+    public static void resetIds() {
+        sid.get()[0] = 0;
+    }
+
     public void incrementUsage() {
         ++usageCount;
     }
@@ -4,10 +4,23 @@ import org.benf.cfr.reader.util.output.Dumper;
 
 public class StructuredFakeDecompFailure extends StructuredComment {
     private Exception e;
+    private final boolean showStackTrace;
 
     public StructuredFakeDecompFailure(Exception e) {
+        this(e, true);
+    }
+
+    private StructuredFakeDecompFailure(Exception e, boolean showStackTrace) {
         super("");
         this.e = e;
+        this.showStackTrace = showStackTrace;
+    }
+
+    /*
+     * For failures which aren't bugs - just say what happened.
+     */
+    public static StructuredFakeDecompFailure withoutStackTrace(Exception e) {
+        return new StructuredFakeDecompFailure(e, false);
     }
 
     @Override
@@ -15,10 +28,14 @@ public class StructuredFakeDecompFailure extends StructuredComment {
         dumper.print("{");
         dumper.indent(1);
         dumper.newln();
-        dumper.print("// This method has failed to decompile.  When submitting a bug report, please provide this stack trace, and (if you hold appropriate legal rights) the relevant class file.").newln();
-        dumper.print("// ").print(e.toString()).newln();
-        for (StackTraceElement ste : e.getStackTrace()) {
-            dumper.print("// ").print(ste.toString()).newln();
+        if (showStackTrace) {
+            dumper.print("// This method has failed to decompile.  When submitting a bug report, please provide this stack trace, and (if you hold appropriate legal rights) the relevant class file.").newln();
+            dumper.print("// ").print(e.toString()).newln();
+            for (StackTraceElement ste : e.getStackTrace()) {
+                dumper.print("// ").print(ste.toString()).newln();
+            }
+        } else {
+            dumper.print("// ").print(e.getMessage()).newln();
         }
         dumper.print("throw new IllegalStateException(\"Decompilation failed\")").endCodeln();
         dumper.indent(-1);
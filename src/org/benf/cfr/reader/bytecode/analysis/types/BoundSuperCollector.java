@@ -11,6 +11,7 @@ public class BoundSuperCollector {
     private final ClassFile classFile;
     private final Map<JavaRefTypeInstance, JavaGenericRefTypeInstance> boundSupers;
     private final Map<JavaRefTypeInstance, BindingSuperContainer.Route> boundSuperRoute;
+    private boolean truncated;
 
     public BoundSuperCollector(ClassFile classFile) {
         this.classFile = classFile;
@@ -33,4 +34,28 @@ public class BoundSuperCollector {
         JavaGenericRefTypeInstance prev = boundSupers.put(boundBase, null);
         boundSuperRoute.put(boundBase, route);
     }
+
+    /*
+     * Add everything in supers, which was collected as if reached by extension - so anything reached
+     * by extension was really reached by route.
+     */
+    public void collectAll(BindingSuperContainer supers, BindingSuperContainer.Route route) {
+        Map<JavaRefTypeInstance, BindingSuperContainer.Route> routes = supers.getBoundSuperRoute();
+        for (Map.Entry<JavaRefTypeInstance, JavaGenericRefTypeInstance> entry : supers.getBoundSuperClasses().entrySet()) {
+            JavaRefTypeInstance key = entry.getKey();
+            boundSupers.put(key, entry.getValue());
+            boundSuperRoute.put(key, routes.get(key) == BindingSuperContainer.Route.INTERFACE ? BindingSuperContainer.Route.INTERFACE : route);
+        }
+    }
+
+    /*
+     * We stopped short somewhere, as we'd already been there.
+     */
+    public void noteTruncated() {
+        truncated = true;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
 }
@@ -16,6 +16,7 @@ import org.benf.cfr.reader.entities.innerclass.InnerClassAttributeInfo;
 import org.benf.cfr.reader.entityfactories.AttributeFactory;
 import org.benf.cfr.reader.entityfactories.ContiguousEntityFactory;
 import org.benf.cfr.reader.relationship.MemberNameResolver;
+import org.benf.cfr.reader.state.BoundSuperWalks;
 import org.benf.cfr.reader.state.DCCommonState;
 import org.benf.cfr.reader.state.InnerClassTypeUsageInformation;
 import org.benf.cfr.reader.state.TypeUsageCollector;
@@ -54,7 +55,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     private Map<String, Map<JavaTypeInstance, ClassFileField>> fieldsByName; // Lazily populated if interrogated.
 
     private final List<Method> methods;
-    private Map<String, List<Method>> methodsByName; // Lazily populated if interrogated.
+    private volatile Map<String, List<Method>> methodsByName; // Lazily populated if interrogated.
     private final boolean isInnerClass;
     private final Map<JavaTypeInstance, Pair<InnerClassAttributeInfo, ClassFile>> innerClassesByTypeInfo; // populated if analysed.
 
@@ -88,6 +89,14 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
      * Be sure to call loadInnerClasses directly after.
      */
     public ClassFile(final ByteData data, final String usePath, final DCCommonState dcCommonState) {
+        this(data, usePath, dcCommonState, false);
+    }
+
+    /*
+     * lazyCode - this is a library class, so we only need its shape; don't read method bodies
+     * unless something does ask for them.
+     */
+    public ClassFile(final ByteData data, final String usePath, final DCCommonState dcCommonState, final boolean lazyCode) {
         this.usePath = usePath;
         Options options = dcCommonState.getOptions();
 
@@ -149,7 +158,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
                 new UnaryFunction<ByteData, Method>() {
                     @Override
                     public Method invoke(ByteData arg) {
-                        return new Method(arg, ClassFile.this, constantPool, dcCommonState, cfv);
+                        return new Method(arg, ClassFile.this, constantPool, dcCommonState, cfv, lazyCode);
                     }
                 });
 //        tmpMethods = MethodOrdering.sort(tmpMethods);
@@ -381,6 +390,17 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
         collector.collectFrom(getAttributeByName(AttributeRuntimeInvisibleAnnotations.ATTRIBUTE_NAME));
     }
 
+    /*
+     * Only populated once inner classes have been loaded.
+     */
+    public List<ClassFile> getInnerClassFiles() {
+        List<ClassFile> res = ListFactory.newList();
+        for (Pair<InnerClassAttributeInfo, ClassFile> pair : innerClassesByTypeInfo.values()) {
+            res.add(pair.getSecond());
+        }
+        return res;
+    }
+
     private void getAllClassTypes(List<JavaTypeInstance> tgt) {
         tgt.add(getClassType());
         for (Pair<InnerClassAttributeInfo, ClassFile> pair : innerClassesByTypeInfo.values()) {
@@ -502,17 +522,26 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     }
 
     public void removePointlessMethod(Method method) {
-        methodsByName.remove(method.getName());
         methods.remove(method);
+        /*
+         * Only this method goes - any overloads sharing its name are still there to be found.
+         */
+        Map<String, List<Method>> index = methodsByName;
+        if (index == null) return;
+        List<Method> named = index.get(method.getName());
+        if (named == null) return;
+        named.remove(method);
+        if (named.isEmpty()) index.remove(method.getName());
     }
 
+    /*
+     * Resolving a call walks the class hierarchy asking each class for methods of a given name, so
+     * use the name index rather than filtering every method of every class we pass through.
+     */
     private List<Method> getMethodsWithMatchingName(final MethodPrototype prototype) {
-        return Functional.filter(methods, new Predicate<Method>() {
-            @Override
-            public boolean test(Method in) {
-                return in.getName().equals(prototype.getName());
-            }
-        });
+        List<Method> named = getMethodsByNameOrNull(prototype.getName());
+        if (named == null) return ListFactory.newList();
+        return ListFactory.newList(named);
     }
 
     public OverloadMethodSet getOverloadMethodSet(final MethodPrototype prototype) {
@@ -614,18 +643,21 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     }
 
     public List<Method> getMethodsByNameOrNull(String name) {
-        if (methodsByName == null) {
-            methodsByName = MapFactory.newMap();
+        Map<String, List<Method>> index = methodsByName;
+        if (index == null) {
+            // Library classes are shared between threads, so only publish the index once it's complete.
+            index = MapFactory.newMap();
             for (Method method : methods) {
-                List<Method> list = methodsByName.get(method.getName());
+                List<Method> list = index.get(method.getName());
                 if (list == null) {
                     list = ListFactory.newList();
-                    methodsByName.put(method.getName(), list);
+                    index.put(method.getName(), list);
                 }
                 list.add(method);
             }
+            methodsByName = index;
         }
-        return methodsByName.get(name);
+        return index.get(name);
     }
 
     public List<Method> getMethodByName(String name) throws NoSuchMethodException {
@@ -1058,15 +1090,16 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
 
         JavaTypeInstance base = classSignature.getSuperClass();
         if (base == null) return new BindingSuperContainer(this, new HashMap<JavaRefTypeInstance, JavaGenericRefTypeInstance>(), new HashMap<JavaRefTypeInstance, BindingSuperContainer.Route>());
-        getBoundSuperClasses2(base, genericTypeBinder, boundSuperCollector, BindingSuperContainer.Route.EXTENSION, SetFactory.<JavaTypeInstance>newSet());
+        BoundSuperWalks walks = getConstantPool().getDCCommonState().getBoundSuperWalks();
+        getBoundSuperClasses2(base, genericTypeBinder, boundSuperCollector, BindingSuperContainer.Route.EXTENSION, SetFactory.<JavaTypeInstance>newSet(), walks);
         for (JavaTypeInstance interfaceBase : classSignature.getInterfaces()) {
-            getBoundSuperClasses2(interfaceBase, genericTypeBinder, boundSuperCollector, BindingSuperContainer.Route.INTERFACE, SetFactory.<JavaTypeInstance>newSet());
+            getBoundSuperClasses2(interfaceBase, genericTypeBinder, boundSuperCollector, BindingSuperContainer.Route.INTERFACE, SetFactory.<JavaTypeInstance>newSet(), walks);
         }
 
         return boundSuperCollector.getBoundSupers();
     }
 
-    private void getBoundSuperClasses(JavaTypeInstance boundGeneric, BoundSuperCollector boundSuperCollector, BindingSuperContainer.Route route, Set<JavaTypeInstance> seen) {
+    private void getBoundSuperClasses(JavaTypeInstance boundGeneric, BoundSuperCollector boundSuperCollector, BindingSuperContainer.Route route, Set<JavaTypeInstance> seen, BoundSuperWalks walks) {
         // TODO: This seems deeply over complicated ;)
         // Perhaps rather than matching in terms of types, we could match in terms of the signature?
         JavaTypeInstance thisType = getClassSignature().getThisGeneralTypeClass(getClassType(), getConstantPool());
@@ -1103,9 +1136,9 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
          */
         JavaTypeInstance base = classSignature.getSuperClass();
         if (base == null) return;
-        getBoundSuperClasses2(base, genericTypeBinder, boundSuperCollector, route, SetFactory.newSet(seen));
+        getBoundSuperClasses2(base, genericTypeBinder, boundSuperCollector, route, SetFactory.newSet(seen), walks);
         for (JavaTypeInstance interfaceBase : classSignature.getInterfaces()) {
-            getBoundSuperClasses2(interfaceBase, genericTypeBinder, boundSuperCollector, BindingSuperContainer.Route.INTERFACE, SetFactory.newSet(seen));
+            getBoundSuperClasses2(interfaceBase, genericTypeBinder, boundSuperCollector, BindingSuperContainer.Route.INTERFACE, SetFactory.newSet(seen), walks);
         }
     }
 
@@ -1120,15 +1153,18 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     }
 
     private void getBoundSuperClasses2(JavaTypeInstance base, GenericTypeBinder genericTypeBinder, BoundSuperCollector boundSuperCollector, BindingSuperContainer.Route route,
-                                       Set<JavaTypeInstance> seen) {
-        if (seen.contains(base)) return;
+                                       Set<JavaTypeInstance> seen, BoundSuperWalks walks) {
+        if (seen.contains(base)) {
+            boundSuperCollector.noteTruncated();
+            return;
+        }
         seen.add(base);
 
         if (base instanceof JavaRefTypeInstance) {
             // No bindings to do, can't go any further, mark relationship and move on.
             boundSuperCollector.collect((JavaRefTypeInstance) base, route);
             ClassFile classFile = ((JavaRefTypeInstance) base).getClassFile();
-            if (classFile != null) classFile.getBoundSuperClasses(base, boundSuperCollector, route, seen);
+            if (classFile != null) classFile.collectBoundSuperClasses(base, boundSuperCollector, route, seen, walks);
             return;
         }
 
@@ -1153,7 +1189,46 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
         if (classFile == null) {
             return;
         }
-        classFile.getBoundSuperClasses(boundBase, boundSuperCollector, route, seen);
+        classFile.collectBoundSuperClasses(boundBase, boundSuperCollector, route, seen, walks);
+    }
+
+    /*
+     * As getBoundSuperClasses, but if boundGeneric has no type variables in it (whose meaning depends
+     * on which class they came from), reuse an earlier walk from it.  walks belongs to the state which
+     * loaded the class we started from, as that's where the types we're walking come from.
+     *
+     * A walk is recorded as if we'd got here by extension, and replayed with the route we actually
+     * took.  A walk which stopped short anywhere, because a type was in seen already, isn't remembered -
+     * what's in seen depends on how we got here.
+     */
+    private void collectBoundSuperClasses(JavaTypeInstance boundGeneric, BoundSuperCollector boundSuperCollector, BindingSuperContainer.Route route, Set<JavaTypeInstance> seen, BoundSuperWalks walks) {
+        if (!isFullyBound(boundGeneric)) {
+            getBoundSuperClasses(boundGeneric, boundSuperCollector, route, seen, walks);
+            return;
+        }
+        BindingSuperContainer walked = walks.get(boundGeneric);
+        if (walked == null) {
+            BoundSuperCollector recorder = new BoundSuperCollector(this);
+            getBoundSuperClasses(boundGeneric, recorder, BindingSuperContainer.Route.EXTENSION, seen, walks);
+            walked = recorder.getBoundSupers();
+            if (recorder.isTruncated()) {
+                boundSuperCollector.noteTruncated();
+            } else {
+                walks.put(boundGeneric, walked);
+            }
+        }
+        boundSuperCollector.collectAll(walked, route);
+    }
+
+    private static boolean isFullyBound(JavaTypeInstance type) {
+        if (type instanceof JavaRefTypeInstance || type instanceof RawJavaType) return true;
+        if (type instanceof JavaArrayTypeInstance) return isFullyBound(type.getArrayStrippedType());
+        if (type instanceof JavaWildcardTypeInstance) return isFullyBound(((JavaWildcardTypeInstance) type).getUnderlyingType());
+        if (!(type instanceof JavaGenericRefTypeInstance)) return false;
+        for (JavaTypeInstance bound : ((JavaGenericRefTypeInstance) type).getGenericTypes()) {
+            if (!isFullyBound(bound)) return false;
+        }
+        return true;
     }
 
     private List<ConstructorInvokationAnonymousInner> anonymousUsages = ListFactory.newList();
@@ -2,6 +2,7 @@ package org.benf.cfr.reader.entities;
 
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
 import org.benf.cfr.reader.bytecode.analysis.variables.Ident;
+import org.benf.cfr.reader.bytecode.analysis.variables.NamedVariable;
 import org.benf.cfr.reader.bytecode.analysis.variables.VariableNamer;
 import org.benf.cfr.reader.bytecode.analysis.variables.VariableNamerFactory;
 import org.benf.cfr.reader.bytecode.analysis.types.*;
@@ -90,6 +91,14 @@ public class Method implements KnowsRawSize, TypeUsageCollectable {
     private transient Set<JavaTypeInstance> thrownTypes = null;
 
     public Method(ByteData raw, ClassFile classFile, final ConstantPool cp, final DCCommonState dcCommonState, final ClassFileVersion classFileVersion) {
+        this(raw, classFile, cp, dcCommonState, classFileVersion, false);
+    }
+
+    /*
+     * lazyCode - we're (almost certainly) never going to decompile this, so don't read any more of
+     * the code than we have to until someone asks for it.
+     */
+    public Method(ByteData raw, ClassFile classFile, final ConstantPool cp, final DCCommonState dcCommonState, final ClassFileVersion classFileVersion, boolean lazyCode) {
         Options options = dcCommonState.getOptions();
 
         this.cp = cp;
@@ -104,7 +113,7 @@ public class Method implements KnowsRawSize, TypeUsageCollectable {
         ArrayList<Attribute> tmpAttributes = new ArrayList<Attribute>();
         tmpAttributes.ensureCapacity(numAttributes);
         long attributesLength = ContiguousEntityFactory.build(raw.getOffsetData(OFFSET_OF_ATTRIBUTES), numAttributes, tmpAttributes,
-                AttributeFactory.getBuilder(cp, classFileVersion));
+                AttributeFactory.getBuilder(cp, classFileVersion, lazyCode));
 
         this.attributes = ContiguousEntityFactory.addToMap(new HashMap<String, Attribute>(), tmpAttributes);
         AccessFlagMethod.applyAttributes(attributes, accessFlags);
@@ -130,8 +139,14 @@ public class Method implements KnowsRawSize, TypeUsageCollectable {
             this.codeAttribute = null;
         } else {
             this.codeAttribute = (AttributeCode) codeAttribute;
-            AttributeLocalVariableTable variableTable = options.getOption(OptionsImpl.USE_NAME_TABLE) ? this.codeAttribute.getLocalVariableTable() : null;
-            this.variableNamer = VariableNamerFactory.getNamer(variableTable, cp);
+            if (!options.getOption(OptionsImpl.USE_NAME_TABLE)) {
+                this.variableNamer = VariableNamerFactory.getNamer(null, cp);
+            } else if (lazyCode) {
+                // Don't read the local variable table (which would read the rest of the code) just yet.
+                this.variableNamer = new LazyVariableNamer(this.codeAttribute, cp);
+            } else {
+                this.variableNamer = VariableNamerFactory.getNamer(this.codeAttribute.getLocalVariableTable(), cp);
+            }
             // This rigamarole is neccessary because we don't provide the factory for the code attribute enough information
             // to get the Method (this).
             this.codeAttribute.setMethod(this);
@@ -225,6 +240,13 @@ public class Method implements KnowsRawSize, TypeUsageCollectable {
         return methodPrototype.getName();
     }
 
+    /*
+     * Name and descriptor identify a method within its class.
+     */
+    public String getDescriptor() {
+        return cp.getUTF8Entry(descriptorIndex).getValue();
+    }
+
     /* This is a bit ugly - otherwise though we need to tie a variable namer to this earlier.
      * We can't always use the signature... in an enum, for example, it lies!
      *
@@ -495,6 +517,47 @@ public class Method implements KnowsRawSize, TypeUsageCollectable {
         }
     }
 
+    /*
+     * Builds the real namer the first time anyone wants a name.
+     */
+    private static class LazyVariableNamer implements VariableNamer {
+        private final AttributeCode codeAttribute;
+        private final ConstantPool cp;
+        private VariableNamer delegate;
+
+        private LazyVariableNamer(AttributeCode codeAttribute, ConstantPool cp) {
+            this.codeAttribute = codeAttribute;
+            this.cp = cp;
+        }
+
+        private synchronized VariableNamer getDelegate() {
+            if (delegate == null) {
+                delegate = VariableNamerFactory.getNamer(codeAttribute.getLocalVariableTable(), cp);
+            }
+            return delegate;
+        }
+
+        @Override
+        public NamedVariable getName(int originalRawOffset, Ident ident, long stackPosition) {
+            return getDelegate().getName(originalRawOffset, ident, stackPosition);
+        }
+
+        @Override
+        public List<NamedVariable> getNamedVariables() {
+            return getDelegate().getNamedVariables();
+        }
+
+        @Override
+        public void mutatingRenameUnClash(NamedVariable toRename) {
+            getDelegate().mutatingRenameUnClash(toRename);
+        }
+
+        @Override
+        public void forceName(Ident ident, long stackPosition, String name) {
+            getDelegate().forceName(ident, stackPosition, name);
+        }
+    }
+
     @Override
     public String toString() {
         return getName() + ": " + methodPrototype;
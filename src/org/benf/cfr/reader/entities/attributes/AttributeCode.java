@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.entities.attributes;
 
+import org.benf.cfr.reader.bytecode.AnalysisOutcome;
 import org.benf.cfr.reader.bytecode.CodeAnalyser;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
 import org.benf.cfr.reader.entities.constantpool.ConstantPool;
@@ -28,14 +29,26 @@ public class AttributeCode extends Attribute {
     private final int maxStack;
     private final int maxLocals;
     private final int codeLength;
-    private final List<ExceptionTableEntry> exceptionTableEntries;
-    private final Map<String, Attribute> attributes;
     private final ConstantPool cp;
     private final ByteData rawData;
+    // Until the tables are read, everything after the bytecode.
+    private ByteData rawTables;
+    private ClassFileVersion classFileVersion;
+    private List<ExceptionTableEntry> exceptionTableEntries;
+    private Map<String, Attribute> attributes;
 
     private final CodeAnalyser codeAnalyser;
 
     public AttributeCode(ByteData raw, final ConstantPool cp, ClassFileVersion classFileVersion) {
+        this(raw, cp, classFileVersion, false);
+    }
+
+    /*
+     * If lazy, we only read the header now - the exception table and our own attributes (which for
+     * a big method are most of it) are read the first time anyone asks for them.  For a class that's
+     * only there to resolve types against, that's never.
+     */
+    public AttributeCode(ByteData raw, final ConstantPool cp, ClassFileVersion classFileVersion, boolean lazy) {
         this.cp = cp;
         this.length = raw.getS4At(OFFSET_OF_ATTRIBUTE_LENGTH);
 
@@ -64,7 +77,18 @@ public class AttributeCode extends Attribute {
         this.maxLocals = maxLocals;
         this.codeLength = codeLength;
 
-        final long OFFSET_OF_EXCEPTION_TABLE_LENGTH = OFFSET_OF_CODE + codeLength;
+        this.rawTables = raw.getOffsetData(OFFSET_OF_CODE + codeLength);
+        this.classFileVersion = classFileVersion;
+        if (!lazy) readTables();
+
+        this.rawData = raw.getOffsetData(OFFSET_OF_CODE);
+        this.codeAnalyser = new CodeAnalyser(this);
+    }
+
+    private synchronized void readTables() {
+        if (rawTables == null) return;
+        ByteData raw = rawTables;
+        final long OFFSET_OF_EXCEPTION_TABLE_LENGTH = 0;
         final long OFFSET_OF_EXCEPTION_TABLE = OFFSET_OF_EXCEPTION_TABLE_LENGTH + 2;
 
         ArrayList<ExceptionTableEntry> etis = new ArrayList<ExceptionTableEntry>();
@@ -73,7 +97,6 @@ public class AttributeCode extends Attribute {
         final long numBytesExceptionInfo =
                 ContiguousEntityFactory.buildSized(raw.getOffsetData(OFFSET_OF_EXCEPTION_TABLE), numExceptions, 8, etis,
                         ExceptionTableEntry.getBuilder());
-        this.exceptionTableEntries = etis;
 
         final long OFFSET_OF_ATTRIBUTES_COUNT = OFFSET_OF_EXCEPTION_TABLE + numBytesExceptionInfo;
         final long OFFSET_OF_ATTRIBUTES = OFFSET_OF_ATTRIBUTES_COUNT + 2;
@@ -82,10 +105,15 @@ public class AttributeCode extends Attribute {
         tmpAttributes.ensureCapacity(numAttributes);
         ContiguousEntityFactory.build(raw.getOffsetData(OFFSET_OF_ATTRIBUTES), numAttributes, tmpAttributes,
                 AttributeFactory.getBuilder(cp, classFileVersion));
+        this.exceptionTableEntries = etis;
         this.attributes = ContiguousEntityFactory.addToMap(new HashMap<String, Attribute>(), tmpAttributes);
+        this.rawTables = null;
+        this.classFileVersion = null;
+    }
 
-        this.rawData = raw.getOffsetData(OFFSET_OF_CODE);
-        this.codeAnalyser = new CodeAnalyser(this);
+    private Map<String, Attribute> getAttributes() {
+        readTables();
+        return attributes;
     }
 
     public void setMethod(Method method) {
@@ -101,7 +129,7 @@ public class AttributeCode extends Attribute {
     }
 
     private <T extends Attribute> T getAttributeByName(String name) {
-        Attribute attribute = attributes.get(name);
+        Attribute attribute = getAttributes().get(name);
         if (attribute == null) return null;
         @SuppressWarnings("unchecked")
         T tmp = (T) attribute;
@@ -125,6 +153,7 @@ public class AttributeCode extends Attribute {
     }
 
     public List<ExceptionTableEntry> getExceptionTableEntries() {
+        readTables();
         return exceptionTableEntries;
     }
 
@@ -153,11 +182,18 @@ public class AttributeCode extends Attribute {
 
     @Override
     public void collectTypeUsages(TypeUsageCollector collector) {
-        for (Attribute attribute : attributes.values()) {
+        for (Attribute attribute : getAttributes().values()) {
             attribute.collectTypeUsages(collector);
         }
     }
 
+    /*
+     * Null if we've not been analysed.
+     */
+    public AnalysisOutcome getAnalysisOutcome() {
+        return codeAnalyser.getAnalysisOutcome();
+    }
+
     public void releaseCode() {
         this.codeAnalyser.releaseCode();
     }
@@ -5,41 +5,51 @@ import org.benf.cfr.reader.entities.ClassFile;
 import org.benf.cfr.reader.state.DCCommonState;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.bytestream.ByteData;
-import org.benf.cfr.reader.util.bytestream.OffsettingByteData;
 import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.output.LoggerFactory;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Logger;
 
 public class ConstantPool {
     private static final Logger logger = LoggerFactory.create(ConstantPool.class);
 
     private final long length;
-    private final List<ConstantPoolEntry> entries;
+    private final ByteData raw;
+    // Offset into raw of each entry (0 based), or -1 for the unusable slot after a long / double.
+    private final long[] offsets;
+    private final AtomicReferenceArray<ConstantPoolEntry> entries;
     private final Options options;
     private final DCCommonState dcCommonState;
     private final ClassCache classCache;
     private final ClassFile classFile;
     private String comparisonKey;
     private boolean isLoaded;
-    private final int idx = sidx++;
-    private static int sidx = 0;
+    private final int idx = sidx.getAndIncrement();
+    private static final AtomicInteger sidx = new AtomicInteger();
     private final boolean dynamicConstants;
 
+    /*
+     * All we do up front is find where each entry starts - an entry is only decoded the first time
+     * it's asked for, and most of the pool of most classes never is.
+     */
     public ConstantPool(ClassFile classFile, DCCommonState dcCommonState, ByteData raw, int count) {
         this.classFile = classFile;
         this.options = dcCommonState.getOptions();
+        this.dcCommonState = dcCommonState;
+        this.classCache = dcCommonState.getClassCache();
         count--;
 
-        RawTmp tmp = processRaw(raw, count);
-        this.entries = tmp.entries;
+        this.raw = raw;
+        this.offsets = new long[count];
+        RawTmp tmp = processRaw(raw, offsets);
+        this.entries = new AtomicReferenceArray<ConstantPoolEntry>(count);
         this.length = tmp.rawLength;
         this.dynamicConstants = tmp.dynamicConstants;
-        this.dcCommonState = dcCommonState;
-        this.classCache = dcCommonState.getClassCache();
         this.isLoaded = true;
     }
 
@@ -56,89 +66,94 @@ public class ConstantPool {
     }
 
     private static class RawTmp {
-        final List<ConstantPoolEntry> entries;
         final long rawLength;
         final boolean dynamicConstants;
 
-        RawTmp(List<ConstantPoolEntry> entries, long rawLength, boolean dynamicConstants) {
-            this.entries = entries;
+        RawTmp(long rawLength, boolean dynamicConstants) {
             this.rawLength = rawLength;
             this.dynamicConstants = dynamicConstants;
         }
     }
 
-    private RawTmp processRaw(ByteData raw, int count) {
-        List<ConstantPoolEntry> tgt = ListFactory.newList(count);
-        OffsettingByteData data = raw.getOffsettingOffsetData(0);
+    private static RawTmp processRaw(ByteData raw, long[] offsets) {
+        int count = offsets.length;
+        long offset = 0;
         boolean dynamicConstant = false;
-        logger.info("Processing " + count + " constpool entries.");
+        if (LoggerFactory.DEBUG) logger.info("Processing " + count + " constpool entries.");
         for (int x = 0; x < count; ++x) {
-            ConstantPoolEntry.Type type = ConstantPoolEntry.Type.get(data.getS1At(0));
-            ConstantPoolEntry cpe;
+            ConstantPoolEntry.Type type = ConstantPoolEntry.Type.get(raw.getS1At(offset));
+            offsets[x] = offset;
+            long size;
             switch (type) {
-                case CPT_NameAndType:
-                    cpe = new ConstantPoolEntryNameAndType(this, data);
+                case CPT_UTF8:
+                    size = 3 + raw.getU2At(offset + 1);
                     break;
+                case CPT_Class:
                 case CPT_String:
-                    cpe = new ConstantPoolEntryString(this, data);
-                    break;
-                case CPT_FieldRef:
-                    cpe = new ConstantPoolEntryFieldRef(this, data);
-                    break;
-                case CPT_MethodRef:
-                    cpe = new ConstantPoolEntryMethodRef(this, data, false);
-                    break;
-                case CPT_InterfaceMethodRef:
-                    cpe = new ConstantPoolEntryMethodRef(this, data, true);
+                case CPT_MethodType:
+                    size = 3;
                     break;
-                case CPT_Class:
-                    cpe = new ConstantPoolEntryClass(this, data);
+                case CPT_MethodHandle:
+                    size = 4;
                     break;
                 case CPT_Double:
-                    cpe = new ConstantPoolEntryDouble(this, data);
-                    break;
-                case CPT_Float:
-                    cpe = new ConstantPoolEntryFloat(this, data);
-                    break;
                 case CPT_Long:
-                    cpe = new ConstantPoolEntryLong(this, data);
-                    break;
-                case CPT_Integer:
-                    cpe = new ConstantPoolEntryInteger(this, data);
-                    break;
-                case CPT_UTF8:
-                    cpe = new ConstantPoolEntryUTF8(this, data, options);
-                    break;
-                case CPT_MethodHandle:
-                    cpe = new ConstantPoolEntryMethodHandle(this, data);
-                    break;
-                case CPT_MethodType:
-                    cpe = new ConstantPoolEntryMethodType(this, data);
+                    size = 9;
+                    // These take two slots.
+                    if (x + 1 < count) offsets[++x] = -1;
                     break;
                 case CPT_DynamicInfo:
-                    cpe = new ConstantPoolEntryDynamicInfo(this, data);
                     dynamicConstant = true;
-                    break;
-                case CPT_InvokeDynamic:
-                    cpe = new ConstantPoolEntryInvokeDynamic(this, data);
+                    size = 5;
                     break;
                 default:
-                    throw new ConfusedCFRException("Invalid constant pool entry : " + type);
-            }
-            logger.info("" + (x + 1) + " : " + cpe);
-            tgt.add(cpe);
-            switch (type) {
-                case CPT_Double:
-                case CPT_Long:
-                    tgt.add(null);
-                    x++;
+                    size = 5;
                     break;
             }
+            offset += size;
+        }
+        return new RawTmp(offset, dynamicConstant);
+    }
 
-            long size = cpe.getRawByteLength();
-            data.advance(size);
+    private ConstantPoolEntry decode(int x) {
+        long offset = offsets[x];
+        if (offset == -1) return null;
+        ByteData data = raw.getOffsetData(offset);
+        ConstantPoolEntry.Type type = ConstantPoolEntry.Type.get(data.getS1At(0));
+        switch (type) {
+            case CPT_NameAndType:
+                return new ConstantPoolEntryNameAndType(this, data);
+            case CPT_String:
+                return new ConstantPoolEntryString(this, data);
+            case CPT_FieldRef:
+                return new ConstantPoolEntryFieldRef(this, data);
+            case CPT_MethodRef:
+                return new ConstantPoolEntryMethodRef(this, data, false);
+            case CPT_InterfaceMethodRef:
+                return new ConstantPoolEntryMethodRef(this, data, true);
+            case CPT_Class:
+                return new ConstantPoolEntryClass(this, data);
+            case CPT_Double:
+                return new ConstantPoolEntryDouble(this, data);
+            case CPT_Float:
+                return new ConstantPoolEntryFloat(this, data);
+            case CPT_Long:
+                return new ConstantPoolEntryLong(this, data);
+            case CPT_Integer:
+                return new ConstantPoolEntryInteger(this, data);
+            case CPT_UTF8:
+                return new ConstantPoolEntryUTF8(this, data, options);
+            case CPT_MethodHandle:
+                return new ConstantPoolEntryMethodHandle(this, data);
+            case CPT_MethodType:
+                return new ConstantPoolEntryMethodType(this, data);
+            case CPT_DynamicInfo:
+                return new ConstantPoolEntryDynamicInfo(this, data);
+            case CPT_InvokeDynamic:
+                return new ConstantPoolEntryInvokeDynamic(this, data);
+            default:
+                throw new ConfusedCFRException("Invalid constant pool entry : " + type);
         }
-        return new RawTmp(tgt, data.getOffset(), dynamicConstant);
     }
 
     public long getRawByteLength() {
@@ -148,10 +163,20 @@ public class ConstantPool {
     public ConstantPoolEntry getEntry(int index) {
         if (index == 0) throw new ConfusedCFRException("Attempt to fetch element 0 from constant pool");
         // NB: Constant pool entries are 1 based.
-        if (index > entries.size()) {
-            throw new IndexOutOfBoundsException("Constant pool has " + entries.size() + " entries - attempted to access entry #" + (index-1));
+        if (index > offsets.length) {
+            throw new IndexOutOfBoundsException("Constant pool has " + offsets.length + " entries - attempted to access entry #" + (index-1));
         }
-        return entries.get(index - 1);
+        ConstantPoolEntry entry = entries.get(index - 1);
+        if (entry != null || offsets[index - 1] == -1) return entry;
+        /*
+         * Library classes are shared between threads - make sure there's only ever one of each
+         * entry, whoever gets here first.
+         */
+        entry = decode(index - 1);
+        if (!entries.compareAndSet(index - 1, null, entry)) {
+            entry = entries.get(index - 1);
+        }
+        return entry;
     }
 
     public ConstantPoolEntryUTF8 getUTF8Entry(int index) {
@@ -174,6 +199,51 @@ public class ConstantPool {
         return (ConstantPoolEntryClass) getEntry(index);
     }
 
+    /*
+     * Raw (eg java/lang/Object, or [Ljava/lang/Object; for arrays) names of every class we refer to.
+     *
+     * That's not just CONSTANT_Class entries - a class which is only named in a descriptor or signature
+     * (of a field, method, NameAndType or MethodType), or as an annotation type or value, has no class
+     * entry.  Those are all UTF8 entries, and (other than string literals) they're the only UTF8 entries
+     * which can contain ';', as names can't.
+     */
+    public List<String> getReferencedClassNames() {
+        List<String> res = ListFactory.newList();
+        BitSet literals = new BitSet(offsets.length);
+        for (int x = 0; x < offsets.length; ++x) {
+            if (offsets[x] == -1) continue;
+            if (ConstantPoolEntry.Type.get(raw.getS1At(offsets[x])) != ConstantPoolEntry.Type.CPT_String) continue;
+            literals.set(raw.getU2At(offsets[x] + 1) - 1);
+        }
+        for (int x = 0; x < offsets.length; ++x) {
+            if (offsets[x] == -1) continue;
+            switch (ConstantPoolEntry.Type.get(raw.getS1At(offsets[x]))) {
+                case CPT_Class: {
+                    ConstantPoolEntryClass entry = getClassEntry(x + 1);
+                    res.add(getUTF8Entry(entry.nameIndex).getValue());
+                    break;
+                }
+                case CPT_UTF8:
+                    if (!literals.get(x) && hasSemicolon(offsets[x])) {
+                        ConstantPoolUtils.addClassNames(getUTF8Entry(x + 1).getValue(), res);
+                    }
+                    break;
+            }
+        }
+        return res;
+    }
+
+    /*
+     * Check the raw (modified UTF8) bytes, rather than decode every string in the pool.
+     */
+    private boolean hasSemicolon(long offset) {
+        int length = raw.getU2At(offset + 1);
+        for (int x = 0; x < length; ++x) {
+            if (raw.getS1At(offset + 3 + x) == ';') return true;
+        }
+        return false;
+    }
+
     public ClassCache getClassCache() {
         return classCache;
     }
@@ -15,36 +15,219 @@ import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class ConstantPoolUtils {
 
-    private static JavaTypeInstance parseRefType(String tok, ConstantPool cp, boolean isTemplate) {
+    /*
+     * Descriptors and signatures are parsed in two steps - first into a shape, which depends only on the
+     * string (and so is cached for the whole analysis, see SignatureShapes), then bound against the constant
+     * pool which wants them.  Binding does no string work, it's just class cache lookups and building the
+     * (fresh, as callers may alter them) type instances.
+     *
+     * Binding makes exactly the class cache requests, in the same order, that parsing straight into types
+     * used to - the names seen there affect what we output.
+     */
+    static class TypeShape {
+        private enum Kind {
+            RAW,
+            REF,
+            PLACEHOLDER
+        }
+
+        private final Kind kind;
+        private final RawJavaType rawType;
+        private final String name;
+        // null if this isn't generic.
+        private final List<TypeShape> genericTypes;
+        // Arguments of enclosing classes, which we parse (and so resolve) but then discard.
+        private final List<TypeShape> discardedTypes;
+        private final int numArrayDims;
+        private final WildcardType wildcardType;
+
+        private TypeShape(Kind kind, RawJavaType rawType, String name, List<TypeShape> genericTypes, List<TypeShape> discardedTypes, int numArrayDims, WildcardType wildcardType) {
+            this.kind = kind;
+            this.rawType = rawType;
+            this.name = name;
+            this.genericTypes = genericTypes;
+            this.discardedTypes = discardedTypes;
+            this.numArrayDims = numArrayDims;
+            this.wildcardType = wildcardType;
+        }
+
+        private static TypeShape ref(String name, List<TypeShape> genericTypes, List<TypeShape> discardedTypes) {
+            return new TypeShape(Kind.REF, null, name, genericTypes, discardedTypes, 0, WildcardType.NONE);
+        }
+
+        private TypeShape wrap(int numArrayDims, WildcardType wildcardType) {
+            if (numArrayDims == 0 && wildcardType == WildcardType.NONE) return this;
+            return new TypeShape(kind, rawType, name, genericTypes, discardedTypes, numArrayDims, wildcardType);
+        }
+
+        JavaTypeInstance bind(ConstantPool cp) {
+            JavaTypeInstance javaTypeInstance;
+            switch (kind) {
+                case RAW:
+                    javaTypeInstance = rawType;
+                    break;
+                case PLACEHOLDER:
+                    javaTypeInstance = new JavaGenericPlaceholderTypeInstance(name, cp);
+                    break;
+                default: {
+                    if (discardedTypes != null) bindAll(discardedTypes, cp);
+                    if (genericTypes == null) {
+                        javaTypeInstance = cp.getClassCache().getRefClassFor(name);
+                    } else {
+                        List<JavaTypeInstance> boundGenericTypes = bindAll(genericTypes, cp);
+                        JavaRefTypeInstance clazzType = cp.getClassCache().getRefClassFor(name);
+                        javaTypeInstance = new JavaGenericRefTypeInstance(clazzType, boundGenericTypes);
+                    }
+                    break;
+                }
+            }
+            if (numArrayDims > 0) javaTypeInstance = new JavaArrayTypeInstance(numArrayDims, javaTypeInstance);
+            if (wildcardType != WildcardType.NONE) {
+                javaTypeInstance = new JavaWildcardTypeInstance(wildcardType, javaTypeInstance);
+            }
+            return javaTypeInstance;
+        }
+
+        private StackType getStackType(ConstantPool cp) {
+            // Still bind refs, so that the class cache sees them.
+            return bind(cp).getStackType();
+        }
+    }
+
+    static class FormalTypeShape {
+        private final String name;
+        private final TypeShape classBound;
+        private final TypeShape interfaceBound;
+
+        private FormalTypeShape(String name, TypeShape classBound, TypeShape interfaceBound) {
+            this.name = name;
+            this.classBound = classBound;
+            this.interfaceBound = interfaceBound;
+        }
+    }
+
+    static class MethodShape {
+        // null if the method isn't generic.
+        private final List<FormalTypeShape> formalTypeParameters;
+        private final List<TypeShape> args;
+        // null for void.
+        private final TypeShape result;
+
+        private MethodShape(List<FormalTypeShape> formalTypeParameters, List<TypeShape> args, TypeShape result) {
+            this.formalTypeParameters = formalTypeParameters;
+            this.args = args;
+            this.result = result;
+        }
+    }
+
+    static class ClassShape {
+        private final List<FormalTypeShape> formalTypeParameters;
+        private final TypeShape superClass;
+        private final List<TypeShape> interfaces;
+
+        private ClassShape(List<FormalTypeShape> formalTypeParameters, TypeShape superClass, List<TypeShape> interfaces) {
+            this.formalTypeParameters = formalTypeParameters;
+            this.superClass = superClass;
+            this.interfaces = interfaces;
+        }
+    }
+
+    private static List<JavaTypeInstance> bindAll(List<TypeShape> shapes, ConstantPool cp) {
+        List<JavaTypeInstance> res = ListFactory.newList();
+        for (TypeShape shape : shapes) {
+            res.add(shape.bind(cp));
+        }
+        return res;
+    }
+
+    private static List<FormalTypeParameter> bindFormalTypeParameters(List<FormalTypeShape> shapes, ConstantPool cp) {
+        if (shapes == null) return null;
+        List<FormalTypeParameter> formalTypeParameters = ListFactory.newList();
+        FormalTypeParameter last = null;
+        for (FormalTypeShape shape : shapes) {
+            JavaTypeInstance classBound = shape.classBound == null ? null : shape.classBound.bind(cp);
+            JavaTypeInstance interfaceBound = shape.interfaceBound == null ? null : shape.interfaceBound.bind(cp);
+            FormalTypeParameter typeTok = new FormalTypeParameter(shape.name, classBound, interfaceBound);
+            if (typeTok.getName().equals("")) {
+                // previous type was an intersection type!
+                if (last != null) {
+                    last.add(typeTok);
+                } // else no idea - have to skip.
+            } else {
+                formalTypeParameters.add(typeTok);
+                last = typeTok;
+            }
+        }
+        return formalTypeParameters;
+    }
+
+    /*
+     * Everything should have a constant pool, and so a cache, but if not just parse.
+     */
+    private static SignatureShapes getShapes(ConstantPool cp) {
+        if (cp == null) return null;
+        DCCommonState state = cp.getDCCommonState();
+        return state == null ? null : state.getSignatureShapes();
+    }
+
+    static TypeShape getTypeShape(String tok, ConstantPool cp) {
+        SignatureShapes shapes = getShapes(cp);
+        if (shapes == null) return parseTypeShape(tok);
+        TypeShape res = shapes.getTypeShape(tok);
+        if (res == null) res = shapes.putTypeShape(tok, parseTypeShape(tok));
+        return res;
+    }
+
+    private static MethodShape getMethodShape(String proto, ConstantPool cp) {
+        SignatureShapes shapes = getShapes(cp);
+        if (shapes == null) return parseMethodShape(proto);
+        MethodShape res = shapes.getMethodShape(proto);
+        if (res == null) res = shapes.putMethodShape(proto, parseMethodShape(proto));
+        return res;
+    }
+
+    private static ClassShape getClassShape(String sig, ConstantPool cp) {
+        SignatureShapes shapes = getShapes(cp);
+        if (shapes == null) return parseClassShape(sig);
+        ClassShape res = shapes.getClassShape(sig);
+        if (res == null) res = shapes.putClassShape(sig, parseClassShape(sig));
+        return res;
+    }
+
+    private static TypeShape parseRefType(String tok, boolean isTemplate) {
         int idxGen = tok.indexOf('<');
         int idxStart = 0;
 
         if (idxGen != -1) {
-            List<JavaTypeInstance> genericTypes;
+            List<TypeShape> genericTypes;
+            List<TypeShape> discardedTypes = null;
             StringBuilder already = new StringBuilder();
             while (true) {
                 String pre = tok.substring(idxStart, idxGen);
                 already.append(pre);
                 String gen = tok.substring(idxGen + 1, tok.length() - 1);
-                Pair<List<JavaTypeInstance>, Integer> genericTypePair = parseTypeList(gen, cp);
+                Pair<List<TypeShape>, Integer> genericTypePair = parseTypeList(gen);
                 genericTypes = genericTypePair.getFirst();
                 idxStart = idxGen + genericTypePair.getSecond() + 1;
                 if (idxStart < gen.length()) {
                     if (tok.charAt(idxStart) != '>') {
                         throw new IllegalStateException();
                     }
+                    if (discardedTypes == null) discardedTypes = ListFactory.newList();
+                    discardedTypes.addAll(genericTypes);
                     idxStart++;
                     idxGen = tok.indexOf('<', idxStart);
                     if (idxGen == -1) {
                         // Append rest, treat as if no generics.
                         already.append(tok.substring(idxStart));
-                        return cp.getClassCache().getRefClassFor(already.toString());
+                        return TypeShape.ref(already.toString(), null, discardedTypes);
                     }
                     /*
                      * At this point we're discarding the outer generics info - that's not good....
@@ -54,16 +237,19 @@ public class ConstantPoolUtils {
                     break;
                 }
             }
-            JavaRefTypeInstance clazzType = cp.getClassCache().getRefClassFor(already.toString());
-            return new JavaGenericRefTypeInstance(clazzType, genericTypes);
+            return TypeShape.ref(already.toString(), genericTypes, discardedTypes);
         } else if (isTemplate) {
-            return new JavaGenericPlaceholderTypeInstance(tok, cp);
+            return new TypeShape(TypeShape.Kind.PLACEHOLDER, null, tok, null, null, 0, WildcardType.NONE);
         } else {
-            return cp.getClassCache().getRefClassFor(tok);
+            return TypeShape.ref(tok, null, null);
         }
     }
 
     public static JavaTypeInstance decodeTypeTok(String tok, ConstantPool cp) {
+        return getTypeShape(tok, cp).bind(cp);
+    }
+
+    private static TypeShape parseTypeShape(String tok) {
         int idx = 0;
         int numArrayDims = 0;
         char c = tok.charAt(idx);
@@ -76,16 +262,16 @@ public class ConstantPoolUtils {
             numArrayDims++;
             c = tok.charAt(++idx);
         }
-        JavaTypeInstance javaTypeInstance;
+        TypeShape typeShape;
         switch (c) {
             case '*': // wildcard
-                javaTypeInstance = new JavaGenericPlaceholderTypeInstance(MiscConstants.UNBOUND_GENERIC, cp);
+                typeShape = new TypeShape(TypeShape.Kind.PLACEHOLDER, null, MiscConstants.UNBOUND_GENERIC, null, null, 0, WildcardType.NONE);
                 break;
             case 'L':   // object
-                javaTypeInstance = parseRefType(tok.substring(idx + 1, tok.length() - 1), cp, false);
+                typeShape = parseRefType(tok.substring(idx + 1, tok.length() - 1), false);
                 break;
             case 'T':   // Template
-                javaTypeInstance = parseRefType(tok.substring(idx + 1, tok.length() - 1), cp, true);
+                typeShape = parseRefType(tok.substring(idx + 1, tok.length() - 1), true);
                 break;
             case 'B':   // byte
             case 'C':   // char
@@ -95,16 +281,12 @@ public class ConstantPoolUtils {
             case 'F':   // float
             case 'D':   // double
             case 'J':   // long
-                javaTypeInstance = decodeRawJavaType(c);
+                typeShape = new TypeShape(TypeShape.Kind.RAW, decodeRawJavaType(c), null, null, null, 0, WildcardType.NONE);
                 break;
             default:
                 throw new ConfusedCFRException("Invalid type string " + tok);
         }
-        if (numArrayDims > 0) javaTypeInstance = new JavaArrayTypeInstance(numArrayDims, javaTypeInstance);
-        if (wildcardType != WildcardType.NONE) {
-            javaTypeInstance = new JavaWildcardTypeInstance(wildcardType, javaTypeInstance);
-        }
-        return javaTypeInstance;
+        return typeShape.wrap(numArrayDims, wildcardType);
     }
 
     public static RawJavaType decodeRawJavaType(char c) {
@@ -210,80 +392,80 @@ public class ConstantPoolUtils {
         return proto.substring(startidx, curridx);
     }
 
-    private static FormalTypeParameter decodeFormalTypeTok(String tok, ConstantPool cp) {
+    private static FormalTypeShape decodeFormalTypeTok(String tok) {
         int idx = 0;
         while (tok.charAt(idx) != ':') {
             idx++;
         }
         String name = tok.substring(0, idx);
         idx++;
-        JavaTypeInstance classBound = null;
+        TypeShape classBound = null;
         if (tok.charAt(idx) != ':') {
             // Class bound.
             String classBoundTok = getNextTypeTok(tok, idx);
-            classBound = decodeTypeTok(classBoundTok, cp);
+            classBound = parseTypeShape(classBoundTok);
             idx += classBoundTok.length();
         }
-        JavaTypeInstance interfaceBound = null;
+        TypeShape interfaceBound = null;
         if (idx < tok.length()) {
             if (tok.charAt(idx) == ':') {
                 // interface bound
                 idx++;
                 String interfaceBoundTok = getNextTypeTok(tok, idx);
-                interfaceBound = decodeTypeTok(interfaceBoundTok, cp);
+                interfaceBound = parseTypeShape(interfaceBoundTok);
                 // should we ever need it.
                 //idx += interfaceBoundTok.length();
             }
         }
-        return new FormalTypeParameter(name, classBound, interfaceBound);
+        return new FormalTypeShape(name, classBound, interfaceBound);
     }
 
     public static ClassSignature parseClassSignature(ConstantPoolEntryUTF8 signature, ConstantPool cp) {
-        final String sig = signature.getValue();
+        ClassShape shape = getClassShape(signature.getValue(), cp);
+        List<FormalTypeParameter> formalTypeParameters = bindFormalTypeParameters(shape.formalTypeParameters, cp);
+        JavaTypeInstance superClassSignature = shape.superClass.bind(cp);
+        List<JavaTypeInstance> interfaceClassSignatures = bindAll(shape.interfaces, cp);
+        return new ClassSignature(formalTypeParameters, superClassSignature, interfaceClassSignatures);
+    }
+
+    private static ClassShape parseClassShape(String sig) {
         int curridx = 0;
 
         /*
          * Optional formal type parameters
          */
-        Pair<Integer, List<FormalTypeParameter>> formalTypeParametersRes = parseFormalTypeParameters(sig, cp, curridx);
+        Pair<Integer, List<FormalTypeShape>> formalTypeParametersRes = parseFormalTypeParameters(sig, curridx);
         curridx = formalTypeParametersRes.getFirst();
-        List<FormalTypeParameter> formalTypeParameters = formalTypeParametersRes.getSecond();
+        List<FormalTypeShape> formalTypeParameters = formalTypeParametersRes.getSecond();
 
         /*
          * Superclass signature.
          */
         String superClassSignatureTok = getNextTypeTok(sig, curridx);
         curridx += superClassSignatureTok.length();
-        JavaTypeInstance superClassSignature = decodeTypeTok(superClassSignatureTok, cp);
+        TypeShape superClassSignature = parseTypeShape(superClassSignatureTok);
 
-        List<JavaTypeInstance> interfaceClassSignatures = ListFactory.newList();
+        List<TypeShape> interfaceClassSignatures = ListFactory.newList();
         while (curridx < sig.length()) {
             String interfaceSignatureTok = getNextTypeTok(sig, curridx);
             curridx += interfaceSignatureTok.length();
-            interfaceClassSignatures.add(decodeTypeTok(interfaceSignatureTok, cp));
+            interfaceClassSignatures.add(parseTypeShape(interfaceSignatureTok));
         }
 
-        return new ClassSignature(formalTypeParameters, superClassSignature, interfaceClassSignatures);
+        return new ClassShape(formalTypeParameters, superClassSignature, interfaceClassSignatures);
     }
 
-    private static Pair<Integer, List<FormalTypeParameter>> parseFormalTypeParameters(String proto, ConstantPool cp, int curridx) {
-        List<FormalTypeParameter> formalTypeParameters = null;
-        FormalTypeParameter last = null;
+    /*
+     * Intersection bounds are joined up when binding, as that's done by altering the FormalTypeParameter.
+     */
+    private static Pair<Integer, List<FormalTypeShape>> parseFormalTypeParameters(String proto, int curridx) {
+        List<FormalTypeShape> formalTypeParameters = null;
         if (proto.charAt(curridx) == '<') {
             formalTypeParameters = ListFactory.newList();
             curridx++;
             while (proto.charAt(curridx) != '>') {
                 String formalTypeTok = getNextFormalTypeTok(proto, curridx);
-                FormalTypeParameter typeTok = decodeFormalTypeTok(formalTypeTok, cp);
-                if (typeTok.getName().equals("")) {
-                    // previous type was an intersection type!
-                    if (last != null) {
-                        last.add(typeTok);
-                    } // else no idea - have to skip.
-                } else {
-                    formalTypeParameters.add(typeTok);
-                    last = typeTok;
-                }
+                formalTypeParameters.add(decodeFormalTypeTok(formalTypeTok));
                 curridx += formalTypeTok.length();
             }
             curridx++;
@@ -292,14 +474,11 @@ public class ConstantPoolUtils {
     }
 
     public static MethodPrototype parseJavaMethodPrototype(DCCommonState state, ClassFile classFile, JavaTypeInstance classType, String name, boolean instanceMethod, Method.MethodConstructor constructorFlag, ConstantPoolEntryUTF8 prototype, ConstantPool cp, boolean varargs, boolean synthetic, VariableNamer variableNamer) {
-        String proto = prototype.getValue();
-        int curridx = 0;
+        MethodShape shape = getMethodShape(prototype.getValue(), cp);
         /*
          * Method is itself generic...
          */
-        Pair<Integer, List<FormalTypeParameter>> formalTypeParametersRes = parseFormalTypeParameters(proto, cp, curridx);
-        curridx = formalTypeParametersRes.getFirst();
-        List<FormalTypeParameter> formalTypeParameters = formalTypeParametersRes.getSecond();
+        List<FormalTypeParameter> formalTypeParameters = bindFormalTypeParameters(shape.formalTypeParameters, cp);
         Map<String, JavaTypeInstance> ftpMap;
         if (formalTypeParameters == null) {
             ftpMap = Collections.emptyMap();
@@ -310,40 +489,54 @@ public class ConstantPoolUtils {
             }
         }
 
-        if (proto.charAt(curridx) != '(') throw new ConfusedCFRException("Prototype " + proto + " is invalid");
-        curridx++;
         List<JavaTypeInstance> args = ListFactory.newList();
-        // could use parseTypeList below.
-        while (proto.charAt(curridx) != ')') {
-            String typeTok = getNextTypeTok(proto, curridx);
-            JavaTypeInstance type = decodeTypeTok(typeTok, cp);
+        for (TypeShape argShape : shape.args) {
+            JavaTypeInstance type = argShape.bind(cp);
             if (type instanceof JavaGenericPlaceholderTypeInstance) {
                 type = ((JavaGenericPlaceholderTypeInstance) type).withBound(ftpMap.get(type.getRawName()));
             }
             args.add(type);
+        }
+        JavaTypeInstance resultType = shape.result == null ? RawJavaType.VOID : shape.result.bind(cp);
+        MethodPrototype res = new MethodPrototype(state, classFile, classType, name, instanceMethod, constructorFlag, formalTypeParameters, args, resultType, varargs, variableNamer, synthetic);
+//        logger.info("Parsed prototype " + proto + " as " + res);
+        return res;
+    }
+
+    private static MethodShape parseMethodShape(String proto) {
+        int curridx = 0;
+        Pair<Integer, List<FormalTypeShape>> formalTypeParametersRes = parseFormalTypeParameters(proto, curridx);
+        curridx = formalTypeParametersRes.getFirst();
+        List<FormalTypeShape> formalTypeParameters = formalTypeParametersRes.getSecond();
+
+        if (proto.charAt(curridx) != '(') throw new ConfusedCFRException("Prototype " + proto + " is invalid");
+        curridx++;
+        List<TypeShape> args = ListFactory.newList();
+        // could use parseTypeList below.
+        while (proto.charAt(curridx) != ')') {
+            String typeTok = getNextTypeTok(proto, curridx);
+            args.add(parseTypeShape(typeTok));
             curridx += typeTok.length();
         }
         curridx++;
-        JavaTypeInstance resultType = RawJavaType.VOID;
+        TypeShape resultType = null;
         switch (proto.charAt(curridx)) {
             case 'V':
                 break;
             default:
-                resultType = decodeTypeTok(getNextTypeTok(proto, curridx), cp);
+                resultType = parseTypeShape(getNextTypeTok(proto, curridx));
                 break;
         }
-        MethodPrototype res = new MethodPrototype(state, classFile, classType, name, instanceMethod, constructorFlag, formalTypeParameters, args, resultType, varargs, variableNamer, synthetic);
-//        logger.info("Parsed prototype " + proto + " as " + res);
-        return res;
+        return new MethodShape(formalTypeParameters, args, resultType);
     }
 
-    private static Pair<List<JavaTypeInstance>, Integer> parseTypeList(String proto, ConstantPool cp) {
+    private static Pair<List<TypeShape>, Integer> parseTypeList(String proto) {
         int curridx = 0;
         int len = proto.length();
-        List<JavaTypeInstance> res = ListFactory.newList();
+        List<TypeShape> res = ListFactory.newList();
         while (curridx < len && proto.charAt(curridx) != '>') {
             String typeTok = getNextTypeTok(proto, curridx);
-            res.add(decodeTypeTok(typeTok, cp));
+            res.add(parseTypeShape(typeTok));
             curridx += typeTok.length();
         }
         return Pair.make(res, curridx);
@@ -354,28 +547,103 @@ public class ConstantPoolUtils {
      */
     static StackDelta parseMethodPrototype(boolean member, ConstantPoolEntryUTF8 prototype, ConstantPool cp) {
         String proto = prototype.getValue();
-        int curridx = 1;
         if (!proto.startsWith("(")) throw new ConfusedCFRException("Prototype " + proto + " is invalid");
+        MethodShape shape = getMethodShape(proto, cp);
         StackTypes argumentTypes = new StackTypes();
         if (member) {
             argumentTypes.add(StackType.REF); // thisPtr
         }
-        while (proto.charAt(curridx) != ')') {
-            String typeTok = getNextTypeTok(proto, curridx);
-            argumentTypes.add(decodeTypeTok(typeTok, cp).getStackType());
-            curridx += typeTok.length();
+        for (TypeShape argShape : shape.args) {
+            argumentTypes.add(argShape.getStackType(cp));
         }
-        curridx++;
         StackTypes resultType = StackTypes.EMPTY; // void.
-        switch (proto.charAt(curridx)) {
-            case 'V':
-                break;
-            default:
-                resultType = decodeTypeTok(getNextTypeTok(proto, curridx), cp).getStackType().asList();
-                break;
+        if (shape.result != null) {
+            resultType = shape.result.getStackType(cp).asList();
         }
         StackDelta res = new StackDeltaImpl(argumentTypes, resultType);
 //        logger.info("Parsed prototype " + proto + " as " + res);
         return res;
     }
+    /*
+     * Add the name of every class named in a descriptor or signature (of a field, method or class) to res,
+     * without binding anything - so nothing is looked up or loaded.  Inner classes of generic outers
+     * (Lpkg/Outer<TT;>.Inner;) give both pkg/Outer and pkg/Outer$Inner.  Type variables and primitives
+     * aren't classes, so are skipped.
+     *
+     * Anything that doesn't parse just gives whatever was found before it went wrong.
+     */
+    static void addClassNames(String sig, Collection<String> res) {
+        try {
+            int idx = 0;
+            int len = sig.length();
+            if (len > 0 && sig.charAt(0) == '<') {
+                // Formal type parameters - Identifier, then one or more bounds, each :RefType (first may be empty).
+                idx = 1;
+                while (sig.charAt(idx) != '>') {
+                    idx = sig.indexOf(':', idx);
+                    if (idx < 0) return;
+                    while (sig.charAt(idx) == ':') {
+                        idx++;
+                        char c = sig.charAt(idx);
+                        if (c == 'L' || c == 'T' || c == '[') idx = addClassNames(sig, idx, res);
+                    }
+                }
+                idx++;
+            }
+            while (idx < len) {
+                char c = sig.charAt(idx);
+                if (c == '(' || c == ')' || c == '^') {
+                    idx++;
+                } else {
+                    idx = addClassNames(sig, idx, res);
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Not a signature after all.
+        }
+    }
+
+    /*
+     * Adds the classes in the single type starting at idx, and returns the index after it.
+     */
+    private static int addClassNames(String sig, int idx, Collection<String> res) {
+        switch (sig.charAt(idx)) {
+            case '[':
+            case '+':
+            case '-':
+                return addClassNames(sig, idx + 1, res);
+            case 'T': {
+                int end = sig.indexOf(';', idx);
+                if (end < 0) throw new IndexOutOfBoundsException();
+                return end + 1;
+            }
+            case 'L': {
+                StringBuilder name = new StringBuilder();
+                int start = idx + 1;
+                while (true) {
+                    int end = start;
+                    char c = sig.charAt(end);
+                    while (c != ';' && c != '<' && c != '.') {
+                        c = sig.charAt(++end);
+                    }
+                    name.append(sig, start, end);
+                    if (c == '<') {
+                        end++;
+                        while (sig.charAt(end) != '>') {
+                            end = addClassNames(sig, end, res);
+                        }
+                        c = sig.charAt(++end);
+                    }
+                    res.add(name.toString());
+                    if (c == ';') return end + 1;
+                    if (c != '.') throw new IndexOutOfBoundsException();
+                    name.append(MiscConstants.INNER_CLASS_SEP_CHAR);
+                    start = end + 1;
+                }
+            }
+            default:
+                // Primitive, void or unbounded wildcard.
+                return idx + 1;
+        }
+    }
 }
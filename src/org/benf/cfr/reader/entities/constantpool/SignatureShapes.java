@@ -0,0 +1,44 @@
+package org.benf.cfr.reader.entities.constantpool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Parsed descriptors and signatures, keyed by their (interned) strings - the same few thousand are used over
+ * and over by every class in a jar, and what they parse to doesn't depend on which class is asking.
+ *
+ * See ConstantPoolUtils - these are bound against a constant pool each time they're used.  Parsing has no
+ * side effects, so if two threads race to parse the same string, it doesn't matter who wins.
+ */
+public class SignatureShapes {
+    private final ConcurrentMap<String, ConstantPoolUtils.TypeShape> typeShapes = new ConcurrentHashMap<String, ConstantPoolUtils.TypeShape>();
+    private final ConcurrentMap<String, ConstantPoolUtils.MethodShape> methodShapes = new ConcurrentHashMap<String, ConstantPoolUtils.MethodShape>();
+    private final ConcurrentMap<String, ConstantPoolUtils.ClassShape> classShapes = new ConcurrentHashMap<String, ConstantPoolUtils.ClassShape>();
+
+    ConstantPoolUtils.TypeShape getTypeShape(String tok) {
+        return typeShapes.get(tok);
+    }
+
+    ConstantPoolUtils.TypeShape putTypeShape(String tok, ConstantPoolUtils.TypeShape shape) {
+        ConstantPoolUtils.TypeShape res = typeShapes.putIfAbsent(tok, shape);
+        return res == null ? shape : res;
+    }
+
+    ConstantPoolUtils.MethodShape getMethodShape(String proto) {
+        return methodShapes.get(proto);
+    }
+
+    ConstantPoolUtils.MethodShape putMethodShape(String proto, ConstantPoolUtils.MethodShape shape) {
+        ConstantPoolUtils.MethodShape res = methodShapes.putIfAbsent(proto, shape);
+        return res == null ? shape : res;
+    }
+
+    ConstantPoolUtils.ClassShape getClassShape(String sig) {
+        return classShapes.get(sig);
+    }
+
+    ConstantPoolUtils.ClassShape putClassShape(String sig, ConstantPoolUtils.ClassShape shape) {
+        ConstantPoolUtils.ClassShape res = classShapes.putIfAbsent(sig, shape);
+        return res == null ? shape : res;
+    }
+}
@@ -11,6 +11,13 @@ public class AttributeFactory {
     private static final long OFFSET_OF_ATTRIBUTE_NAME_INDEX = 0;
 
     public static Attribute build(ByteData raw, ConstantPool cp, ClassFileVersion classFileVersion) {
+        return build(raw, cp, classFileVersion, false);
+    }
+
+    /*
+     * lazyCode - don't read the body of a Code attribute until it's needed.
+     */
+    public static Attribute build(ByteData raw, ConstantPool cp, ClassFileVersion classFileVersion, boolean lazyCode) {
         final int nameIndex = raw.getU2At(OFFSET_OF_ATTRIBUTE_NAME_INDEX);
         ConstantPoolEntryUTF8 name = (ConstantPoolEntryUTF8) cp.getEntry(nameIndex);
         String attributeName = name.getValue();
@@ -22,7 +29,7 @@ public class AttributeFactory {
         if (AttributeCode.ATTRIBUTE_NAME.equals(attributeName)) {
             // Code attribute needs the signature of the method, so that we have type information for the
             // local variables.
-            return new AttributeCode(raw, cp, classFileVersion);
+            return new AttributeCode(raw, cp, classFileVersion, lazyCode);
         }
 
         try {
@@ -78,21 +85,27 @@ public class AttributeFactory {
     }
 
     public static UnaryFunction<ByteData, Attribute> getBuilder(ConstantPool cp, ClassFileVersion classFileVersion) {
-        return new AttributeBuilder(cp, classFileVersion);
+        return new AttributeBuilder(cp, classFileVersion, false);
+    }
+
+    public static UnaryFunction<ByteData, Attribute> getBuilder(ConstantPool cp, ClassFileVersion classFileVersion, boolean lazyCode) {
+        return new AttributeBuilder(cp, classFileVersion, lazyCode);
     }
 
     private static class AttributeBuilder implements UnaryFunction<ByteData, Attribute> {
         private final ConstantPool cp;
         private final ClassFileVersion classFileVersion;
+        private final boolean lazyCode;
 
-        AttributeBuilder(ConstantPool cp, ClassFileVersion classFileVersion) {
+        AttributeBuilder(ConstantPool cp, ClassFileVersion classFileVersion, boolean lazyCode) {
             this.cp = cp;
             this.classFileVersion = classFileVersion;
+            this.lazyCode = lazyCode;
         }
 
         @Override
         public Attribute invoke(ByteData arg) {
-            return AttributeFactory.build(arg, cp, classFileVersion);
+            return AttributeFactory.build(arg, cp, classFileVersion, lazyCode);
         }
     }
 }
@@ -0,0 +1,41 @@
+package org.benf.cfr.reader.relationship;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.Collection;
+import java.util.Map;
+
+/*
+ * The names MemberNameResolver settled on, by class, method name and descriptor - so that fresh copies of
+ * the same class files can be given them, rather than resolving again.
+ *
+ * Not altered once built, so can be shared between threads.
+ */
+public class FixedMemberNames {
+    private final Map<String, Map<String, String>> fixedNames = MapFactory.newMap();
+
+    FixedMemberNames(Collection<Method> methods) {
+        for (Method method : methods) {
+            String className = method.getClassFile().getClassType().getRawName();
+            Map<String, String> forClass = fixedNames.get(className);
+            if (forClass == null) {
+                forClass = MapFactory.newMap();
+                fixedNames.put(className, forClass);
+            }
+            forClass.put(method.getName() + method.getDescriptor(), method.getMethodPrototype().getFixedName());
+        }
+    }
+
+    public void applyTo(ClassFile classFile) {
+        Map<String, String> forClass = fixedNames.get(classFile.getClassType().getRawName());
+        if (forClass == null) return;
+        for (Method method : classFile.getMethods()) {
+            String fixedName = forClass.get(method.getName() + method.getDescriptor());
+            if (fixedName != null) {
+                method.getMethodPrototype().setFixedName(fixedName);
+            }
+        }
+    }
+}
@@ -18,6 +18,17 @@ public class MemberNameResolver {
         self.resolve();
     }
 
+    /*
+     * As resolveNames, but also hands back the names we picked, so that they can be given to other copies of
+     * these class files without having to look at every type again.
+     */
+    public static FixedMemberNames resolveNamesForCopies(DCCommonState dcCommonState, Collection<? extends JavaTypeInstance> types) {
+        MemberNameResolver self = new MemberNameResolver(dcCommonState);
+        self.initialise(types);
+        self.resolve();
+        return new FixedMemberNames(self.fixedMethods);
+    }
+
     public static boolean verifySingleClassNames(ClassFile oneClassFile) {
         MemberInfo memberInfo = new MemberInfo(oneClassFile);
 
@@ -44,6 +55,7 @@ public class MemberNameResolver {
     private final Map<ClassFile, Set<ClassFile>> childToParent = MapFactory.newLazyMap(mapFactory);
     private final Map<ClassFile, Set<ClassFile>> parentToChild = MapFactory.newLazyMap(mapFactory);
     private final Map<ClassFile, MemberInfo> infoMap = MapFactory.newIdentityMap();
+    private final List<Method> fixedMethods = ListFactory.newList();
 
 
     private MemberNameResolver(DCCommonState dcCommonState) {
@@ -151,6 +163,7 @@ public class MemberNameResolver {
                                 resolvedName = ClassNameUtils.getTypeFixPrefix(clashByType.getKey()) + methodPrototype.getName();
                             }
                             methodPrototype.setFixedName(resolvedName);
+                            fixedMethods.add(method);
                         }
                     }
                 }
@@ -0,0 +1,22 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.bytestream.ByteData;
+
+import java.io.IOException;
+
+/*
+ * An open jar, kept open for as long as we might want classes from it.
+ */
+interface ArchiveReader {
+    /*
+     * null if there's no such entry.
+     */
+    byte[] getBytes(String path) throws IOException;
+
+    /*
+     * As getBytes, but may avoid copying the entry, if the archive allows.
+     */
+    ByteData getData(String path) throws IOException;
+
+    void close() throws IOException;
+}
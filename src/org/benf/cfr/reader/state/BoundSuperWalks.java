@@ -0,0 +1,67 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.bytecode.analysis.types.BindingSuperContainer;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaGenericRefTypeInstance;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * What walking up the hierarchy from a (fully bound) type finds - see ClassFile.collectBoundSuperClasses.
+ * Classes with supertypes in common can then reuse a walk rather than repeating it.
+ *
+ * Kept on the DCCommonState which loaded the classes being walked from, so it only ever holds types from
+ * that state (or from the library state it shares), and goes when it does.  Only the most recently used
+ * MAX_SIZE are kept.
+ */
+public class BoundSuperWalks {
+    private static final int MAX_SIZE = 4096;
+
+    // Access ordered, so eldest is least recently used.
+    private final Map<Key, BindingSuperContainer> walks = new LinkedHashMap<Key, BindingSuperContainer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BindingSuperContainer> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    public synchronized BindingSuperContainer get(JavaTypeInstance type) {
+        return walks.get(new Key(type));
+    }
+
+    public synchronized void put(JavaTypeInstance type, BindingSuperContainer walk) {
+        walks.put(new Key(type), walk);
+    }
+
+    /*
+     * Generic instances all hash as their raw type - so every Comparable<X> would share a bucket.  Mix in
+     * what they're bound to.
+     */
+    private static class Key {
+        private final JavaTypeInstance type;
+        private final int hash;
+
+        private Key(JavaTypeInstance type) {
+            this.type = type;
+            int hash = type.hashCode();
+            if (type instanceof JavaGenericRefTypeInstance) {
+                hash = 31 * hash + ((JavaGenericRefTypeInstance) type).getGenericTypes().hashCode();
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && type.equals(other.type);
+        }
+    }
+}
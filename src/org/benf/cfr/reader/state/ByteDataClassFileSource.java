@@ -0,0 +1,14 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+
+import java.io.IOException;
+
+/*
+ * A class file source which can hand us class file content without first copying it into an array
+ * (see ClassFileSource.getClassFileContent).
+ */
+public interface ByteDataClassFileSource {
+    Pair<ByteData, String> getClassFileData(String path) throws IOException;
+}
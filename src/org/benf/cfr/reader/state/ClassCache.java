@@ -4,6 +4,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
 import org.benf.cfr.reader.bytecode.analysis.types.TypeConstants;
+import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 
@@ -11,6 +12,10 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+/*
+ * Locked, so that a DCCommonState can be shared between threads - note that creating a type may
+ * recursively create its outer type.
+ */
 public class ClassCache {
 
     private final Map<String, JavaRefTypeInstance> refClassTypeCache = MapFactory.newMap();
@@ -38,12 +43,17 @@ public class ClassCache {
         rawClassName = ClassNameUtils.convertToPath(rawClassName);
         rawClassName = dcCommonState.getPossiblyRenamedFileFromClassFileSource(rawClassName);
         String name = ClassNameUtils.convertFromPath(rawClassName);
-        JavaRefTypeInstance typeInstance = refClassTypeCache.get(name);
-        if (typeInstance == null) {
-            typeInstance = JavaRefTypeInstance.create(name, dcCommonState);
-            add(name, typeInstance);
+        synchronized (this) {
+            JavaRefTypeInstance typeInstance = refClassTypeCache.get(name);
+            if (typeInstance == null) {
+                ClassCache libraryCache = dcCommonState.getSharedLibraryClassCache(rawClassName);
+                typeInstance = libraryCache != null ?
+                        libraryCache.getRefClassFor(rawClassName) :
+                        JavaRefTypeInstance.create(name, dcCommonState);
+                add(name, typeInstance);
+            }
+            return typeInstance;
         }
-        return typeInstance;
     }
 
     private void add(String name, JavaRefTypeInstance typeInstance) {
@@ -51,17 +61,20 @@ public class ClassCache {
         simpleClassNamesSeen.add(typeInstance.getRawShortName());
     }
 
-    public boolean isClassName(String name) {
+    public synchronized boolean isClassName(String name) {
         return simpleClassNamesSeen.contains(name);
     }
 
-    public Pair<JavaRefTypeInstance, JavaRefTypeInstance> getRefClassForInnerOuterPair(String rawInnerName, String rawOuterName) {
+    public synchronized Pair<JavaRefTypeInstance, JavaRefTypeInstance> getRefClassForInnerOuterPair(String rawInnerName, String rawOuterName) {
         String innerName = ClassNameUtils.convertFromPath(rawInnerName);
         String outerName = ClassNameUtils.convertFromPath(rawOuterName);
         JavaRefTypeInstance inner = refClassTypeCache.get(innerName);
         JavaRefTypeInstance outer = refClassTypeCache.get(outerName);
         if (inner != null && outer != null) return Pair.make(inner, outer);
-        Pair<JavaRefTypeInstance, JavaRefTypeInstance> pair = JavaRefTypeInstance.createKnownInnerOuter(innerName, outerName, outer, dcCommonState);
+        ClassCache libraryCache = dcCommonState.getSharedLibraryClassCache(ClassNameUtils.convertToPath(innerName));
+        Pair<JavaRefTypeInstance, JavaRefTypeInstance> pair = libraryCache != null ?
+                libraryCache.getRefClassForInnerOuterPair(rawInnerName, rawOuterName) :
+                JavaRefTypeInstance.createKnownInnerOuter(innerName, outerName, outer, dcCommonState);
         if (inner == null) {
             add(innerName, pair.getFirst());
             inner = pair.getFirst();
@@ -74,7 +87,7 @@ public class ClassCache {
 
     }
 
-    public Collection<JavaRefTypeInstance> getLoadedTypes() {
-        return refClassTypeCache.values();
+    public synchronized Collection<JavaRefTypeInstance> getLoadedTypes() {
+        return ListFactory.newList(refClassTypeCache.values());
     }
 }
@@ -6,6 +6,8 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.StringUtils;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.bytestream.ByteData;
 import org.benf.cfr.reader.util.collections.Functional;
 import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.MapFactory;
@@ -30,10 +32,12 @@ import java.util.zip.ZipFile;
 
 import static org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils.getPackageAndClassNames;
 
-public class ClassFileSourceImpl implements ClassFileSource2 {
+public class ClassFileSourceImpl implements ClassFileSource2, LibraryAwareClassFileSource, ByteDataClassFileSource {
 
-    private final Set<String> explicitJars = SetFactory.newSet();
-    private Map<String, String> classToPathMap;
+    private final Map<String, ArchiveReader> openArchives = MapFactory.newMap();
+    // Classes in jars we've been explicitly asked to analyse - these take precedence over the class path.
+    private final Map<String, String> classToPathMap = MapFactory.newMap();
+    private ClassPathIndex classPathIndex;
     // replace with BiDiMap
     private Map<String, String> classCollisionRenamerLCToReal;
     private Map<String, String> classCollisionRenamerRealToLC;
@@ -57,9 +61,22 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
 
     public ClassFileSourceImpl(Options options) {
         this.options = options;
+        if (options.getOption(OptionsImpl.CASE_INSENSITIVE_FS_RENAME)) {
+            classCollisionRenamerLCToReal = MapFactory.newMap();
+            classCollisionRenamerRealToLC = MapFactory.newMap();
+        }
+    }
+
+    /*
+     * A fresh source (nothing explicitly added, nothing open), but using what other knows about the
+     * class path, so it needn't be scanned again.  Neither should be used while the other is in use.
+     */
+    public ClassFileSourceImpl(Options options, ClassFileSourceImpl other) {
+        this(options);
+        this.classPathIndex = other.getClassPathIndex();
     }
 
-    private byte[] getBytesFromFile(InputStream is, long length) throws IOException {
+    static byte[] getBytesFromFile(InputStream is, long length) throws IOException {
         // Create the byte array to hold the data
         byte[] bytes = new byte[(int) length];
 
@@ -91,59 +108,117 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
 
     @Override
     public Pair<byte [], String> getClassFileContent(final String inputPath) throws IOException {
-        Map<String, String> classPathFiles = getClassPathClasses();
+        String path = getRealPath(inputPath);
+        File file = getLooseFile(inputPath, path);
+        byte[] content;
+        if (file != null) {
+            content = getBytesFromFile(new FileInputStream(file), file.length());
+        } else {
+            ArchiveReader archive = getArchiveFor(inputPath);
+            if (archive != null) {
+                content = archive.getBytes(path);
+                if (content == null) throw new IOException("No such entry " + path);
+            } else {
+                // Fallback - can we get the bytes using a java9 extractor?
+                content = getInternalContent(inputPath);
+            }
+        }
+        return Pair.make(content, inputPath);
+    }
 
-        String jarName = classPathFiles.get(inputPath);
+    /*
+     * As getClassFileContent, but if we're mapping jars, stored entries don't need to be copied.
+     */
+    @Override
+    public Pair<ByteData, String> getClassFileData(final String inputPath) throws IOException {
+        String path = getRealPath(inputPath);
+        if (getLooseFile(inputPath, path) == null) {
+            ArchiveReader archive = getArchiveFor(inputPath);
+            if (archive != null) {
+                ByteData content = archive.getData(path);
+                if (content == null) throw new IOException("No such entry " + path);
+                return Pair.make(content, inputPath);
+            }
+        }
+        Pair<byte[], String> content = getClassFileContent(inputPath);
+        return Pair.<ByteData, String>make(new BaseByteData(content.getFirst()), content.getSecond());
+    }
 
-        // If path is an alias due to case insensitivity, restore to the correct name here, before
-        // accessing zipfile.
-        String path = inputPath;
+    /*
+     * If path is an alias due to case insensitivity, restore to the correct name here, before
+     * accessing zipfile.
+     */
+    private String getRealPath(String inputPath) {
         if (classCollisionRenamerLCToReal != null) {
-            String actualName = classCollisionRenamerLCToReal.get(path);
+            String actualName = classCollisionRenamerLCToReal.get(inputPath);
             if (actualName != null) {
-                path = actualName;
+                return actualName;
             }
         }
+        return inputPath;
+    }
 
-        ZipFile zipFile = null;
+    private File getLooseFile(String inputPath, String path) {
+        if (classToPathMap.containsKey(inputPath)) return null;
+        File file = new File(getUsePath(path));
+        return file.exists() ? file : null;
+    }
 
-        try {
-            InputStream is;
-            long length;
-
-            /*
-             * NB : pathPrefix will be empty the when we load the 'main' class,
-             * and only set if it's not in its 'natural' location.
-             */
-            String usePath = path;
-            if (unexpectedDirectory) {
-                if (usePath.startsWith(classRemovePrefix)) {
-                    usePath = usePath.substring(classRemovePrefix.length());
-                }
-                usePath = pathPrefix + usePath;
-            }
-            boolean forceJar = explicitJars.contains(jarName);
-            File file = forceJar ? null : new File(usePath);
-            byte[] content;
-            if (file != null && file.exists()) {
-                is = new FileInputStream(file);
-                length = file.length();
-                content = getBytesFromFile(is, length);
-            } else if (jarName != null) {
-                zipFile = new ZipFile(new File(jarName), ZipFile.OPEN_READ);
-                ZipEntry zipEntry = zipFile.getEntry(path);
-                length = zipEntry.getSize();
-                is = zipFile.getInputStream(zipEntry);
-                content = getBytesFromFile(is, length);
-            } else {
-                // Fallback - can we get the bytes using a java9 extractor?
-                content = getInternalContent(inputPath);
+    private ArchiveReader getArchiveFor(String inputPath) throws IOException {
+        String jarName = classToPathMap.get(inputPath);
+        if (jarName == null) {
+            jarName = getClassPathIndex().getArchiveFor(inputPath);
+        }
+        if (jarName == null) return null;
+        ArchiveReader archive = openArchives.get(jarName);
+        if (archive == null) {
+            File file = new File(jarName);
+            archive = options.getOption(OptionsImpl.MMAP_JARS) ?
+                    MappedArchiveReader.create(file) :
+                    new ZipFileArchiveReader(file);
+            openArchives.put(jarName, archive);
+        }
+        return archive;
+    }
+
+    /*
+     * Jars are held open once we've read a class from them, until this is called.  It's safe to
+     * carry on using this source afterwards - they'll just be reopened.
+     */
+    public void closeArchives() {
+        for (ArchiveReader archive : openArchives.values()) {
+            try {
+                archive.close();
+            } catch (IOException ignore) {
             }
+        }
+        openArchives.clear();
+    }
 
-            return Pair.make(content, inputPath);
-        } finally {
-            if (zipFile != null) zipFile.close();
+    /*
+     * NB : pathPrefix will be empty the when we load the 'main' class,
+     * and only set if it's not in its 'natural' location.
+     */
+    private String getUsePath(String path) {
+        String usePath = path;
+        if (unexpectedDirectory) {
+            if (usePath.startsWith(classRemovePrefix)) {
+                usePath = usePath.substring(classRemovePrefix.length());
+            }
+            usePath = pathPrefix + usePath;
         }
+        return usePath;
+    }
+
+    /*
+     * Anything we'd load from disk, or from a jar we've been explicitly asked to analyse, is
+     * not a library class.
+     */
+    @Override
+    public boolean isLibraryClass(String path) {
+        if (classToPathMap.containsKey(path)) return false;
+        if (classCollisionRenamerLCToReal != null && classCollisionRenamerLCToReal.containsKey(path)) return false;
+        return !new File(getUsePath(path)).exists();
     }
 
     /*
@@ -261,9 +336,6 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
     }
 
     public JarContent addJarContent(String jarPath) {
-        // Make sure classpath is scraped first, so we'll overwrite it.
-        getClassPathClasses();
-
         File file = new File(jarPath);
         if (!file.exists()) {
             throw new ConfusedCFRException("No such jar file " + jarPath);
@@ -305,7 +377,6 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
                 output.add(classPath);
             }
         }
-        explicitJars.add(jarPath);
         return jarContent;
     }
 
@@ -322,69 +393,20 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
         return testName;
     }
 
-    private Map<String, String> getClassPathClasses() {
-        if (classToPathMap == null) {
-            boolean renameCase = (options.getOption(OptionsImpl.CASE_INSENSITIVE_FS_RENAME));
-
-            boolean dump = options.getOption(OptionsImpl.DUMP_CLASS_PATH);
-
-            classToPathMap = MapFactory.newMap();
+    /*
+     * Nothing is read from the class path until we're first asked for a class which isn't in
+     * something we've been explicitly given.
+     */
+    private ClassPathIndex getClassPathIndex() {
+        if (classPathIndex == null) {
             String classPath = System.getProperty("java.class.path") + File.pathSeparatorChar + System.getProperty("sun.boot.class.path");
-            if (dump) {
-                System.out.println("/* ClassPath Diagnostic - searching :" + classPath);
-            }
             String extraClassPath = options.getOption(OptionsImpl.EXTRA_CLASS_PATH);
             if (null != extraClassPath) {
                 classPath = classPath + File.pathSeparatorChar + extraClassPath;
             }
-
-            if (renameCase) {
-                classCollisionRenamerLCToReal = MapFactory.newMap();
-                classCollisionRenamerRealToLC = MapFactory.newMap();
-            }
-
-            String[] classPaths = classPath.split("" + File.pathSeparatorChar);
-            for (String path : classPaths) {
-                if (dump) {
-                    System.out.println(" " + path);
-                }
-                File f = new File(path);
-                if (f.exists()) {
-                    if (f.isDirectory()) {
-                        if (dump) {
-                            System.out.println(" (Directory)");
-                        }
-                        // Load all the jars in that directory.
-                        File[] files = f.listFiles();
-                        if (files != null) {
-                            for (File file : files) {
-                                processClassPathFile(file, file.getAbsolutePath(), classToPathMap, dump);
-                            }
-                        }
-                    } else {
-                        processClassPathFile(f, path, classToPathMap, dump);
-                    }
-                } else {
-                    if (dump) {
-                        System.out.println(" (Can't access)");
-                    }
-                }
-            }
-            if (dump) {
-                System.out.println(" */");
-            }
-        }
-        return classToPathMap;
-    }
-
-    private void processClassPathFile(File file, String absolutePath, Map<String, String> classToPathMap, boolean dump) {
-        JarContent content = processClassPathFile(file, dump);
-        if (content == null) {
-            return;
-        }
-        for (String name : content.getClassFiles()) {
-            classToPathMap.put(name, absolutePath);
+            classPathIndex = new ClassPathIndex(classPath, options.getOption(OptionsImpl.DUMP_CLASS_PATH), options.getOption(OptionsImpl.CLASS_PATH_CACHE));
         }
+        return classPathIndex;
     }
 
     private JarContent processClassPathFile(final File file, boolean dump) {
@@ -0,0 +1,185 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/*
+ * What ClassPathIndex knows about one jar - where its central directory is, and which parts of
+ * that directory hold which packages.  (Or, for jars we can't read ourselves, every class name).
+ *
+ * This is also what's persisted by ClassPathIndexCache, along with enough to tell if the jar has changed.
+ */
+class ClassPathArchive {
+    private static final int END_SIG = 0x06054b50;
+    private static final int END_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    final File file;
+    final String path;
+    final long length;
+    final long lastModified;
+    long directoryOffset;
+    int directoryLength;
+    List<String> eager;
+    final List<PackageRun> runs = ListFactory.newList();
+
+    ClassPathArchive(File file, String path) {
+        this(file, path, file.length(), file.lastModified());
+    }
+
+    private ClassPathArchive(File file, String path, long length, long lastModified) {
+        this.file = file;
+        this.path = path;
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    /*
+     * Cheap check that a persisted copy still describes the jar.
+     */
+    boolean isCurrent() {
+        return file.length() == length && file.lastModified() == lastModified;
+    }
+
+    void addRun(String packageName, int start, int end) {
+        PackageRun last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+        if (last != null && last.packageName.equals(packageName) && last.end == start) {
+            last.end = end;
+            return;
+        }
+        runs.add(new PackageRun(packageName, start, end));
+    }
+
+    /*
+     * False if this is zip64 - throws if we can't find a directory we can read (which may mean it's not a zip at all).
+     */
+    boolean findDirectory() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long size = raf.length();
+            if (size < END_LENGTH) throw new IOException("Not a zip");
+            int tailLength = (int) Math.min(size, END_LENGTH + MAX_COMMENT_LENGTH);
+            byte[] tail = new byte[tailLength];
+            raf.seek(size - tailLength);
+            raf.readFully(tail);
+            for (int pos = tailLength - END_LENGTH; pos >= 0; --pos) {
+                if (getInt(tail, pos) != END_SIG) continue;
+                int count = getShort(tail, pos + 10);
+                long length = getInt(tail, pos + 12) & 0xFFFFFFFFL;
+                long offset = getInt(tail, pos + 16) & 0xFFFFFFFFL;
+                if (count == 0xFFFF || length == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) return false;
+                if (offset + length > size) throw new IOException("Bad end of central directory");
+                directoryOffset = offset;
+                directoryLength = (int) length;
+                return true;
+            }
+            throw new IOException("Not a zip");
+        } finally {
+            raf.close();
+        }
+    }
+
+    /*
+     * Throws if that isn't all within the directory (eg the index came from a cache, and doesn't describe
+     * this jar after all).
+     */
+    byte[] readDirectory(int start, int length) throws IOException {
+        if (start < 0 || length < 0 || directoryOffset < 0 || (long) start + length > directoryLength) {
+            throw new IOException("Outside central directory");
+        }
+        byte[] res = new byte[length];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            if (directoryOffset + directoryLength > raf.length()) throw new IOException("Outside file");
+            raf.seek(directoryOffset + start);
+            raf.readFully(res);
+        } finally {
+            raf.close();
+        }
+        return res;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(file.getAbsolutePath());
+        out.writeLong(length);
+        out.writeLong(lastModified);
+        out.writeLong(directoryOffset);
+        out.writeInt(directoryLength);
+        out.writeBoolean(eager != null);
+        if (eager != null) {
+            out.writeInt(eager.size());
+            for (String name : eager) {
+                out.writeUTF(name);
+            }
+        }
+        out.writeInt(runs.size());
+        for (PackageRun run : runs) {
+            out.writeUTF(run.packageName);
+            out.writeInt(run.start);
+            out.writeInt(run.end);
+        }
+    }
+
+    /*
+     * The path we were read with isn't persisted, as the same jar can be reached by different
+     * paths - it's the one the caller is about to look the file up by.
+     */
+    static ClassPathArchive read(DataInputStream in) throws IOException {
+        File file = new File(in.readUTF());
+        long length = in.readLong();
+        long lastModified = in.readLong();
+        ClassPathArchive res = new ClassPathArchive(file, null, length, lastModified);
+        res.directoryOffset = in.readLong();
+        res.directoryLength = in.readInt();
+        if (in.readBoolean()) {
+            int count = in.readInt();
+            res.eager = ListFactory.newList();
+            for (int x = 0; x < count; ++x) {
+                res.eager.add(in.readUTF());
+            }
+        }
+        int count = in.readInt();
+        for (int x = 0; x < count; ++x) {
+            res.runs.add(new PackageRun(in.readUTF(), in.readInt(), in.readInt()));
+        }
+        return res;
+    }
+
+    /*
+     * As read, but reached via path.
+     */
+    ClassPathArchive withPath(String path) {
+        ClassPathArchive res = new ClassPathArchive(file, path, length, lastModified);
+        res.directoryOffset = directoryOffset;
+        res.directoryLength = directoryLength;
+        res.eager = eager;
+        res.runs.addAll(runs);
+        return res;
+    }
+
+    static int getShort(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8);
+    }
+
+    static int getInt(byte[] data, int pos) {
+        return getShort(data, pos) | (getShort(data, pos + 2) << 16);
+    }
+
+    static class PackageRun {
+        final String packageName;
+        final int start;
+        int end;
+
+        PackageRun(String packageName, int start, int end) {
+            this.packageName = packageName;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
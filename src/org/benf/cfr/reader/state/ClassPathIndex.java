@@ -0,0 +1,327 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.benf.cfr.reader.state.ClassPathArchive.getInt;
+import static org.benf.cfr.reader.state.ClassPathArchive.getShort;
+
+/*
+ * Which jar on the class path a class lives in.
+ *
+ * We used to open and enumerate every jar on the class path up front, and keep a map of every
+ * class in them, even though an analysis only ever asks about a few hundred.  Instead, the first
+ * time we're asked anything, we read just the central directory of each jar, and note which packages
+ * it has, and where in the directory they are.  Only when a class in a package is asked for do we
+ * reread those bits of directory, and find out what classes it has.
+ *
+ * As before, if a class is in several jars, the last on the class path wins.
+ *
+ * If given a cache, what we learn about each jar is kept there, so unchanged jars needn't be
+ * scanned at all next time.
+ */
+class ClassPathIndex {
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    // Same as ZipFile - names are decoded as UTF8 regardless of the language encoding flag.
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String classPath;
+    private final boolean dump;
+    private final ClassPathIndexCache cache;
+    private final List<ClassPathArchive> archives = ListFactory.newList();
+    private Map<String, List<Run>> packageRuns;
+    private final Map<String, Map<String, String>> packages = MapFactory.newMap();
+
+    ClassPathIndex(String classPath, boolean dump, String cacheDirectory) {
+        this.classPath = classPath;
+        this.dump = dump;
+        // Dumping wants to see every class, so always scans.
+        this.cache = cacheDirectory == null || dump ? null : new ClassPathIndexCache(cacheDirectory);
+    }
+
+    /*
+     * Absolute path of the jar holding path (eg java/lang/Object.class), or null if it's not in one.
+     */
+    String getArchiveFor(String path) {
+        int idx = path.lastIndexOf('/');
+        String packageName = idx < 0 ? "" : path.substring(0, idx);
+        Map<String, String> classes = packages.get(packageName);
+        if (classes == null) {
+            classes = readPackage(packageName);
+            packages.put(packageName, classes);
+        }
+        return classes.get(path);
+    }
+
+    private Map<String, String> readPackage(String packageName) {
+        Map<String, String> classes = MapFactory.newMap();
+        List<Run> runs = getPackageRuns().get(packageName);
+        if (runs == null) return classes;
+        for (Run run : runs) {
+            ClassPathArchive archive = archives.get(run.archive);
+            if (archive.eager == null) {
+                try {
+                    for (String name : readRun(archive, run)) {
+                        classes.put(name, archive.path);
+                    }
+                    continue;
+                } catch (IOException e) {
+                    /*
+                     * Jar has changed since we scanned it, or a cached index didn't describe it after all - let
+                     * ZipFile have it from now on, as for jars we can't read at all.  (Packages it's gained since
+                     * won't be found, as we never knew to look in it for them).
+                     */
+                    archive.eager = readNamesOrNone(archive.file);
+                }
+            }
+            for (String name : archive.eager) {
+                if (packageName.equals(getPackage(name))) classes.put(name, archive.path);
+            }
+        }
+        return classes;
+    }
+
+    private List<String> readRun(ClassPathArchive archive, Run run) throws IOException {
+        if (!archive.isCurrent()) throw new IOException("Changed since indexed");
+        byte[] directory = archive.readDirectory(run.start, run.end - run.start);
+        List<String> res = ListFactory.newList();
+        int pos = 0;
+        while (pos < directory.length) {
+            int next = next(directory, pos);
+            String name = getName(directory, pos);
+            if (isClass(name)) res.add(name);
+            pos = next;
+        }
+        return res;
+    }
+
+    private Map<String, List<Run>> getPackageRuns() {
+        if (packageRuns != null) return packageRuns;
+        packageRuns = MapFactory.newMap();
+        if (dump) {
+            System.out.println("/* ClassPath Diagnostic - searching :" + classPath);
+        }
+        String[] classPaths = classPath.split("" + File.pathSeparatorChar);
+        for (String path : classPaths) {
+            if (dump) {
+                System.out.println(" " + path);
+            }
+            File f = new File(path);
+            if (f.exists()) {
+                if (f.isDirectory()) {
+                    if (dump) {
+                        System.out.println(" (Directory)");
+                    }
+                    // Index all the jars in that directory.
+                    File[] files = f.listFiles();
+                    if (files != null) {
+                        for (File file : files) {
+                            scan(file, file.getAbsolutePath());
+                        }
+                    }
+                } else {
+                    scan(f, path);
+                }
+            } else {
+                if (dump) {
+                    System.out.println(" (Can't access)");
+                }
+            }
+        }
+        if (dump) {
+            System.out.println(" */");
+        }
+        if (cache != null) {
+            cache.save();
+        }
+        return packageRuns;
+    }
+
+    private void scan(File file, String path) {
+        if (!file.isFile()) return;
+        ClassPathArchive archive = cache == null ? null : cache.get(file, path);
+        if (archive == null) {
+            archive = readArchive(file, path);
+            if (archive == null) return;
+            if (cache != null) {
+                cache.put(archive);
+            }
+        }
+        int idx = archives.size();
+        archives.add(archive);
+        for (ClassPathArchive.PackageRun run : archive.runs) {
+            addRun(run.packageName, idx, run.start, run.end);
+        }
+    }
+
+    /*
+     * Null if this isn't a jar at all.
+     *
+     * Anything we can't make sense of ourselves (zip64, a script or other preamble before the zip data
+     * throwing the offsets out, ...) is given to ZipFile, which is more forgiving - if it can read the
+     * jar, we just take every name up front.
+     */
+    private ClassPathArchive readArchive(File file, String path) {
+        ClassPathArchive archive = new ClassPathArchive(file, path);
+        try {
+            if (archive.findDirectory()) {
+                scanDirectory(archive, archive.readDirectory(0, archive.directoryLength));
+                return archive;
+            }
+        } catch (IOException e) {
+            // Fall back to ZipFile, below.
+        }
+        archive = new ClassPathArchive(file, path);
+        try {
+            archive.eager = readNames(file);
+        } catch (IOException e) {
+            // Not a jar (or not one we can read) - ignore, as ZipFile would have.
+            return null;
+        }
+        for (String name : archive.eager) {
+            archive.addRun(getPackage(name), 0, 0);
+        }
+        return archive;
+    }
+
+    /*
+     * Walk the directory, noting contiguous runs of entries in the same package, without building
+     * a string for every entry.
+     */
+    private void scanDirectory(ClassPathArchive archive, byte[] directory) throws IOException {
+        int runStart = 0;
+        int packageStart = -1;
+        int packageLength = -1;
+        String packageName = null;
+        int pos = 0;
+        while (pos < directory.length) {
+            int next = next(directory, pos);
+            int nameLength = getShort(directory, pos + 28);
+            int nameStart = pos + CENTRAL_HEADER_LENGTH;
+            int thisPackageLength = 0;
+            for (int x = nameLength - 1; x >= 0; --x) {
+                if (directory[nameStart + x] == '/') {
+                    thisPackageLength = x;
+                    break;
+                }
+            }
+            if (packageName == null || !samePackage(directory, packageStart, packageLength, nameStart, thisPackageLength)) {
+                if (packageName != null) archive.addRun(packageName, runStart, pos);
+                runStart = pos;
+                packageStart = nameStart;
+                packageLength = thisPackageLength;
+                packageName = new String(directory, nameStart, thisPackageLength, UTF8);
+            }
+            if (dump) {
+                String name = getName(directory, pos);
+                if (name.endsWith(".class")) {
+                    System.out.println("  " + name);
+                } else if (!name.endsWith("/")) {
+                    System.out.println("  [ignoring] " + name);
+                }
+            }
+            pos = next;
+        }
+        if (packageName != null) archive.addRun(packageName, runStart, pos);
+    }
+
+    private List<String> readNamesOrNone(File file) {
+        try {
+            return readNames(file);
+        } catch (IOException e) {
+            return ListFactory.newList();
+        }
+    }
+
+    /*
+     * Let ZipFile deal with it, and just remember all the names.
+     */
+    private List<String> readNames(File file) throws IOException {
+        List<String> names = ListFactory.newList();
+        ZipFile zipFile = new ZipFile(file, ZipFile.OPEN_READ);
+        try {
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                String name = enumeration.nextElement().getName();
+                if (!isClass(name)) continue;
+                if (dump) {
+                    System.out.println("  " + name);
+                }
+                names.add(name);
+            }
+        } finally {
+            zipFile.close();
+        }
+        return names;
+    }
+
+    private void addRun(String packageName, int archiveIdx, int start, int end) {
+        List<Run> runs = packageRuns.get(packageName);
+        if (runs == null) {
+            runs = ListFactory.newList();
+            packageRuns.put(packageName, runs);
+        }
+        Run last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+        if (last != null && last.archive == archiveIdx && last.end == start) {
+            last.end = end;
+            return;
+        }
+        runs.add(new Run(archiveIdx, start, end));
+    }
+
+    private static boolean isClass(String name) {
+        return name.endsWith(".class");
+    }
+
+    private static String getPackage(String name) {
+        int idx = name.lastIndexOf('/');
+        return idx < 0 ? "" : name.substring(0, idx);
+    }
+
+    private static boolean samePackage(byte[] directory, int aStart, int aLength, int bStart, int bLength) {
+        if (aLength != bLength) return false;
+        for (int x = 0; x < aLength; ++x) {
+            if (directory[aStart + x] != directory[bStart + x]) return false;
+        }
+        return true;
+    }
+
+    private static String getName(byte[] directory, int pos) {
+        return new String(directory, pos + CENTRAL_HEADER_LENGTH, getShort(directory, pos + 28), UTF8);
+    }
+
+    /*
+     * Where the entry after the one at pos starts - checking that there is an entry at pos, and that all of
+     * it is there, so it's safe to read.
+     */
+    private static int next(byte[] directory, int pos) throws IOException {
+        if (pos + CENTRAL_HEADER_LENGTH > directory.length || getInt(directory, pos) != CENTRAL_HEADER_SIG) {
+            throw new IOException("Bad central directory");
+        }
+        int next = pos + CENTRAL_HEADER_LENGTH + getShort(directory, pos + 28) + getShort(directory, pos + 30) + getShort(directory, pos + 32);
+        if (next > directory.length) throw new IOException("Bad central directory");
+        return next;
+    }
+
+    private static class Run {
+        private final int archive;
+        private final int start;
+        private int end;
+
+        private Run(int archive, int start, int end) {
+            this.archive = archive;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * Keeps what ClassPathIndex learned about each jar between runs, in a single file in a cache
+ * directory.  A jar is only rescanned if its size or modification time have changed.
+ *
+ * Entries for jars we didn't use this time are kept, so different class paths can share a cache - but
+ * not if the jar has since been changed or removed, and only the most recently used MAX_ARCHIVES are
+ * kept, so the cache can't grow without limit.
+ * Any problem reading the cache just means starting from empty - it's only ever an optimisation.
+ */
+class ClassPathIndexCache {
+    private static final int MAGIC = 0xCF4C5043;
+    private static final int VERSION = 1;
+    private static final String FILE_NAME = "classpath.idx";
+    private static final int MAX_ARCHIVES = 1024;
+
+    private final File cacheFile;
+    private final int maxArchives;
+    // Least recently used first.
+    private final Map<String, ClassPathArchive> archives = MapFactory.newOrderedMap();
+    private boolean dirty;
+
+    ClassPathIndexCache(String directory) {
+        this(directory, MAX_ARCHIVES);
+    }
+
+    ClassPathIndexCache(String directory, int maxArchives) {
+        this.cacheFile = new File(directory, FILE_NAME);
+        this.maxArchives = maxArchives;
+        load();
+    }
+
+    /*
+     * Null if we don't have an up to date copy.
+     */
+    ClassPathArchive get(File file, String path) {
+        String key = file.getAbsolutePath();
+        ClassPathArchive archive = archives.remove(key);
+        if (archive == null) return null;
+        if (!archive.isCurrent()) {
+            dirty = true;
+            return null;
+        }
+        /*
+         * Back in as most recently used.  That alone isn't worth rewriting the cache for, but if
+         * anything else changes, it's saved with it.
+         */
+        archives.put(key, archive);
+        return archive.withPath(path);
+    }
+
+    void put(ClassPathArchive archive) {
+        String key = archive.file.getAbsolutePath();
+        archives.remove(key);
+        archives.put(key, archive);
+        dirty = true;
+    }
+
+    private void load() {
+        if (!cacheFile.exists()) return;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+                int count = in.readInt();
+                for (int x = 0; x < count; ++x) {
+                    ClassPathArchive archive = ClassPathArchive.read(in);
+                    // Jars that have changed or gone would only be rescanned (or never asked for).
+                    if (archive.isCurrent()) {
+                        archives.put(archive.file.getAbsolutePath(), archive);
+                    } else {
+                        dirty = true;
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            archives.clear();
+        }
+    }
+
+    private void trim() {
+        Iterator<String> keys = archives.keySet().iterator();
+        for (int excess = archives.size() - maxArchives; excess > 0; --excess) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /*
+     * Written to a temporary file, then moved into place, so concurrent runs never see half a cache.
+     */
+    void save() {
+        if (!dirty) return;
+        trim();
+        File directory = cacheFile.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) return;
+        try {
+            File tmp = File.createTempFile(FILE_NAME, ".tmp", directory);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+                try {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(archives.size());
+                    for (ClassPathArchive archive : archives.values()) {
+                        archive.write(out);
+                    }
+                } finally {
+                    out.close();
+                }
+                if (!tmp.renameTo(cacheFile)) {
+                    // Windows won't rename over an existing file.
+                    cacheFile.delete();
+                    tmp.renameTo(cacheFile);
+                }
+            } finally {
+                tmp.delete();
+            }
+            dirty = false;
+        } catch (IOException e) {
+            // Never mind - we'll just have to scan again next time.
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.state;
 
+import org.benf.cfr.reader.api.AnalysisPassListener;
 import org.benf.cfr.reader.apiunreleased.ClassFileSource2;
 import org.benf.cfr.reader.apiunreleased.JarContent;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
@@ -7,20 +8,28 @@ import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
 import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.constantpool.SignatureShapes;
+import org.benf.cfr.reader.relationship.FixedMemberNames;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.CannotLoadClassException;
 import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.bytestream.BaseByteData;
 import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.benf.cfr.reader.util.collections.ComputeOnceMap;
 import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.BinaryFunction;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
 import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.DecompilationReport;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 
 public class DCCommonState {
@@ -28,34 +37,141 @@ public class DCCommonState {
     private final ClassCache classCache;
     private final ClassFileSource2 classFileSource;
     private final Options options;
-    private final Map<String, ClassFile> classFileCache;
+    private final ComputeOnceMap<String, ClassFileHandle> classFileCache;
+    private final EvictingClassFileCache evictingClassFileCache;
+    private final DCCommonState libraryState;
     private Set<JavaTypeInstance> versionCollisions;
-    private transient LinkedHashSet<String> couldNotLoadClasses = new LinkedHashSet<String>();
+    private AnalysisPassListener analysisPassListener;
+    private DecompilationReport decompilationReport;
+    // Null unless member names were resolved against another copy of the classes we load.
+    private FixedMemberNames fixedMemberNames;
+    private transient Set<String> couldNotLoadClasses = Collections.synchronizedSet(new LinkedHashSet<String>());
+    // Constant pool strings - descriptors and the like are repeated in class after class.
+    private final ConcurrentMap<String, String> internedStrings;
+    // Likewise what descriptors and signatures parse to.
+    private final SignatureShapes signatureShapes;
+    // Types come from our own class cache, so this can't be shared with other states.
+    private final BoundSuperWalks boundSuperWalks = new BoundSuperWalks();
 
     public DCCommonState(Options options, ClassFileSource2 classFileSource) {
+        this(options, classFileSource, null);
+    }
+
+    /*
+     * If given a library state, library classes are loaded by (and cached in) that instead, so are
+     * shared with everything else using it.  Our own class cache, and so name table, is still private.
+     */
+    public DCCommonState(Options options, ClassFileSource2 classFileSource, DCCommonState libraryState) {
+        this(options, classFileSource, libraryState, new ConcurrentHashMap<String, String>(), new SignatureShapes());
+    }
+
+    private DCCommonState(Options options, ClassFileSource2 classFileSource, DCCommonState libraryState, ConcurrentMap<String, String> internedStrings, SignatureShapes signatureShapes) {
         this.options = options;
         this.classFileSource = classFileSource;
+        this.libraryState = libraryState;
         this.classCache = new ClassCache(this);
-        this.classFileCache = MapFactory.newExceptionRetainingLazyMap(new UnaryFunction<String, ClassFile>() {
+        this.internedStrings = internedStrings;
+        this.signatureShapes = signatureShapes;
+        UnaryFunction<String, ClassFile> loader = new UnaryFunction<String, ClassFile>() {
             @Override
             public ClassFile invoke(String arg) {
                 return loadClassFileAtPath(arg);
             }
-        });
+        };
+        this.evictingClassFileCache = createEvictingClassFileCache(loader);
+        this.classFileCache = createClassFileCache(loader);
         this.versionCollisions = SetFactory.newSet();
     }
 
     public DCCommonState(DCCommonState dcCommonState, final BinaryFunction<String, DCCommonState, ClassFile> cacheAccess) {
         this.options = dcCommonState.options;
         this.classFileSource = dcCommonState.classFileSource;
+        this.libraryState = dcCommonState.libraryState;
         this.classCache = new ClassCache(this);
-        this.classFileCache = MapFactory.newExceptionRetainingLazyMap(new UnaryFunction<String, ClassFile>() {
+        this.internedStrings = dcCommonState.internedStrings;
+        this.signatureShapes = dcCommonState.signatureShapes;
+        UnaryFunction<String, ClassFile> loader = new UnaryFunction<String, ClassFile>() {
             @Override
             public ClassFile invoke(String arg) {
                 return cacheAccess.invoke(arg, DCCommonState.this);
             }
-        });
+        };
+        this.evictingClassFileCache = createEvictingClassFileCache(loader);
+        this.classFileCache = createClassFileCache(loader);
         this.versionCollisions = dcCommonState.versionCollisions;
+        this.analysisPassListener = dcCommonState.analysisPassListener;
+        this.decompilationReport = dcCommonState.decompilationReport;
+        this.fixedMemberNames = dcCommonState.fixedMemberNames;
+    }
+
+    /*
+     * Shares options and collision information with the original, but nothing that's been loaded - other
+     * than through libraryState, if given.  This is what each class gets when decompiling a jar with
+     * several threads.
+     */
+    public DCCommonState(DCCommonState dcCommonState, ClassFileSource2 classFileSource, DCCommonState libraryState) {
+        this(dcCommonState.options, classFileSource, libraryState, dcCommonState.internedStrings, dcCommonState.signatureShapes);
+        this.versionCollisions = dcCommonState.versionCollisions;
+        this.analysisPassListener = dcCommonState.analysisPassListener;
+        this.decompilationReport = dcCommonState.decompilationReport;
+    }
+
+    private EvictingClassFileCache createEvictingClassFileCache(UnaryFunction<String, ClassFile> loader) {
+        int maxSize = options.getOption(OptionsImpl.CLASS_CACHE_SIZE);
+        if (maxSize == 0) return null;
+        return new EvictingClassFileCache(maxSize, options.getOption(OptionsImpl.CLASS_CACHE_SOFT), loader);
+    }
+
+    /*
+     * Anything we're analysing has to stay put - analysis hangs state off class files.  But library
+     * classes are only used to resolve types, so if we've been given a bound, they can be evicted and
+     * transparently reloaded.
+     */
+    private ComputeOnceMap<String, ClassFileHandle> createClassFileCache(final UnaryFunction<String, ClassFile> loader) {
+        return new ComputeOnceMap<String, ClassFileHandle>(new UnaryFunction<String, ClassFileHandle>() {
+            @Override
+            public ClassFileHandle invoke(final String arg) {
+                if (isSharedLibraryClass(arg)) {
+                    return new ReloadingHandle(libraryState.getClassFile(arg)) {
+                        @Override
+                        ClassFile reload() {
+                            return libraryState.getClassFile(arg);
+                        }
+                    };
+                }
+                if (evictingClassFileCache != null && isLibraryClass(arg)) {
+                    return new ReloadingHandle(evictingClassFileCache.get(arg)) {
+                        @Override
+                        ClassFile reload() {
+                            return evictingClassFileCache.get(arg);
+                        }
+                    };
+                }
+                final ClassFile classFile = loader.invoke(arg);
+                return new ClassFileHandle() {
+                    @Override
+                    public ClassFile get() {
+                        return classFile;
+                    }
+                };
+            }
+        });
+    }
+
+    /*
+     * One copy of each distinct string, for everything loaded during this analysis.
+     */
+    public String intern(String s) {
+        String res = internedStrings.putIfAbsent(s, s);
+        return res == null ? s : res;
+    }
+
+    public SignatureShapes getSignatureShapes() {
+        return signatureShapes;
+    }
+
+    public BoundSuperWalks getBoundSuperWalks() {
+        return boundSuperWalks;
     }
 
     public void setCollisions(Set<JavaTypeInstance> versionCollisions) {
@@ -66,10 +182,61 @@ public class DCCommonState {
         return versionCollisions;
     }
 
+    /*
+     * Null unless someone wants to know how long analysis passes take.
+     */
+    public AnalysisPassListener getAnalysisPassListener() {
+        return analysisPassListener;
+    }
+
+    public void setAnalysisPassListener(AnalysisPassListener analysisPassListener) {
+        this.analysisPassListener = analysisPassListener;
+    }
+
+    /*
+     * Null unless the report option is set.
+     */
+    public DecompilationReport getDecompilationReport() {
+        return decompilationReport;
+    }
+
+    public void setDecompilationReport(DecompilationReport decompilationReport) {
+        this.decompilationReport = decompilationReport;
+    }
+
+    /*
+     * Every class file we load from here on will be given these names.
+     */
+    public void setFixedMemberNames(FixedMemberNames fixedMemberNames) {
+        this.fixedMemberNames = fixedMemberNames;
+    }
+
+    public FixedMemberNames getFixedMemberNames() {
+        return fixedMemberNames;
+    }
+
     public void configureWith(ClassFile classFile) {
         classFileSource.informAnalysisRelativePathDetail(classFile.getUsePath(), classFile.getFilePath());
     }
 
+    private boolean isSharedLibraryClass(String path) {
+        return libraryState != null && isLibraryClass(path);
+    }
+
+    private boolean isLibraryClass(String path) {
+        if (!(classFileSource instanceof LibraryAwareClassFileSource)) return false;
+        return ((LibraryAwareClassFileSource) classFileSource).isLibraryClass(path);
+    }
+
+    /*
+     * Types are compared by identity, so if we share a library class file, we have to share the
+     * type instances it was built with too.  Returns null if rawClassPath isn't a shared library class.
+     */
+    ClassCache getSharedLibraryClassCache(String rawClassPath) {
+        if (!isSharedLibraryClass(rawClassPath + ".class")) return null;
+        return libraryState.classCache;
+    }
+
     String getPossiblyRenamedFileFromClassFileSource(String name) {
         return classFileSource.getPossiblyRenamedPath(name);
     }
@@ -81,9 +248,19 @@ public class DCCommonState {
 
     public ClassFile loadClassFileAtPath(final String path) {
         try {
-            Pair<byte[], String> content = classFileSource.getClassFileContent(path);
-            ByteData data = new BaseByteData(content.getFirst());
-            return new ClassFile(data, content.getSecond(), this);
+            ClassFile classFile;
+            if (classFileSource instanceof ByteDataClassFileSource) {
+                Pair<ByteData, String> content = ((ByteDataClassFileSource) classFileSource).getClassFileData(path);
+                classFile = new ClassFile(content.getFirst(), content.getSecond(), this, isLibraryClass(path));
+            } else {
+                Pair<byte[], String> content = classFileSource.getClassFileContent(path);
+                ByteData data = new BaseByteData(content.getFirst());
+                classFile = new ClassFile(data, content.getSecond(), this, isLibraryClass(path));
+            }
+            if (fixedMemberNames != null) {
+                fixedMemberNames.applyTo(classFile);
+            }
+            return classFile;
         } catch (Exception e) {
             couldNotLoadClasses.add(path);
             throw new CannotLoadClassException(path, e);
@@ -139,7 +316,16 @@ public class DCCommonState {
     }
 
     public ClassFile getClassFile(String path) throws CannotLoadClassException {
-        return classFileCache.get(path);
+        return classFileCache.get(path).get();
+    }
+
+    /*
+     * Null unless we've been asked to bound the number of library class files held.  If library classes
+     * come from a shared library state, it's that state's cache which holds them.
+     */
+    public EvictingClassFileCache.Statistics getClassFileCacheStatistics() {
+        if (libraryState != null) return libraryState.getClassFileCacheStatistics();
+        return evictingClassFileCache == null ? null : evictingClassFileCache.getStatistics();
     }
 
     public JavaRefTypeInstance getClassTypeOrNull(String path) {
@@ -179,6 +365,10 @@ public class DCCommonState {
         return options;
     }
 
+    public ClassFileSource2 getClassFileSource() {
+        return classFileSource;
+    }
+
     // No fancy file identification right now, just very very simple.
     public AnalysisType detectClsJar(String path) {
         String lcPath = path.toLowerCase();
@@ -186,4 +376,28 @@ public class DCCommonState {
         return AnalysisType.CLASS;
     }
 
+    private interface ClassFileHandle {
+        ClassFile get();
+    }
+
+    /*
+     * Loading the class file to create the handle (so that failure to load happens there, as it would
+     * for a class we hold) is the first request for it - so hand that out first, rather than asking
+     * again and having the evicting cache count one request twice.
+     */
+    private static abstract class ReloadingHandle implements ClassFileHandle {
+        private final AtomicReference<ClassFile> loaded;
+
+        ReloadingHandle(ClassFile loaded) {
+            this.loaded = new AtomicReference<ClassFile>(loaded);
+        }
+
+        @Override
+        public ClassFile get() {
+            ClassFile classFile = loaded.getAndSet(null);
+            return classFile != null ? classFile : reload();
+        }
+
+        abstract ClassFile reload();
+    }
 }
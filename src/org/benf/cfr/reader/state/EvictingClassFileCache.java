@@ -0,0 +1,143 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.functors.UnaryFunction;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Holds class files which we only need for type resolution (i.e. library classes), and so can
+ * afford to throw away and reload from the class file source if asked for again.
+ *
+ * At most maxSize are held strongly, least recently used being evicted first.  If softTier is set,
+ * evicted class files are then held softly, so are only lost if the VM actually needs the memory.
+ *
+ * Loading happens outside the lock - loading one class can ask for others.
+ */
+public class EvictingClassFileCache {
+    private final UnaryFunction<String, ClassFile> loader;
+    private final LinkedHashMap<String, ClassFile> recent;
+    private final Map<String, KeyedSoftReference> softlyHeld;
+    private final ReferenceQueue<ClassFile> collected = new ReferenceQueue<ClassFile>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public EvictingClassFileCache(final int maxSize, boolean softTier, UnaryFunction<String, ClassFile> loader) {
+        this.loader = loader;
+        this.softlyHeld = softTier ? MapFactory.<String, KeyedSoftReference>newMap() : null;
+        // Access ordered, so eldest is least recently used.
+        this.recent = new LinkedHashMap<String, ClassFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ClassFile> eldest) {
+                if (size() <= maxSize) return false;
+                evicted(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public ClassFile get(String path) {
+        synchronized (this) {
+            ClassFile classFile = getHeld(path);
+            if (classFile != null) {
+                hits++;
+                return classFile;
+            }
+            misses++;
+        }
+        ClassFile classFile = loader.invoke(path);
+        synchronized (this) {
+            // Someone may have beaten us to it - if so, prefer theirs, so there's only one live copy.
+            ClassFile raced = recent.get(path);
+            if (raced != null) return raced;
+            recent.put(path, classFile);
+        }
+        return classFile;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, recent.size());
+    }
+
+    private ClassFile getHeld(String path) {
+        ClassFile classFile = recent.get(path);
+        if (classFile != null || softlyHeld == null) return classFile;
+        expungeCollected();
+        KeyedSoftReference ref = softlyHeld.remove(path);
+        if (ref == null) return null;
+        classFile = ref.get();
+        if (classFile != null) {
+            recent.put(path, classFile);
+        }
+        return classFile;
+    }
+
+    private void evicted(String path, ClassFile classFile) {
+        evictions++;
+        if (softlyHeld != null) {
+            softlyHeld.put(path, new KeyedSoftReference(path, classFile, collected));
+        }
+    }
+
+    private void expungeCollected() {
+        Reference<? extends ClassFile> ref;
+        while ((ref = collected.poll()) != null) {
+            KeyedSoftReference keyed = (KeyedSoftReference) ref;
+            // Only remove if it hasn't since been replaced.
+            if (softlyHeld.get(keyed.path) == keyed) {
+                softlyHeld.remove(keyed.path);
+            }
+        }
+    }
+
+    private static class KeyedSoftReference extends SoftReference<ClassFile> {
+        private final String path;
+
+        private KeyedSoftReference(String path, ClassFile referent, ReferenceQueue<ClassFile> queue) {
+            super(referent, queue);
+            this.path = path;
+        }
+    }
+
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        private Statistics(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size;
+        }
+    }
+}
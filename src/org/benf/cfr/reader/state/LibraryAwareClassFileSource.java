@@ -0,0 +1,12 @@
+package org.benf.cfr.reader.state;
+
+/*
+ * A class file source which can tell us whether a class comes from a library (the class path, or
+ * the runtime), rather than from something we've been asked to analyse.
+ *
+ * Library classes don't depend on which input we're currently looking at, so may be parsed once
+ * and shared between analyses.
+ */
+public interface LibraryAwareClassFileSource {
+    boolean isLibraryClass(String path);
+}
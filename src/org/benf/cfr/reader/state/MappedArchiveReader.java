@@ -0,0 +1,284 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.bytestream.BufferBackedByteData;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/*
+ * Reads a jar by mapping it, and walking the central directory ourselves.
+ *
+ * Stored entries can then be handed out as a view of the mapping, with no copy at all.  Deflated
+ * entries still have to be inflated into an array, but without going through the file system again.
+ *
+ * Only plain zips are handled - for anything we don't understand (zip64, encryption, a jar too
+ * big to map) use create, which falls back to a ZipFileArchiveReader.
+ *
+ * Closing unmaps the file, rather than leaving it to the GC - unless we've handed out a view of it, as
+ * then a class file may still be reading from the mapping, and unmapping it under them would crash the VM.
+ */
+class MappedArchiveReader implements ArchiveReader {
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int END_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    // Not guaranteed to exist, but it's what zip says names are if they're not UTF8.
+    private static final Charset DEFAULT_NAME_CHARSET = Charset.isSupported("IBM437") ? Charset.forName("IBM437") : UTF8;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries;
+    private boolean viewsShared = false;
+    private boolean closed = false;
+
+    private MappedArchiveReader(ByteBuffer buffer, Map<String, Entry> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    static ArchiveReader create(File file) throws IOException {
+        ArchiveReader res = null;
+        try {
+            res = tryCreate(file);
+        } catch (IOException e) {
+            // Fall through, let ZipFile have a go.
+        } catch (RuntimeException e) {
+            // Ditto - most likely we've been confused by something malformed.
+        }
+        return res != null ? res : new ZipFileArchiveReader(file);
+    }
+
+    private static ArchiveReader tryCreate(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < END_LENGTH) return null;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            Map<String, Entry> entries = readCentralDirectory(buffer);
+            if (entries == null) return null;
+            // The mapping stays valid once the channel is closed.
+            return new MappedArchiveReader(buffer, entries);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static Map<String, Entry> readCentralDirectory(ByteBuffer buffer) {
+        int end = findEnd(buffer);
+        if (end < 0) return null;
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        // Zip64 - not worth it.
+        if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL) return null;
+
+        Map<String, Entry> entries = MapFactory.newMap();
+        int pos = (int) directoryOffset;
+        for (int x = 0; x < count; ++x) {
+            if (buffer.getInt(pos) != CENTRAL_HEADER_SIG) return null;
+            int flags = buffer.getShort(pos + 8) & 0xFFFF;
+            int method = buffer.getShort(pos + 10) & 0xFFFF;
+            long compressedSize = buffer.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(pos + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(pos + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(pos + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(pos + 32) & 0xFFFF;
+            long localOffset = buffer.getInt(pos + 42) & 0xFFFFFFFFL;
+            if ((flags & FLAG_ENCRYPTED) != 0) return null;
+            if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) return null;
+            String name = getString(buffer, pos + 46, nameLength, (flags & FLAG_UTF8) != 0 ? UTF8 : DEFAULT_NAME_CHARSET);
+            // As with ZipFile, the first of any duplicates wins.
+            if (!entries.containsKey(name)) {
+                entries.put(name, new Entry(method, (int) compressedSize, (int) size, (int) localOffset));
+            }
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private static int findEnd(ByteBuffer buffer) {
+        int min = Math.max(0, buffer.limit() - END_LENGTH - MAX_COMMENT_LENGTH);
+        for (int pos = buffer.limit() - END_LENGTH; pos >= min; --pos) {
+            if (buffer.getInt(pos) == END_SIG) return pos;
+        }
+        return -1;
+    }
+
+    private static String getString(ByteBuffer buffer, int offset, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    private int getDataOffset(Entry entry) throws IOException {
+        if (closed) {
+            throw new IOException("Archive has been closed");
+        }
+        int pos = entry.localOffset;
+        if (buffer.getInt(pos) != LOCAL_HEADER_SIG) {
+            throw new IOException("Bad local header");
+        }
+        // Local name and extra may differ from the central copies.
+        int nameLength = buffer.getShort(pos + 26) & 0xFFFF;
+        int extraLength = buffer.getShort(pos + 28) & 0xFFFF;
+        return pos + 30 + nameLength + extraLength;
+    }
+
+    private ByteBuffer getStored(Entry entry) throws IOException {
+        ByteBuffer view = buffer.duplicate();
+        view.position(getDataOffset(entry));
+        view.limit(view.position() + entry.size);
+        return view.slice();
+    }
+
+    @Override
+    public byte[] getBytes(String path) throws IOException {
+        Entry entry = entries.get(path);
+        if (entry == null) return null;
+        switch (entry.method) {
+            case METHOD_STORED: {
+                byte[] res = new byte[entry.size];
+                getStored(entry).get(res);
+                return res;
+            }
+            case METHOD_DEFLATED:
+                return inflate(entry);
+            default:
+                throw new IOException("Unsupported compression method " + entry.method + " for " + path);
+        }
+    }
+
+    @Override
+    public ByteData getData(String path) throws IOException {
+        Entry entry = entries.get(path);
+        if (entry == null) return null;
+        if (entry.method == METHOD_STORED) {
+            ByteBuffer view = getStored(entry);
+            viewsShared = true;
+            return new BufferBackedByteData(view);
+        }
+        return new BaseByteData(getBytes(path));
+    }
+
+    private byte[] inflate(Entry entry) throws IOException {
+        byte[] compressed = new byte[entry.compressedSize];
+        ByteBuffer view = buffer.duplicate();
+        view.position(getDataOffset(entry));
+        view.get(compressed);
+        byte[] res = new byte[entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int offset = 0;
+            boolean padded = false;
+            while (offset < res.length) {
+                int read = inflater.inflate(res, offset, res.length - offset);
+                if (read == 0) {
+                    if (padded || !inflater.needsInput()) break;
+                    // Nowrap inflaters may want one more (dummy) byte to finish.
+                    inflater.setInput(new byte[1]);
+                    padded = true;
+                }
+                offset += read;
+            }
+            if (offset < res.length) {
+                throw new IOException("Could not completely inflate entry");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return res;
+    }
+
+    /*
+     * The channel was closed as soon as we'd mapped it, so this is just the mapping.  If views are
+     * still out there, (or we can't get at a cleaner) it goes when the last ByteData using it does.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (!viewsShared) {
+            Unmapper.unmap(buffer);
+        }
+    }
+
+    /*
+     * There's no supported way to unmap before Java 9+'s Unsafe.invokeCleaner, and that isn't supported
+     * either - so try that, then Java 6-8's DirectBuffer.cleaner(), and failing both, do nothing.
+     */
+    private static class Unmapper {
+        private static final Object unsafe;
+        private static final Method invokeCleaner;
+
+        static {
+            Object theUnsafe = null;
+            Method invoke = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invoke = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                theUnsafe = field.get(null);
+            } catch (Throwable e) {
+                invoke = null;
+            }
+            unsafe = theUnsafe;
+            invokeCleaner = invoke;
+        }
+
+        static void unmap(ByteBuffer buffer) {
+            try {
+                if (invokeCleaner != null) {
+                    invokeCleaner.invoke(unsafe, buffer);
+                    return;
+                }
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Throwable e) {
+                // Leave it to the GC.
+            }
+        }
+    }
+
+    private static class Entry {
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+        private final int localOffset;
+
+        private Entry(int method, int compressedSize, int size, int localOffset) {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localOffset = localOffset;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.apiunreleased.ClassFileSource2;
+import org.benf.cfr.reader.apiunreleased.JarContent;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/*
+ * Class file sources are allowed to be mutable (see ClassFileSource), so when several
+ * analysis threads share one, all access goes through a single lock.
+ */
+public class SynchronizedClassFileSource implements ClassFileSource2, LibraryAwareClassFileSource, ByteDataClassFileSource {
+    private final ClassFileSource2 classFileSource;
+
+    public SynchronizedClassFileSource(ClassFileSource2 classFileSource) {
+        this.classFileSource = classFileSource;
+    }
+
+    @Override
+    public synchronized JarContent addJarContent(String jarPath) {
+        return classFileSource.addJarContent(jarPath);
+    }
+
+    @Override
+    public synchronized void informAnalysisRelativePathDetail(String usePath, String classFilePath) {
+        classFileSource.informAnalysisRelativePathDetail(usePath, classFilePath);
+    }
+
+    @Override
+    public synchronized Collection<String> addJar(String jarPath) {
+        return classFileSource.addJar(jarPath);
+    }
+
+    @Override
+    public synchronized String getPossiblyRenamedPath(String path) {
+        return classFileSource.getPossiblyRenamedPath(path);
+    }
+
+    @Override
+    public synchronized Pair<byte[], String> getClassFileContent(String path) throws IOException {
+        return classFileSource.getClassFileContent(path);
+    }
+
+    @Override
+    public synchronized Pair<ByteData, String> getClassFileData(String path) throws IOException {
+        if (classFileSource instanceof ByteDataClassFileSource) {
+            return ((ByteDataClassFileSource) classFileSource).getClassFileData(path);
+        }
+        Pair<byte[], String> content = classFileSource.getClassFileContent(path);
+        return Pair.<ByteData, String>make(new BaseByteData(content.getFirst()), content.getSecond());
+    }
+
+    @Override
+    public synchronized boolean isLibraryClass(String path) {
+        return classFileSource instanceof LibraryAwareClassFileSource &&
+                ((LibraryAwareClassFileSource) classFileSource).isLibraryClass(path);
+    }
+}
@@ -0,0 +1,35 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+class ZipFileArchiveReader implements ArchiveReader {
+    private final ZipFile zipFile;
+
+    ZipFileArchiveReader(File file) throws IOException {
+        this.zipFile = new ZipFile(file, ZipFile.OPEN_READ);
+    }
+
+    @Override
+    public byte[] getBytes(String path) throws IOException {
+        ZipEntry zipEntry = zipFile.getEntry(path);
+        if (zipEntry == null) return null;
+        return ClassFileSourceImpl.getBytesFromFile(zipFile.getInputStream(zipEntry), zipEntry.getSize());
+    }
+
+    @Override
+    public ByteData getData(String path) throws IOException {
+        byte[] bytes = getBytes(path);
+        return bytes == null ? null : new BaseByteData(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+}
@@ -0,0 +1,7 @@
+package org.benf.cfr.reader.util;
+
+public class AnalysisBudgetExceededException extends ConfusedCFRException {
+    public AnalysisBudgetExceededException(String s) {
+        super(s);
+    }
+}
@@ -31,6 +31,7 @@ public class DecompilerComment implements Dumpable {
     public static DecompilerComment BAD_ANNOTATION = new DecompilerComment("Issues handling annotations - annotations may be inaccurate");
     public static DecompilerComment CASE_CLASH_FS = new DecompilerComment("Classes with case insensitive name clashes seen, and your FS appears to be case insensitive - consider using --" + OptionsImpl.CASE_INSENSITIVE_FS_RENAME.getName() + " true");
     public static DecompilerComment DYNAMIC_CONSTANTS = new DecompilerComment("Uses jvm11+ dynamic constants - pseudocode provided - see https://www.benf.org/other/cfr/dynamic-constants.html");
+    public static DecompilerComment ANALYSIS_BUDGET = new DecompilerComment("Analysis abandoned - method exceeded its budget.  Consider raising --" + OptionsImpl.METHOD_TIME_LIMIT.getName() + " / --" + OptionsImpl.METHOD_WORK_LIMIT.getName(), true);
     public static DecompilerComment MULTI_VERSION = new DecompilerComment("Multiple versions of this class in jar - see https://www.benf.org/other/cfr/multi-version-jar.html");
 
     private final String comment;
@@ -2,83 +2,100 @@ package org.benf.cfr.reader.util.bytestream;
 
 import org.benf.cfr.reader.util.ConfusedCFRException;
 
-import java.io.DataInputStream;
-
+/*
+ * Decodes big endian values directly from the backing array - these are called for every
+ * constant, attribute and instruction we read, so mustn't allocate.
+ */
 public abstract class AbstractBackedByteData implements ByteData {
+    final byte[] data;
+
+    AbstractBackedByteData(byte[] data) {
+        this.data = data;
+    }
+
+    /*
+     * Position in data of o, relative to wherever we are.
+     */
+    abstract int getRealOffset(long o);
 
-    abstract DataInputStream rawDataAsStream(int offset, int length);
+    @Override
+    public byte getS1At(long o) {
+        return data[getRealOffset(o)];
+    }
 
     @Override
     public int getS4At(long o) throws ConfusedCFRException {
-        // Let's find an EFFICIENT way to do this later!
-        DataInputStream dis = rawDataAsStream((int) o, 4);
         try {
-            return dis.readInt();
-        } catch (Exception e) {
+            int i = getRealOffset(o);
+            return ((data[i] & 0xFF) << 24) |
+                    ((data[i + 1] & 0xFF) << 16) |
+                    ((data[i + 2] & 0xFF) << 8) |
+                    (data[i + 3] & 0xFF);
+        } catch (IndexOutOfBoundsException e) {
             throw new ConfusedCFRException(e);
         }
     }
 
     @Override
     public double getDoubleAt(long o) throws ConfusedCFRException {
-        DataInputStream dis = rawDataAsStream((int) o, 8);
-        try {
-            return dis.readDouble();
-        } catch (Exception e) {
-            throw new ConfusedCFRException(e);
-        }
+        return Double.longBitsToDouble(getLongAt(o));
     }
 
     @Override
     public float getFloatAt(long o) throws ConfusedCFRException {
-        DataInputStream dis = rawDataAsStream((int) o, 8);
-        try {
-            return dis.readFloat();
-        } catch (Exception e) {
-            throw new ConfusedCFRException(e);
-        }
+        return Float.intBitsToFloat(getS4At(o));
     }
 
     @Override
     public long getLongAt(long o) throws ConfusedCFRException {
-        DataInputStream dis = rawDataAsStream((int) o, 8);
         try {
-            return dis.readLong();
-        } catch (Exception e) {
+            int i = getRealOffset(o);
+            return ((long) (data[i] & 0xFF) << 56) |
+                    ((long) (data[i + 1] & 0xFF) << 48) |
+                    ((long) (data[i + 2] & 0xFF) << 40) |
+                    ((long) (data[i + 3] & 0xFF) << 32) |
+                    ((long) (data[i + 4] & 0xFF) << 24) |
+                    ((data[i + 5] & 0xFF) << 16) |
+                    ((data[i + 6] & 0xFF) << 8) |
+                    (data[i + 7] & 0xFF);
+        } catch (IndexOutOfBoundsException e) {
             throw new ConfusedCFRException(e);
         }
     }
 
     @Override
     public short getS2At(long o) throws ConfusedCFRException {
-        // Let's find an EFFICIENT way to do this later!
-        DataInputStream dis = rawDataAsStream((int) o, 2);
         try {
-            return dis.readShort();
-        } catch (Exception e) {
+            int i = getRealOffset(o);
+            return (short) (((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF));
+        } catch (IndexOutOfBoundsException e) {
             throw new ConfusedCFRException(e);
         }
     }
 
     @Override
     public int getU2At(long o) throws ConfusedCFRException {
-        // Let's find an EFFICIENT way to do this later!
-        DataInputStream dis = rawDataAsStream((int) o, 2);
         try {
-            return dis.readUnsignedShort();
-        } catch (Exception e) {
+            int i = getRealOffset(o);
+            return ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+        } catch (IndexOutOfBoundsException e) {
             throw new ConfusedCFRException(e);
         }
     }
 
     @Override
     public short getU1At(long o) throws ConfusedCFRException {
-        // Let's find an EFFICIENT way to do this later!
-        DataInputStream dis = rawDataAsStream((int) o, 1);
         try {
-            return (short) dis.readUnsignedByte();
-        } catch (Exception e) {
+            return (short) (data[getRealOffset(o)] & 0xFF);
+        } catch (IndexOutOfBoundsException e) {
             throw new ConfusedCFRException(e);
         }
     }
+
+    @Override
+    public byte[] getBytesAt(int count, long offset) {
+        byte[] res = new byte[count];
+        System.arraycopy(data, getRealOffset(offset), res, 0, count);
+        return res;
+    }
 }
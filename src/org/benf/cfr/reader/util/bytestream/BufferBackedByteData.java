@@ -0,0 +1,121 @@
+package org.benf.cfr.reader.util.bytestream;
+
+import org.benf.cfr.reader.util.ConfusedCFRException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * As AbstractBackedByteData, but reading from a buffer (eg a view of a mapped jar), so the class
+ * file never needs copying into an array.
+ *
+ * Only absolute gets are used, so the buffer itself is never modified.
+ */
+public class BufferBackedByteData implements OffsettingByteData {
+    private final ByteBuffer data;
+    private final int originalOffset;
+    private int mutableOffset;
+
+    public BufferBackedByteData(ByteBuffer data) {
+        this(data.slice().order(ByteOrder.BIG_ENDIAN), 0);
+    }
+
+    private BufferBackedByteData(ByteBuffer data, int offset) {
+        this.data = data;
+        this.originalOffset = offset;
+        this.mutableOffset = 0;
+    }
+
+    private int getRealOffset(long o) {
+        return (int) (originalOffset + mutableOffset + o);
+    }
+
+    @Override
+    public void advance(long offset) {
+        mutableOffset += offset;
+    }
+
+    @Override
+    public long getOffset() {
+        return mutableOffset;
+    }
+
+    @Override
+    public byte getS1At(long o) {
+        return data.get(getRealOffset(o));
+    }
+
+    @Override
+    public short getU1At(long o) throws ConfusedCFRException {
+        try {
+            return (short) (data.get(getRealOffset(o)) & 0xFF);
+        } catch (IndexOutOfBoundsException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public short getS2At(long o) throws ConfusedCFRException {
+        try {
+            return data.getShort(getRealOffset(o));
+        } catch (IndexOutOfBoundsException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public int getU2At(long o) throws ConfusedCFRException {
+        try {
+            return data.getShort(getRealOffset(o)) & 0xFFFF;
+        } catch (IndexOutOfBoundsException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public int getS4At(long o) throws ConfusedCFRException {
+        try {
+            return data.getInt(getRealOffset(o));
+        } catch (IndexOutOfBoundsException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public double getDoubleAt(long o) throws ConfusedCFRException {
+        return Double.longBitsToDouble(getLongAt(o));
+    }
+
+    @Override
+    public float getFloatAt(long o) throws ConfusedCFRException {
+        return Float.intBitsToFloat(getS4At(o));
+    }
+
+    @Override
+    public long getLongAt(long o) throws ConfusedCFRException {
+        try {
+            return data.getLong(getRealOffset(o));
+        } catch (IndexOutOfBoundsException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    @Override
+    public byte[] getBytesAt(int count, long offset) {
+        byte[] res = new byte[count];
+        ByteBuffer view = data.duplicate();
+        view.position(getRealOffset(offset));
+        view.get(res);
+        return res;
+    }
+
+    @Override
+    public ByteData getOffsetData(long offset) {
+        return new BufferBackedByteData(data, getRealOffset(offset));
+    }
+
+    @Override
+    public OffsettingByteData getOffsettingOffsetData(long offset) {
+        return new BufferBackedByteData(data, getRealOffset(offset));
+    }
+}
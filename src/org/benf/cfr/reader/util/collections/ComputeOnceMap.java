@@ -0,0 +1,98 @@
+package org.benf.cfr.reader.util.collections;
+
+import org.benf.cfr.reader.util.functors.UnaryFunction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Thread safe equivalent of LazyExceptionRetainingMap.
+ *
+ * The factory is called at most once per key, even when several threads ask for the same key at the
+ * same time - the losers wait for the winner's result.  As with LazyExceptionRetainingMap, if the
+ * factory throws, the exception is retained and rethrown to everyone who subsequently asks.
+ */
+public class ComputeOnceMap<X, Y> {
+    private final ConcurrentMap<X, Slot<Y>> inner = new ConcurrentHashMap<X, Slot<Y>>();
+    private final UnaryFunction<X, Y> factory;
+
+    public ComputeOnceMap(UnaryFunction<X, Y> factory) {
+        this.factory = factory;
+    }
+
+    public Y get(X key) {
+        Slot<Y> slot = inner.get(key);
+        if (slot == null) {
+            Slot<Y> newSlot = new Slot<Y>();
+            slot = inner.putIfAbsent(key, newSlot);
+            if (slot == null) {
+                return compute(key, newSlot);
+            }
+        }
+        if (slot.isBeingComputedHere()) {
+            // We've been asked for a key we're already in the middle of producing.  Waiting would
+            // deadlock, so (as LazyMap would) just produce another one.
+            return factory.invoke(key);
+        }
+        return slot.get();
+    }
+
+    public boolean containsKey(X key) {
+        return inner.containsKey(key);
+    }
+
+    public int size() {
+        return inner.size();
+    }
+
+    private Y compute(X key, Slot<Y> slot) {
+        Y value;
+        try {
+            value = factory.invoke(key);
+        } catch (RuntimeException e) {
+            slot.set(null, e);
+            throw e;
+        } catch (Error e) {
+            // Not something we want to remember - let the next caller try again.
+            inner.remove(key, slot);
+            slot.set(null, new IllegalStateException(e));
+            throw e;
+        }
+        slot.set(value, null);
+        return value;
+    }
+
+    private static class Slot<Y> {
+        private final Thread owner = Thread.currentThread();
+        private boolean done = false;
+        private Y value;
+        private RuntimeException exception;
+
+        synchronized void set(Y value, RuntimeException exception) {
+            this.value = value;
+            this.exception = exception;
+            this.done = true;
+            notifyAll();
+        }
+
+        synchronized boolean isBeingComputedHere() {
+            return !done && owner == Thread.currentThread();
+        }
+
+        synchronized Y get() {
+            boolean interrupted = false;
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (exception != null) throw exception;
+            return value;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class OptionsImpl implements Options {
     private final Map<String, String> opts;
@@ -383,6 +384,12 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> OUTPUT_PATH = new PermittedOptionProvider.Argument<String>(
             "outputpath", defaultNullStringDecoder,
             "Decompile to files in [directory]");
+    public static final PermittedOptionProvider.Argument<String> OUTPUT_ZIP = new PermittedOptionProvider.Argument<String>(
+            "outputzip", defaultNullStringDecoder,
+            "Decompile into a single zip (a sources jar), rather than a file per class.  Multi release classes go under META-INF/versions, as they would in a directory.");
+    public static final PermittedOptionProvider.Argument<String> REPORT = new PermittedOptionProvider.Argument<String>(
+            "report", defaultNullStringDecoder,
+            "Write a machine readable report to this file - a line of JSON per top level class, with analysis time, recovery passes used, failures and size of output.");
     public static final PermittedOptionProvider.Argument<Troolean> CLOBBER_FILES = new PermittedOptionProvider.Argument<Troolean>(
             "clobber", defaultNeitherTrooleanDecoder,
             "Overwrite files when using outputpath");
@@ -455,6 +462,12 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> EXTRA_CLASS_PATH = new PermittedOptionProvider.Argument<String>(
             "extraclasspath", defaultNullStringDecoder,
             "additional class path - classes in this classpath will be used if needed.");
+    public static final PermittedOptionProvider.Argument<String> CLASS_PATH_CACHE = new PermittedOptionProvider.Argument<String>(
+            "classpathcache", defaultNullStringDecoder,
+            "Directory in which to keep an index of the jars on the class path between runs.  Only jars which have changed since are rescanned.");
+    public static final PermittedOptionProvider.Argument<String> INCREMENTAL_CACHE = new PermittedOptionProvider.Argument<String>(
+            "incrementalcache", defaultNullStringDecoder,
+            "Directory in which to keep the output for each class of a jar.  On later runs, classes which (along with the classes they depend on) haven't changed are copied from here rather than decompiled again.  Implies each class is analysed on its own, as with more than one thread.  Only the most recently used 65536 classes are kept.");
     public static final PermittedOptionProvider.Argument<Boolean> PULL_CODE_CASE = new PermittedOptionProvider.Argument<Boolean>(
             "pullcodecase", defaultFalseBooleanDecoder,
             "Pull code into case statements agressively.");
@@ -467,6 +480,36 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<Boolean> LOMEM = new PermittedOptionProvider.Argument<Boolean>(
             "lomem", defaultFalseBooleanDecoder,
             "Be more agressive about uncaching in order to reduce memory footprint.");
+    public static final PermittedOptionProvider.Argument<Integer> METHOD_TIME_LIMIT = new PermittedOptionProvider.Argument<Integer>(
+            "methodtimelimit", default0intDecoder,
+            "Give up analysing a method (including any recovery passes) once this many milliseconds have been spent on it, and emit it as a failure.  This is checked as each analysis pass completes, so a single slow pass can overrun it.  0 for no limit.");
+    public static final PermittedOptionProvider.Argument<Integer> METHOD_WORK_LIMIT = new PermittedOptionProvider.Argument<Integer>(
+            "methodworklimit", default0intDecoder,
+            "Give up analysing a method once (instruction count * analysis passes run) exceeds this, and emit it as a failure.  This is checked as each analysis pass completes, so a single pass can overrun it.  0 for no limit.");
+    public static final PermittedOptionProvider.Argument<Boolean> ANALYSIS_PASS_TIMINGS = new PermittedOptionProvider.Argument<Boolean>(
+            "passtimings", defaultFalseBooleanDecoder,
+            "Time each analysis pass, and print a report of where time went (by pass, and slowest methods) to stderr at the end.");
+    public static final PermittedOptionProvider.Argument<Boolean> ANALYSIS_PASS_ALLOCATIONS = new PermittedOptionProvider.Argument<Boolean>(
+            "passallocations", defaultFalseBooleanDecoder,
+            "When timing analysis passes, also measure bytes allocated by each (if the VM supports it).");
+    public static final PermittedOptionProvider.Argument<Boolean> MMAP_JARS = new PermittedOptionProvider.Argument<Boolean>(
+            "mmapjars", defaultFalseBooleanDecoder,
+            "Read jars by mapping them into memory, rather than through ZipFile.  Uncompressed classes are then read without copying.");
+    public static final PermittedOptionProvider.Argument<Integer> CLASS_CACHE_SIZE = new PermittedOptionProvider.Argument<Integer>(
+            "classcachesize", default0intDecoder,
+            "Maximum number of library classes (only needed to resolve types) to keep loaded - others are reloaded if needed again.  0 for unbounded.  How the cache fared goes in the report, if asked for.");
+    public static final PermittedOptionProvider.Argument<Boolean> CLASS_CACHE_SOFT = new PermittedOptionProvider.Argument<Boolean>(
+            "classcachesoft", defaultFalseBooleanDecoder,
+            "When classcachesize is set, keep library classes which fall out of the cache softly reachable, rather than dropping them.");
+    public static final PermittedOptionProvider.Argument<Boolean> SHARE_LIBRARY_STATE = new PermittedOptionProvider.Argument<Boolean>(
+            "sharelibrarystate", defaultFalseBooleanDecoder,
+            "When analysing several inputs, load classes from the class path / runtime once, and share them between inputs.");
+    public static final PermittedOptionProvider.Argument<String> SERVER = new PermittedOptionProvider.Argument<String>(
+            "server", defaultNullStringDecoder,
+            "Rather than decompiling the files given, keep running, and decompile requests read from stdin ('stdio') or from connections to this port on localhost.  Library classes are loaded once and shared between requests.  Connections to the port must first send the token printed at startup.  Requests may only give options which affect analysis, not output locations or caches.");
+    public static final PermittedOptionProvider.Argument<Integer> THREADS = new PermittedOptionProvider.Argument<Integer>(
+            "threads", new DefaultingIntDecoder(1),
+            "Number of threads to use when decompiling a jar.  With more than one, each class is analysed independently of the others, so output is the same whatever the number of threads - but may differ in details from single threaded output, where each class can see the results of analysing those before it.");
 
     public OptionsImpl(Map<String, String> opts) {
         this.opts = new HashMap<String, String>(opts);
@@ -487,6 +530,13 @@ public class OptionsImpl implements Options {
         return opts.get(option.getName()) != null;
     }
 
+    /*
+     * Everything which was explicitly set, sorted by name.
+     */
+    public Map<String, String> getExplicitOptions() {
+        return new TreeMap<String, String>(opts);
+    }
+
     public static GetOptSinkFactory<Options> getFactory() {
         return new CFRFactory();
     }
@@ -507,15 +557,17 @@ public class OptionsImpl implements Options {
                     REMOVE_DEAD_METHODS, REMOVE_BAD_GENERICS, SUGAR_ASSERTS, SUGAR_BOXING, SHOW_CFR_VERSION,
                     DECODE_FINALLY, TIDY_MONITORS, LENIENT, DUMP_CLASS_PATH,
                     DECOMPILER_COMMENTS, FORCE_TOPSORT, FORCE_TOPSORT_EXTRA, FORCE_PRUNE_EXCEPTIONS, OUTPUT_DIR,
-                    OUTPUT_PATH, CLOBBER_FILES, JAR_FILTER,
+                    OUTPUT_PATH, OUTPUT_ZIP, REPORT, CLOBBER_FILES, JAR_FILTER,
                     SUGAR_STRINGBUFFER, SUGAR_STRINGBUILDER, SUGAR_STRINGCONCATFACTORY, SILENT, RECOVER, ECLIPSE, OVERRIDES, SHOW_INFERRABLE,
                     FORCE_AGGRESSIVE_EXCEPTION_AGG, FORCE_COND_PROPAGATE, HIDE_UTF8, HIDE_LONGSTRINGS, COMMENT_MONITORS,
                     ALLOW_CORRECTING, LABELLED_BLOCKS, JAVA_4_CLASS_OBJECTS, HIDE_LANG_IMPORTS, FORCE_PASS,
                     RECOVER_TYPECLASHES, USE_RECOVERED_ITERATOR_TYPE_HINTS,
                     FORCE_RETURNING_IFS, ANALYSE_AS, FOR_LOOP_CAPTURE, RENAME_DUP_MEMBERS, RENAME_ENUM_MEMBERS,
                     RENAME_SMALL_MEMBERS, RENAME_ILLEGAL_IDENTS, RENAME_MEMBERS, USE_NAME_TABLE,
-                    AGGRESSIVE_SIZE_REDUCTION_THRESHOLD, EXTRA_CLASS_PATH, PULL_CODE_CASE, HELP, ELIDE_SCALA,
-                    CASE_INSENSITIVE_FS_RENAME, RELINK_CONSTANT_STRINGS, REWRITE_TRY_RESOURCES, IGNORE_EXCEPTIONS, IGNORE_EXCEPTIONS_ALWAYS, METHODNAME, SKIP_BATCH_INNER_CLASSES);
+                    AGGRESSIVE_SIZE_REDUCTION_THRESHOLD, EXTRA_CLASS_PATH, CLASS_PATH_CACHE, INCREMENTAL_CACHE, PULL_CODE_CASE, HELP, ELIDE_SCALA,
+                    CASE_INSENSITIVE_FS_RENAME, RELINK_CONSTANT_STRINGS, REWRITE_TRY_RESOURCES, IGNORE_EXCEPTIONS, IGNORE_EXCEPTIONS_ALWAYS, METHODNAME, SKIP_BATCH_INNER_CLASSES, THREADS, SHARE_LIBRARY_STATE,
+                    CLASS_CACHE_SIZE, CLASS_CACHE_SOFT, MMAP_JARS, ANALYSIS_PASS_TIMINGS,
+                    ANALYSIS_PASS_ALLOCATIONS, METHOD_TIME_LIMIT, METHOD_WORK_LIMIT, SERVER);
         }
 
         @Override
@@ -0,0 +1,155 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.DecompilerCommentSource;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.*;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/*
+ * Everything we'd otherwise write under an output directory, written into a single zip instead -
+ * one file to create rather than one per class (and per directory), which matters a great deal on
+ * some file systems.
+ *
+ * Classes are dumped one at a time, so there's only ever one entry open.  Summaries (there's one
+ * per input) are kept until the end, and all go in summary.txt.
+ *
+ * A class whose entry has already been written (eg it's in two inputs) gets a numbered name instead.
+ */
+public class ArchiveOutput {
+    private static final Logger logger = LoggerFactory.create(ArchiveOutput.class);
+    private static final String SUMMARY = "summary.txt";
+
+    private final ZipOutputStream zip;
+    // Same encoding as FileDumper would have used.
+    private final Writer writer;
+    private final Options options;
+    private final Set<String> names = SetFactory.newSet();
+    private final StringBuilder summary = new StringBuilder();
+
+    public ArchiveOutput(Options options) {
+        this.options = options;
+        File file = new File(options.getOption(OptionsImpl.OUTPUT_ZIP));
+        if (file.exists() && !options.getOption(OptionsImpl.CLOBBER_FILES).boolValue(true)) {
+            throw new Dumper.CannotCreate("File already exists, and option '" + OptionsImpl.CLOBBER_FILES.getName() + "' not set");
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Couldn't create dir: " + parent);
+        }
+        try {
+            this.zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        } catch (FileNotFoundException e) {
+            throw new Dumper.CannotCreate(e);
+        }
+        this.writer = new OutputStreamWriter(zip);
+    }
+
+    /*
+     * prefix is as given to DumperFactory.getFactoryWithPrefix, eg /META-INF/versions/9/
+     */
+    Dumper getNewTopLevelDumper(String prefix, JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
+        Pair<String, String> names = ClassNameUtils.getPackageAndClassNames(classType.getRawName());
+        String packageName = names.getFirst();
+        String base = prefix + (packageName.length() == 0 ? "" : packageName.replace('.', '/') + "/") + names.getSecond();
+        while (base.startsWith("/")) base = base.substring(1);
+        String name = base + ".java";
+        if (!this.names.add(name)) {
+            /*
+             * Eg the same class in two inputs.  A directory would just have the later one - but a zip can't
+             * replace an entry, and would be no use with two of the same name, so keep both.
+             */
+            String renamed;
+            int idx = 0;
+            do {
+                renamed = base + "_cfr_" + (idx++) + ".java";
+            } while (!this.names.add(renamed));
+            String message = name + " was already written, so " + classType.getRawName() + " was written to " + renamed + " instead.";
+            logger.warning(message);
+            summaryDumper.notify(message);
+            name = renamed;
+        }
+        startEntry(name);
+        return new EntryDumper(classType, summaryDumper, typeUsageInformation, illegalIdentifierDump);
+    }
+
+    SummaryDumper getSummaryDumper(DecompilerCommentSource additional) {
+        return new FileSummaryDumper(new StringWriter() {
+            @Override
+            public void close() {
+                summary.append(getBuffer());
+            }
+        }, options, additional);
+    }
+
+    private void startEntry(String name) {
+        try {
+            zip.putNextEntry(new ZipEntry(name));
+        } catch (IOException e) {
+            throw new Dumper.CannotCreate(e);
+        }
+    }
+
+    private void endEntry() {
+        try {
+            writer.flush();
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            if (summary.length() > 0 && names.add(SUMMARY)) {
+                zip.putNextEntry(new ZipEntry(SUMMARY));
+                writer.write(summary.toString());
+                writer.flush();
+                zip.closeEntry();
+            }
+            writer.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class EntryDumper extends StreamDumper {
+        private final JavaTypeInstance type;
+        private final SummaryDumper summaryDumper;
+
+        private EntryDumper(JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
+            super(typeUsageInformation, options, illegalIdentifierDump);
+            this.type = type;
+            this.summaryDumper = summaryDumper;
+        }
+
+        @Override
+        protected void write(String s) {
+            try {
+                writer.write(s);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            endEntry();
+        }
+
+        @Override
+        public void addSummaryError(Method method, String s) {
+            summaryDumper.notifyError(type, method, s);
+        }
+    }
+}
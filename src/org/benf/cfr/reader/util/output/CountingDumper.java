@@ -0,0 +1,55 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+
+/*
+ * Passes everything through to a real (stream) dumper, counting the characters and lines it will
+ * have written - but without keeping them.
+ */
+public class CountingDumper extends TeeDumper {
+    private final Counter counter;
+
+    public CountingDumper(Dumper delegate, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+        this(delegate, new Counter(delegate.getTypeUsageInformation(), options, illegalIdentifierDump));
+    }
+
+    private CountingDumper(Dumper delegate, Counter counter) {
+        super(delegate, counter);
+        this.counter = counter;
+    }
+
+    public long getChars() {
+        return counter.chars;
+    }
+
+    public long getLines() {
+        return counter.lines;
+    }
+
+    private static class Counter extends StreamDumper {
+        private long chars;
+        private long lines;
+
+        private Counter(TypeUsageInformation typeUsageInformation, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+            super(typeUsageInformation, options, illegalIdentifierDump);
+        }
+
+        @Override
+        protected void write(String s) {
+            chars += s.length();
+            for (int x = s.indexOf('\n'); x != -1; x = s.indexOf('\n', x + 1)) {
+                lines++;
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void addSummaryError(Method method, String s) {
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.AnalysisOutcome;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.entities.attributes.AttributeCode;
+import org.benf.cfr.reader.state.EvictingClassFileCache;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.*;
+import java.util.Map;
+
+/*
+ * A machine readable account of how decompilation went - one JSON object per line (JSON Lines),
+ * per top level class, written as soon as that class has been dumped.  eg
+ *
+ * {"input":"a.jar","class":"a.B","cached":false,"analysisMicros":1234,"methods":4,"methodMicros":1100,
+ *  "recoveryPasses":{"initial":3,"recpass2":1},"failedMethods":1,"failures":{"ConfusedCFRException":1},
+ *  "outputChars":2345,"outputLines":67}
+ *
+ * recoveryPasses counts methods by the recovery pass whose result was used - "initial" for the first
+ * attempt, otherwise "recpassN", where --recpass N would reproduce it.
+ *
+ * A class whose output came from the incremental cache has no analysis details.  A class which couldn't
+ * be analysed or dumped at all has "error".
+ *
+ * If the number of library class files held is bounded (--classcachesize), each input ends with a record
+ * of how that cache fared, eg
+ *
+ * {"input":"a.jar","classCache":{"hits":1200,"misses":300,"evictions":44,"size":256}}
+ *
+ * (With --sharelibrarystate, that's the shared cache, so counts are for the run so far.)
+ *
+ * Nothing here does any more work than counting what's already being done.
+ */
+public class DecompilationReport {
+    private static final String UTF8 = "UTF-8";
+
+    private final Writer writer;
+    private volatile String input;
+
+    public DecompilationReport(Options options) {
+        File file = new File(options.getOption(OptionsImpl.REPORT));
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Couldn't create dir: " + parent);
+        }
+        try {
+            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8));
+        } catch (IOException e) {
+            throw new Dumper.CannotCreate(e);
+        }
+    }
+
+    /*
+     * The file / jar being analysed, which subsequent records will be tagged with.
+     */
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public void inputComplete(EvictingClassFileCache.Statistics classCache) {
+        if (classCache == null) return;
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        appendString(sb, "input", input).append(',');
+        appendQuoted(sb, "classCache").append(":{");
+        sb.append("\"hits\":").append(classCache.getHits());
+        sb.append(",\"misses\":").append(classCache.getMisses());
+        sb.append(",\"evictions\":").append(classCache.getEvictions());
+        sb.append(",\"size\":").append(classCache.getSize());
+        sb.append("}}");
+        write(sb.toString());
+    }
+
+    public Entry start(JavaTypeInstance type) {
+        return new Entry(type);
+    }
+
+    private synchronized void write(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+            // Records are of most use as they happen.
+            writer.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * One top level class.  Used by one thread at a time.
+     */
+    public class Entry {
+        private final JavaTypeInstance type;
+        private final long startTime = System.nanoTime();
+        private long analysisNanos = -1;
+        private int methods;
+        private long methodNanos;
+        private int failedMethods;
+        private final Map<String, Integer> recoveryPasses = MapFactory.newTreeMap();
+        private final Map<String, Integer> failures = MapFactory.newTreeMap();
+        private CountingDumper counter;
+        private String cached;
+        private String error;
+
+        private Entry(JavaTypeInstance type) {
+            this.type = type;
+        }
+
+        /*
+         * Call once the class (and its inner classes) have been analysed, and before code is released.
+         */
+        public void analysed(ClassFile classFile) {
+            analysisNanos = System.nanoTime() - startTime;
+            addMethods(classFile);
+        }
+
+        private void addMethods(ClassFile classFile) {
+            for (Method method : classFile.getMethods()) {
+                if (!method.hasCodeAttribute()) continue;
+                AttributeCode code = method.getCodeAttribute();
+                AnalysisOutcome outcome = code.getAnalysisOutcome();
+                if (outcome == null) continue;
+                methods++;
+                methodNanos += outcome.getNanos();
+                int pass = outcome.getRecoveryPass();
+                increment(recoveryPasses, pass == AnalysisOutcome.INITIAL_PASS ? "initial" : OptionsImpl.FORCE_PASS.getName() + pass);
+                if (outcome.getFailure() != null) {
+                    failedMethods++;
+                    increment(failures, outcome.getFailure());
+                }
+            }
+            for (ClassFile inner : classFile.getInnerClassFiles()) {
+                addMethods(inner);
+            }
+        }
+
+        /*
+         * Returns a dumper which should be used in place of d, so that we can count what's written.
+         */
+        public Dumper count(Dumper d, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+            counter = new CountingDumper(d, options, illegalIdentifierDump);
+            return counter;
+        }
+
+        public void cached(String text) {
+            cached = text;
+        }
+
+        public void failed(Throwable t) {
+            error = t.toString();
+        }
+
+        public void finish() {
+            StringBuilder sb = new StringBuilder();
+            sb.append('{');
+            appendString(sb, "input", input).append(',');
+            appendString(sb, "class", type.getRawName()).append(',');
+            sb.append("\"cached\":").append(cached != null);
+            if (analysisNanos >= 0) {
+                sb.append(",\"analysisMicros\":").append(analysisNanos / 1000);
+                sb.append(",\"methods\":").append(methods);
+                sb.append(",\"methodMicros\":").append(methodNanos / 1000);
+                sb.append(",\"recoveryPasses\":");
+                appendCounts(sb, recoveryPasses);
+                sb.append(",\"failedMethods\":").append(failedMethods);
+                sb.append(",\"failures\":");
+                appendCounts(sb, failures);
+            }
+            if (cached != null) {
+                sb.append(",\"outputChars\":").append(cached.length());
+                sb.append(",\"outputLines\":").append(countLines(cached));
+            } else if (counter != null) {
+                sb.append(",\"outputChars\":").append(counter.getChars());
+                sb.append(",\"outputLines\":").append(counter.getLines());
+            }
+            if (error != null) {
+                sb.append(',');
+                appendString(sb, "error", error);
+            }
+            sb.append('}');
+            write(sb.toString());
+        }
+    }
+
+    private static <T> void increment(Map<T, Integer> counts, T key) {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static long countLines(String s) {
+        long res = 0;
+        for (int x = s.indexOf('\n'); x != -1; x = s.indexOf('\n', x + 1)) {
+            res++;
+        }
+        return res;
+    }
+
+    private static <T> void appendCounts(StringBuilder sb, Map<T, Integer> counts) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<T, Integer> entry : counts.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            appendQuoted(sb, entry.getKey().toString()).append(':').append(entry.getValue());
+        }
+        sb.append('}');
+    }
+
+    private static StringBuilder appendString(StringBuilder sb, String key, String value) {
+        appendQuoted(sb, key);
+        sb.append(':');
+        if (value == null) return sb.append("null");
+        return appendQuoted(sb, value);
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int x = 0; x < s.length(); ++x) {
+            char c = s.charAt(x);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+}
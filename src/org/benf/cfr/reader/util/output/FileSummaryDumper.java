@@ -19,8 +19,19 @@ public class FileSummaryDumper implements SummaryDumper {
     private transient Method lastMethod = null;
 
     public FileSummaryDumper(String dir, Options options, DecompilerCommentSource additional) {
-        additionalComments = additional;
+        this(createWriter(dir), options, additional);
+    }
+
+    /*
+     * Summary goes to writer (which is closed along with us) rather than a file.
+     */
+    public FileSummaryDumper(Writer writer, Options options, DecompilerCommentSource additional) {
+        this.additionalComments = additional;
         this.options = options;
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+    }
+
+    private static BufferedWriter createWriter(String dir) {
         String fileName = dir + File.separator + "summary.txt";
         try {
             File file = new File(fileName);
@@ -28,7 +39,7 @@ public class FileSummaryDumper implements SummaryDumper {
             if (!parent.exists() && !parent.mkdirs()) {
                 throw new IllegalStateException("Couldn't create dir: " + parent);
             }
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)));
+            return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)));
         } catch (FileNotFoundException e) {
             throw new Dumper.CannotCreate(e);
         }
@@ -20,17 +20,26 @@ public class InternalDumperFactoryImpl implements DumperFactory {
     private final Options options;
     private final ProgressDumper progressDumper;
     private final String prefix;
+    private final ArchiveOutput archiveOutput;
 
 
     public InternalDumperFactoryImpl(Options options) {
+        this(options, null);
+    }
+
+    /*
+     * If given an archive, everything goes in that, rather than to files or stdout.
+     */
+    public InternalDumperFactoryImpl(Options options, ArchiveOutput archiveOutput) {
         this.checkDupes = CaseSensitiveFileSystemHelper.IsCaseSensitive() && !options.getOption(OptionsImpl.CASE_INSENSITIVE_FS_RENAME);
         this.options = options;
-        if (!options.getOption(OptionsImpl.SILENT) && (options.optionIsSet(OptionsImpl.OUTPUT_DIR) || options.optionIsSet(OptionsImpl.OUTPUT_PATH))) {
+        if (!options.getOption(OptionsImpl.SILENT) && (options.optionIsSet(OptionsImpl.OUTPUT_DIR) || options.optionIsSet(OptionsImpl.OUTPUT_PATH) || archiveOutput != null)) {
             progressDumper = new ProgressDumperStdErr();
         } else {
             progressDumper = ProgressDumperNop.INSTANCE;
         }
         this.prefix = "";
+        this.archiveOutput = archiveOutput;
     }
 
     private InternalDumperFactoryImpl(InternalDumperFactoryImpl other, String prefix) {
@@ -39,6 +48,7 @@ public class InternalDumperFactoryImpl implements DumperFactory {
         this.options = other.options;
         this.progressDumper = other.progressDumper;
         this.prefix = prefix;
+        this.archiveOutput = other.archiveOutput;
     }
 
     @Override
@@ -58,6 +68,9 @@ public class InternalDumperFactoryImpl implements DumperFactory {
     }
 
     public Dumper getNewTopLevelDumper(JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
+        if (archiveOutput != null) {
+            return archiveOutput.getNewTopLevelDumper(prefix, classType, summaryDumper, typeUsageInformation, illegalIdentifierDump);
+        }
         Pair<String, Boolean> targetInfo = getPathAndClobber();
 
         if (targetInfo == null) return new StdIODumper(typeUsageInformation, options, illegalIdentifierDump);
@@ -92,6 +105,9 @@ public class InternalDumperFactoryImpl implements DumperFactory {
      * A summary dumper will receive errors.  Generally, it's only of value when dumping jars to file.
      */
     public SummaryDumper getSummaryDumper() {
+        if (archiveOutput != null) {
+            return archiveOutput.getSummaryDumper(new AdditionalComments());
+        }
         Pair<String, Boolean> targetInfo = getPathAndClobber();
 
         if (targetInfo == null) return new NopSummaryDumper();
@@ -4,16 +4,34 @@ import java.util.logging.*;
 
 /**
  * Small wrapper around the bog standard java logger.
+ *
+ * Anything below WARNING is only of interest when debugging CFR itself, and should be guarded by
+ * {@link #DEBUG} - by the time the logger checks its level, the message has already been built.
+ * DEBUG is final, so when it's off the JIT drops the guarded code altogether.
+ *
+ * Run with -Dcfr.loglevel=FINE (or any other java.util.logging level) to see it.
  */
 public class LoggerFactory {
 
+    private static final Level level = getLevel();
+    public static final boolean DEBUG = level.intValue() < Level.WARNING.intValue();
     private static Handler handler = getHandler();
-    private static Level level = Level.WARNING;
+
+    private static Level getLevel() {
+        String configured = System.getProperty("cfr.loglevel");
+        if (configured == null) return Level.WARNING;
+        try {
+            return Level.parse(configured);
+        } catch (IllegalArgumentException e) {
+            return Level.WARNING;
+        }
+    }
 
     private static Handler getHandler() {
         Handler handler = new ConsoleHandler();
         Formatter formatter = new LogFormatter();
         handler.setFormatter(formatter);
+        handler.setLevel(level);
         return handler;
     }
 
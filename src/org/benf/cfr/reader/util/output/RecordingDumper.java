@@ -0,0 +1,54 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.getopt.Options;
+
+/*
+ * Passes everything through to a real (stream) dumper, but also keeps a copy of the text it will
+ * have written, by teeing to a string dumper.
+ *
+ * The copy can later be fed to a fresh dumper with replay, which writes exactly the same text
+ * without needing anything to have been analysed.
+ */
+public class RecordingDumper extends TeeDumper {
+    private final StringBuilder recording;
+    private boolean summaryErrors = false;
+
+    public RecordingDumper(Dumper delegate, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+        this(delegate, new StringBuilder(), options, illegalIdentifierDump);
+    }
+
+    private RecordingDumper(Dumper delegate, StringBuilder recording, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+        super(delegate, new StringStreamDumper(recording, delegate.getTypeUsageInformation(), options, illegalIdentifierDump));
+        this.recording = recording;
+    }
+
+    public String getRecording() {
+        return recording.toString();
+    }
+
+    /*
+     * Summary errors go to the summary dumper, not the text, so can't be replayed.
+     */
+    public boolean hasSummaryErrors() {
+        return summaryErrors;
+    }
+
+    /*
+     * A stream dumper holds back a trailing newline until something follows it, so we hand it the
+     * text a line at a time - anything else would be reindented or lose the end of the last line.
+     */
+    public static void replay(Dumper d, String text) {
+        String[] lines = text.split("\n", -1);
+        for (int x = 0; x < lines.length; ++x) {
+            if (x > 0) d.newln();
+            d.print(lines[x]);
+        }
+    }
+
+    @Override
+    public void addSummaryError(Method method, String s) {
+        summaryErrors = true;
+        super.addSummaryError(method, s);
+    }
+}
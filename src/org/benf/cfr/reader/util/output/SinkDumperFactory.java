@@ -5,6 +5,7 @@ import org.benf.cfr.reader.api.SinkReturns;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.Method;
 import org.benf.cfr.reader.state.TypeUsageInformation;
 import org.benf.cfr.reader.util.getopt.Options;
 
@@ -37,7 +38,7 @@ public class SinkDumperFactory implements DumperFactory {
 
     @Override
     public Dumper getNewTopLevelDumper(JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
-        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.JAVA, Arrays.asList(OutputSinkFactory.SinkClass.DECOMPILED_MULTIVER, OutputSinkFactory.SinkClass.DECOMPILED, OutputSinkFactory.SinkClass.STRING));
+        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.JAVA, Arrays.asList(OutputSinkFactory.SinkClass.DECOMPILED_MULTIVER, OutputSinkFactory.SinkClass.DECOMPILED, OutputSinkFactory.SinkClass.STRING, OutputSinkFactory.SinkClass.DECOMPILED_FRAGMENT));
         if (supported == null) supported = justString;
         for (OutputSinkFactory.SinkClass sinkClass : supported) {
             switch (sinkClass) {
@@ -45,6 +46,8 @@ public class SinkDumperFactory implements DumperFactory {
                     return SinkSourceClassDumper(sinkFactory.<SinkReturns.Decompiled>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), version, classType, typeUsageInformation, illegalIdentifierDump);
                 case DECOMPILED:
                     return SinkSourceClassDumper(sinkFactory.<SinkReturns.Decompiled>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), classType, typeUsageInformation, illegalIdentifierDump);
+                case DECOMPILED_FRAGMENT:
+                    return new FragmentDumper(sinkFactory.<SinkReturns.DecompiledFragment>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), version, classType, summaryDumper, typeUsageInformation, options, illegalIdentifierDump);
                 case STRING:
                     return SinkStringClassDumper(sinkFactory.<String>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), typeUsageInformation, illegalIdentifierDump);
                 default:
@@ -57,6 +60,77 @@ public class SinkDumperFactory implements DumperFactory {
         return SinkStringClassDumper(stringSink, typeUsageInformation, illegalIdentifierDump);
     }
 
+    /*
+     * Hands output on as it's produced, in pieces of around FRAGMENT_SIZE, rather than keeping the
+     * whole class.  The same buffer (and fragment) is reused for each piece.
+     */
+    private static class FragmentDumper extends StreamDumper implements SinkReturns.DecompiledFragment {
+        private static final int FRAGMENT_SIZE = 8192;
+
+        private final OutputSinkFactory.Sink<SinkReturns.DecompiledFragment> sink;
+        private final int version;
+        private final JavaTypeInstance classType;
+        private final SummaryDumper summaryDumper;
+        private final Pair<String, String> names;
+        private final StringBuilder sb = new StringBuilder(FRAGMENT_SIZE * 2);
+        private boolean last = false;
+
+        private FragmentDumper(OutputSinkFactory.Sink<SinkReturns.DecompiledFragment> sink, int version, JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+            super(typeUsageInformation, options, illegalIdentifierDump);
+            this.sink = sink;
+            this.version = version;
+            this.classType = classType;
+            this.summaryDumper = summaryDumper;
+            this.names = ClassNameUtils.getPackageAndClassNames(classType.getRawName());
+        }
+
+        @Override
+        protected void write(String s) {
+            sb.append(s);
+            if (sb.length() >= FRAGMENT_SIZE) {
+                sink.write(this);
+                sb.setLength(0);
+            }
+        }
+
+        @Override
+        public void close() {
+            last = true;
+            sink.write(this);
+            sb.setLength(0);
+        }
+
+        @Override
+        public void addSummaryError(Method method, String s) {
+            summaryDumper.notifyError(classType, method, s);
+        }
+
+        @Override
+        public String getPackageName() {
+            return names.getFirst();
+        }
+
+        @Override
+        public String getClassName() {
+            return names.getSecond();
+        }
+
+        @Override
+        public int getRuntimeFrom() {
+            return version;
+        }
+
+        @Override
+        public CharSequence getJava() {
+            return sb;
+        }
+
+        @Override
+        public boolean isLast() {
+            return last;
+        }
+    }
+
     private Dumper SinkStringClassDumper(final OutputSinkFactory.Sink<String> sink, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
         final StringBuilder sb = new StringBuilder();
         return new StringStreamDumper(sb, typeUsageInformation, options, illegalIdentifierDump) {
@@ -0,0 +1,135 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+
+import java.util.List;
+
+/*
+ * Passes everything through to a real dumper, and sends the same calls to a second (stream) dumper
+ * alongside it, which sees exactly the text the real one would have written.
+ *
+ * Only the real dumper is closed, and only it gets summary errors.
+ */
+public class TeeDumper implements Dumper {
+    private final Dumper delegate;
+    private final StreamDumper mirror;
+
+    public TeeDumper(Dumper delegate, StreamDumper mirror) {
+        this.delegate = delegate;
+        this.mirror = mirror;
+    }
+
+    @Override
+    public TypeUsageInformation getTypeUsageInformation() {
+        return delegate.getTypeUsageInformation();
+    }
+
+    @Override
+    public void printLabel(String s) {
+        delegate.printLabel(s);
+        mirror.printLabel(s);
+    }
+
+    @Override
+    public void enqueuePendingCarriageReturn() {
+        delegate.enqueuePendingCarriageReturn();
+        mirror.enqueuePendingCarriageReturn();
+    }
+
+    @Override
+    public Dumper removePendingCarriageReturn() {
+        delegate.removePendingCarriageReturn();
+        mirror.removePendingCarriageReturn();
+        return this;
+    }
+
+    @Override
+    public Dumper print(String s) {
+        delegate.print(s);
+        mirror.print(s);
+        return this;
+    }
+
+    @Override
+    public Dumper identifier(String s) {
+        delegate.identifier(s);
+        mirror.identifier(s);
+        return this;
+    }
+
+    @Override
+    public Dumper print(char c) {
+        delegate.print(c);
+        mirror.print(c);
+        return this;
+    }
+
+    @Override
+    public Dumper newln() {
+        delegate.newln();
+        mirror.newln();
+        return this;
+    }
+
+    @Override
+    public Dumper endCodeln() {
+        delegate.endCodeln();
+        mirror.endCodeln();
+        return this;
+    }
+
+    @Override
+    public int getIndent() {
+        return delegate.getIndent();
+    }
+
+    @Override
+    public void indent(int diff) {
+        delegate.indent(diff);
+        mirror.indent(diff);
+    }
+
+    @Override
+    public void dump(List<? extends Dumpable> d) {
+        for (Dumpable dumpable : d) {
+            dumpable.dump(this);
+        }
+    }
+
+    @Override
+    public Dumper dump(JavaTypeInstance javaTypeInstance) {
+        javaTypeInstance.dumpInto(this, getTypeUsageInformation());
+        return this;
+    }
+
+    @Override
+    public Dumper dump(Dumpable d) {
+        if (d == null) {
+            return print("null");
+        }
+        return d.dump(this);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public void addSummaryError(Method method, String s) {
+        delegate.addSummaryError(method, s);
+    }
+
+    @Override
+    public boolean canEmitClass(JavaTypeInstance type) {
+        mirror.canEmitClass(type);
+        return delegate.canEmitClass(type);
+    }
+
+    @Override
+    public int getOutputCount() {
+        return delegate.getOutputCount();
+    }
+}
@@ -0,0 +1,113 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DecompilationServerTest {
+    private File workDir;
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrserver");
+        jar = DecompileFixture.sampleJar(workDir);
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    private static String serve(DecompilationServer server, String token, String... requests) throws Exception {
+        StringBuilder in = new StringBuilder();
+        if (token != null) in.append(token).append('\n');
+        for (String request : requests) in.append(request).append('\n');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        server.serve(new ByteArrayInputStream(in.toString().getBytes("UTF-8")), out, token);
+        return out.toString("UTF-8");
+    }
+
+    private static DecompilationServer newServer() {
+        return new DecompilationServer(new OptionsImpl(DecompileFixture.options("server", "stdio")));
+    }
+
+    @Test
+    public void rejectsOptionsWhichWriteFiles() throws Exception {
+        for (String option : new String[]{"outputdir", "outputpath", "outputzip", "report", "incrementalcache", "classpathcache", "clobber"}) {
+            File target = new File(workDir, option);
+            String response = serve(newServer(), null, "\"" + jar.getPath() + "\" --" + option + " \"" + target.getPath() + "\"");
+            assertTrue(option + ": " + response, response.startsWith("ERROR "));
+            assertFalse(option, response.contains("JAVA "));
+            assertFalse(option, target.exists());
+        }
+    }
+
+    @Test
+    public void rejectsClassPath() throws Exception {
+        String response = serve(newServer(), null, "\"" + jar.getPath() + "\" --extraclasspath \"" + jar.getPath() + "\"");
+        assertTrue(response, response.startsWith("ERROR "));
+        assertFalse(response.contains("JAVA "));
+    }
+
+    /*
+     * More sets of options than we keep workspaces for - the first is evicted (and closed) before it's
+     * asked for again.
+     */
+    @Test
+    public void servesAfterEviction() throws Exception {
+        String request = "\"" + jar.getPath() + "\" --silent true";
+        String[] requests = new String[]{
+                request, request + " --decodelambdas false", request + " --sugarenums false",
+                request + " --arrayiter false", request + " --collectioniter false", request};
+        String response = serve(newServer(), null, requests);
+        String[] responses = response.split("END\n", -1);
+        assertEquals(requests.length + 1, responses.length);
+        for (int x = 0; x < requests.length; ++x) {
+            assertFalse(responses[x], responses[x].contains("ERROR "));
+            assertTrue(responses[x], responses[x].contains("JAVA "));
+        }
+        assertEquals(responses[0], responses[requests.length - 1]);
+    }
+
+    @Test
+    public void acceptsAnalysisOptions() throws Exception {
+        String response = serve(newServer(), null, "\"" + jar.getPath() + "\" --decodelambdas false --silent true");
+        assertFalse(response, response.startsWith("ERROR "));
+        assertTrue(response.contains("JAVA "));
+        assertTrue(response.endsWith("END\n"));
+    }
+
+    @Test
+    public void requiresToken() throws Exception {
+        DecompilationServer server = newServer();
+        String request = "\"" + jar.getPath() + "\"";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        server.serve(new ByteArrayInputStream(("wrong\n" + request + "\n").getBytes("UTF-8")), out, server.getToken());
+        String refused = out.toString("UTF-8");
+        assertTrue(refused, refused.startsWith("ERROR "));
+        assertFalse(refused.contains("JAVA "));
+        assertTrue(serve(server, server.getToken(), request).contains("JAVA "));
+    }
+
+    @Test
+    public void outputMatchesCommandLine() throws Exception {
+        Map<String, String> expected = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options());
+        String response = serve(newServer(), null, "\"" + jar.getPath() + "\"");
+        assertFalse(expected.isEmpty());
+        for (String java : expected.values()) {
+            assertTrue(response.contains(java));
+        }
+        assertEquals(expected.size(), response.split("\nJAVA |^JAVA ", -1).length - 1);
+    }
+}
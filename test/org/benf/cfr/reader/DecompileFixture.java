@@ -0,0 +1,183 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.CfrDriver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/*
+ * Shared plumbing for tests that decompile something and look at what comes out.
+ *
+ * There's no separate corpus checked in - CFR's own classes (already compiled by the time tests run) are
+ * plenty varied, so we jar up a few packages of those.
+ */
+public class DecompileFixture {
+    private static final File CLASSES = new File("target/classes");
+
+    /*
+     * Packages picked for having generics, inner classes, enums and a fair spread of control flow, while
+     * being small enough to decompile quickly.
+     */
+    private static final String[] SAMPLE_PACKAGES = {
+            "org/benf/cfr/reader/util/collections",
+            "org/benf/cfr/reader/util/functors",
+            "org/benf/cfr/reader/util/getopt",
+            "org/benf/cfr/reader/bytecode/analysis/parse/utils/scope",
+    };
+
+    public static File sampleJar(File dir) throws IOException {
+        return sampleJar(dir, null);
+    }
+
+    /*
+     * preamble, if given, is written before the zip data - as with jars that are also shell scripts.
+     */
+    public static File sampleJar(File dir, byte[] preamble) throws IOException {
+        return jar(new File(dir, "sample.jar"), preamble, SAMPLE_PACKAGES);
+    }
+
+    /*
+     * A jar of just the given packages (of CFR's classes).
+     */
+    public static File jar(File jar, String... packages) throws IOException {
+        return jar(jar, null, packages);
+    }
+
+    private static File jar(File jar, byte[] preamble, String[] packages) throws IOException {
+        OutputStream raw = new FileOutputStream(jar);
+        try {
+            if (preamble != null) raw.write(preamble);
+            ZipOutputStream zos = new ZipOutputStream(raw);
+            for (String pkg : packages) {
+                File[] files = new File(CLASSES, pkg).listFiles();
+                if (files == null) throw new IOException("Missing " + pkg + " - compile before running tests");
+                for (File file : files) {
+                    if (!file.getName().endsWith(".class")) continue;
+                    zos.putNextEntry(new ZipEntry(pkg + "/" + file.getName()));
+                    zos.write(readFile(file));
+                    zos.closeEntry();
+                }
+            }
+            zos.finish();
+        } finally {
+            raw.close();
+        }
+        return jar;
+    }
+
+    public static File newTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        if (!dir.delete() || !dir.mkdir()) throw new IOException("Can't create " + dir);
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    public static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+
+    /*
+     * Decompile target into outputDir, as the command line would with --outputdir.
+     */
+    public static void decompile(String target, File outputDir, Map<String, String> extraOptions) {
+        decompile(Collections.singletonList(target), outputDir, extraOptions);
+    }
+
+    public static void decompile(List<String> targets, File outputDir, Map<String, String> extraOptions) {
+        Map<String, String> options = new HashMap<String, String>();
+        options.put("outputdir", outputDir.getPath());
+        options.put("silent", "true");
+        options.putAll(extraOptions);
+        CfrDriver driver = new CfrDriver.Builder().withOptions(options).build();
+        driver.analyse(targets);
+    }
+
+    public static Map<String, String> decompileToMap(File jar, File workDir, Map<String, String> extraOptions) throws IOException {
+        File out = new File(workDir, "out" + System.nanoTime());
+        decompile(jar.getPath(), out, extraOptions);
+        Map<String, String> res = readJavaFiles(out);
+        deleteRecursively(out);
+        return res;
+    }
+
+    /*
+     * Relative path -> content, of every .java file under dir.  Anything else (summary etc) is left out, as
+     * that's not decompiled output.
+     */
+    public static Map<String, String> readJavaFiles(File dir) throws IOException {
+        Map<String, String> res = new TreeMap<String, String>();
+        readJavaFiles(dir, "", res);
+        return res;
+    }
+
+    private static void readJavaFiles(File dir, String prefix, Map<String, String> res) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                readJavaFiles(file, prefix + file.getName() + "/", res);
+            } else if (file.getName().endsWith(".java")) {
+                res.put(prefix + file.getName(), new String(readFile(file), "UTF-8"));
+            }
+        }
+    }
+
+    /*
+     * As readJavaFiles, but from what --outputzip wrote.
+     */
+    public static Map<String, String> readZipJavaFiles(File zip) throws IOException {
+        Map<String, String> res = new TreeMap<String, String>();
+        ZipFile zipFile = new ZipFile(zip);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(".java")) continue;
+                res.put(entry.getName(), new String(readAll(zipFile.getInputStream(entry)), "UTF-8"));
+            }
+        } finally {
+            zipFile.close();
+        }
+        return res;
+    }
+
+    public static byte[] readFile(File file) throws IOException {
+        return readAll(new FileInputStream(file));
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = is.read(buf)) > 0) baos.write(buf, 0, len);
+            return baos.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    public static Map<String, String> options(String... kv) {
+        Map<String, String> res = new HashMap<String, String>();
+        for (int x = 0; x < kv.length; x += 2) res.put(kv[x], kv[x + 1]);
+        return res;
+    }
+}
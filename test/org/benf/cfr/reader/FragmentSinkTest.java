@@ -0,0 +1,126 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FragmentSinkTest {
+    private File workDir;
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrfragment");
+        jar = DecompileFixture.sampleJar(workDir);
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    @Test
+    public void fragmentsReassembleToWholeClasses() {
+        CollectingSink whole = new CollectingSink(OutputSinkFactory.SinkClass.DECOMPILED);
+        CollectingSink fragments = new CollectingSink(OutputSinkFactory.SinkClass.DECOMPILED_FRAGMENT);
+        run(whole, DecompileFixture.options());
+        run(fragments, DecompileFixture.options());
+        assertFalse(whole.java.isEmpty());
+        assertEquals(whole.java, fragments.java);
+        assertTrue(fragments.partial.isEmpty());
+    }
+
+    @Test
+    public void summaryErrorsAreForwarded() {
+        CollectingSink fragments = new CollectingSink(OutputSinkFactory.SinkClass.DECOMPILED_FRAGMENT);
+        run(fragments, DecompileFixture.options("methodworklimit", "1"));
+        String summary = fragments.summary.toString();
+        assertTrue(summary, summary.contains("Analysis abandoned"));
+    }
+
+    private void run(OutputSinkFactory sink, Map<String, String> options) {
+        options.put("silent", "true");
+        CfrDriver driver = new CfrDriver.Builder().withOutputSink(sink).withOptions(options).build();
+        driver.analyse(Collections.singletonList(jar.getPath()));
+    }
+
+    /*
+     * Java by class name (put back together, for fragments), and everything sent to the summary.
+     */
+    private static class CollectingSink implements OutputSinkFactory {
+        private final SinkClass javaClass;
+        private final Map<String, String> java = new TreeMap<String, String>();
+        private final Map<String, StringBuilder> partial = new TreeMap<String, StringBuilder>();
+        private final StringBuilder summary = new StringBuilder();
+
+        private CollectingSink(SinkClass javaClass) {
+            this.javaClass = javaClass;
+        }
+
+        @Override
+        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+            if (sinkType == SinkType.JAVA) return Collections.singletonList(javaClass);
+            return Collections.singletonList(SinkClass.STRING);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+            switch (sinkType) {
+                case JAVA:
+                    return sinkClass == SinkClass.DECOMPILED_FRAGMENT ? (Sink<T>) new FragmentSink() : (Sink<T>) new WholeSink();
+                case SUMMARY:
+                    return (Sink<T>) new Sink<String>() {
+                        @Override
+                        public void write(String sinkable) {
+                            summary.append(sinkable);
+                        }
+                    };
+                default:
+                    return new Sink<T>() {
+                        @Override
+                        public void write(T sinkable) {
+                        }
+                    };
+            }
+        }
+
+        private class WholeSink implements Sink<SinkReturns.Decompiled> {
+            @Override
+            public void write(SinkReturns.Decompiled sinkable) {
+                java.put(sinkable.getPackageName() + "." + sinkable.getClassName(), sinkable.getJava());
+            }
+        }
+
+        private class FragmentSink implements Sink<SinkReturns.DecompiledFragment> {
+            @Override
+            public void write(SinkReturns.DecompiledFragment sinkable) {
+                String name = sinkable.getPackageName() + "." + sinkable.getClassName();
+                StringBuilder sb = partial.get(name);
+                if (sb == null) {
+                    sb = new StringBuilder();
+                    partial.put(name, sb);
+                }
+                sb.append(sinkable.getJava());
+                if (sinkable.isLast()) {
+                    java.put(name, sb.toString());
+                    partial.remove(name);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.benf.cfr.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalCacheTest {
+    private File workDir;
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrincremental");
+        jar = DecompileFixture.sampleJar(workDir);
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    /*
+     * With the cache, classes are analysed in isolation, as they are with more than one thread.
+     */
+    @Test
+    public void cachedOutputMatchesIsolated() throws Exception {
+        Map<String, String> expected = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("threads", "2"));
+        File cache = new File(workDir, "cache");
+        Map<String, String> options = DecompileFixture.options("incrementalcache", cache.getPath());
+        assertEquals("filling cache", expected, DecompileFixture.decompileToMap(jar, workDir, options));
+        String[] cached = cache.list();
+        assertTrue(cached != null && cached.length > 0);
+        assertEquals("from cache", expected, DecompileFixture.decompileToMap(jar, workDir, options));
+    }
+
+    @Test
+    public void trimKeepsMostRecentlyUsed() throws Exception {
+        File cache = new File(workDir, "cache");
+        File[] entries = new File[3];
+        for (int x = 0; x < entries.length; ++x) {
+            entries[x] = new File(new File(cache, "0" + x), "entry.java");
+            assertTrue(entries[x].getParentFile().mkdirs());
+            assertTrue(entries[x].createNewFile());
+            assertTrue(entries[x].setLastModified(1000000000000L + x * 10000L));
+        }
+        // As if it had just been used.
+        assertTrue(entries[0].setLastModified(1000000100000L));
+        IncrementalCache.trim(cache, 2);
+        assertTrue(entries[0].exists());
+        assertFalse(entries[1].exists());
+        assertTrue(entries[2].exists());
+    }
+}
@@ -0,0 +1,63 @@
+package org.benf.cfr.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MethodBudgetTest {
+    private static final String BUDGET_COMMENT = "Analysis abandoned - method exceeded its budget";
+
+    private File workDir;
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrbudget");
+        jar = DecompileFixture.sampleJar(workDir);
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    @Test
+    public void generousBudgetDoesNotChangeOutput() throws Exception {
+        Map<String, String> plain = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options());
+        Map<String, String> budgeted = DecompileFixture.decompileToMap(jar, workDir,
+                DecompileFixture.options("methodworklimit", "1000000000", "methodtimelimit", "1000000"));
+        assertFalse(plain.isEmpty());
+        assertEquals(plain, budgeted);
+    }
+
+    @Test
+    public void exceededBudgetIsNotReportedAsABug() throws Exception {
+        Map<String, String> budgeted = DecompileFixture.decompileToMap(jar, workDir,
+                DecompileFixture.options("methodworklimit", "1"));
+        boolean sawBudget = false;
+        for (Map.Entry<String, String> entry : budgeted.entrySet()) {
+            String text = entry.getValue();
+            assertFalse(entry.getKey(), text.contains("When submitting a bug report"));
+            assertFalse(entry.getKey(), text.contains("Exception decompiling"));
+            int failures = count(text, "Decompilation failed");
+            assertEquals(entry.getKey(), failures, count(text, BUDGET_COMMENT));
+            sawBudget |= failures > 0;
+        }
+        assertTrue(sawBudget);
+    }
+
+    private static int count(String text, String of) {
+        int res = 0;
+        for (int idx = text.indexOf(of); idx != -1; idx = text.indexOf(of, idx + of.length())) {
+            res++;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,163 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.state.ClassFileSourceImpl;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/*
+ * Options which are only there to make decompilation faster or leaner mustn't change what comes out.
+ */
+public class OptionsOutputTest {
+    // Used by everything in both inputs of sharedLibraryState.
+    private static final String LIBRARY_CLASS = "java/util/List.class";
+
+    private File workDir;
+    private File jar;
+    private Map<String, String> plain;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfroptions");
+        jar = DecompileFixture.sampleJar(workDir);
+        plain = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options());
+        assertFalse(plain.isEmpty());
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    private void assertSameAsPlain(String... options) throws Exception {
+        assertEquals(plain, DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options(options)));
+    }
+
+    @Test
+    public void mmapJars() throws Exception {
+        assertSameAsPlain("mmapjars", "true");
+    }
+
+    @Test
+    public void classPathCache() throws Exception {
+        String cache = new File(workDir, "cpcache").getPath();
+        // Once to fill the cache, once to use it.
+        assertSameAsPlain("classpathcache", cache, "extraclasspath", jar.getPath());
+        assertSameAsPlain("classpathcache", cache, "extraclasspath", jar.getPath());
+    }
+
+    @Test
+    public void outputZip() throws Exception {
+        File zip = new File(workDir, "out.zip");
+        DecompileFixture.decompile(jar.getPath(), new File(workDir, "unused"), DecompileFixture.options("outputzip", zip.getPath()));
+        assertEquals(plain, DecompileFixture.readZipJavaFiles(zip));
+    }
+
+    /*
+     * Two inputs with the same classes - where a directory would have the later of each, the zip gets both.
+     */
+    @Test
+    public void outputZipDuplicates() throws Exception {
+        File other = new File(workDir, "other");
+        other.mkdir();
+        File zip = new File(workDir, "out.zip");
+        DecompileFixture.decompile(Arrays.asList(jar.getPath(), DecompileFixture.sampleJar(other).getPath()),
+                new File(workDir, "unused"), DecompileFixture.options("outputzip", zip.getPath()));
+        Map<String, String> entries = DecompileFixture.readZipJavaFiles(zip);
+        assertEquals(2 * plain.size(), entries.size());
+        for (Map.Entry<String, String> entry : plain.entrySet()) {
+            String name = entry.getKey();
+            assertEquals(entry.getValue(), entries.get(name));
+            assertEquals(entry.getValue(), entries.get(name.substring(0, name.length() - ".java".length()) + "_cfr_0.java"));
+        }
+    }
+
+    @Test
+    public void smallClassCache() throws Exception {
+        assertSameAsPlain("classcachesize", "1");
+        assertSameAsPlain("classcachesize", "1", "classcachesoft", "true");
+    }
+
+    /*
+     * Counts loads of each class file.
+     */
+    private static class CountingSource extends ClassFileSourceImpl {
+        private final Map<String, Integer> loads = new HashMap<String, Integer>();
+
+        private CountingSource(Options options) {
+            super(options);
+        }
+
+        @Override
+        public Pair<ByteData, String> getClassFileData(String inputPath) throws IOException {
+            synchronized (loads) {
+                Integer count = loads.get(inputPath);
+                loads.put(inputPath, count == null ? 1 : count + 1);
+            }
+            return super.getClassFileData(inputPath);
+        }
+
+        private int getLoads(String path) {
+            synchronized (loads) {
+                Integer count = loads.get(path);
+                return count == null ? 0 : count;
+            }
+        }
+    }
+
+    private static CountingSource decompileCounting(List<String> targets, File outputDir, String... extraOptions) {
+        Map<String, String> options = DecompileFixture.options(extraOptions);
+        options.put("outputdir", outputDir.getPath());
+        options.put("silent", "true");
+        CountingSource source = new CountingSource(new OptionsImpl(options));
+        CfrDriver driver = new CfrDriver.Builder().withOptions(options).withClassFileSource(source).build();
+        driver.analyse(targets);
+        return source;
+    }
+
+    /*
+     * Two different inputs, which both use a library class - each must come out as it would on its own,
+     * while that library class is only loaded once.  (Neither uses the other's classes - a later input
+     * can see an earlier one's, shared state or not).
+     */
+    @Test
+    public void sharedLibraryState() throws Exception {
+        List<String> targets = Arrays.asList(
+                DecompileFixture.jar(new File(workDir, "a.jar"), "org/benf/cfr/reader/util/collections").getPath(),
+                DecompileFixture.jar(new File(workDir, "b.jar"), "org/benf/cfr/reader/api").getPath());
+        Map<String, String> alone = new TreeMap<String, String>();
+        for (String target : targets) {
+            File out = new File(workDir, "alone" + alone.size());
+            DecompileFixture.decompile(target, out, DecompileFixture.options());
+            Map<String, String> res = DecompileFixture.readJavaFiles(out);
+            assertFalse(res.isEmpty());
+            alone.putAll(res);
+        }
+
+        File separate = new File(workDir, "separate");
+        CountingSource separateSource = decompileCounting(targets, separate);
+        File shared = new File(workDir, "shared");
+        CountingSource sharedSource = decompileCounting(targets, shared, "sharelibrarystate", "true");
+
+        assertEquals(alone, DecompileFixture.readJavaFiles(separate));
+        assertEquals(alone, DecompileFixture.readJavaFiles(shared));
+        assertEquals(2, separateSource.getLoads(LIBRARY_CLASS));
+        assertEquals(1, sharedSource.getLoads(LIBRARY_CLASS));
+    }
+}
@@ -0,0 +1,66 @@
+package org.benf.cfr.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReportTest {
+    private static final Pattern RECOVERY_PASSES = Pattern.compile("\"recoveryPasses\":\\{([^}]*)\\}");
+    private static final Pattern CLASS_CACHE = Pattern.compile("\\{\"input\":\"[^\"]*\",\"classCache\":\\{\"hits\":(\\d+),\"misses\":(\\d+),\"evictions\":(\\d+),\"size\":(\\d+)\\}\\}");
+    private static final Pattern RECOVERY_PASS = Pattern.compile("\"(initial|recpass\\d+)\":\\d+");
+
+    private File workDir;
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrreport");
+        jar = DecompileFixture.sampleJar(workDir);
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    @Test
+    public void reportDoesNotChangeOutput() throws Exception {
+        File report = new File(workDir, "report.jsonl");
+        Map<String, String> expected = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options());
+        Map<String, String> actual = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("report", report.getPath()));
+        assertEquals(expected, actual);
+
+        String[] lines = new String(DecompileFixture.readFile(report), "UTF-8").split("\n");
+        assertEquals(expected.size(), lines.length);
+        for (String line : lines) {
+            Matcher matcher = RECOVERY_PASSES.matcher(line);
+            assertTrue(line, matcher.find());
+            for (String count : matcher.group(1).split(",")) {
+                if (count.length() == 0) continue;
+                assertTrue(count, RECOVERY_PASS.matcher(count).matches());
+            }
+        }
+    }
+
+    @Test
+    public void classCacheStatistics() throws Exception {
+        File report = new File(workDir, "report.jsonl");
+        DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("report", report.getPath(), "classcachesize", "4"));
+
+        String[] lines = new String(DecompileFixture.readFile(report), "UTF-8").split("\n");
+        // Only one input, so it's the last record.
+        Matcher matcher = CLASS_CACHE.matcher(lines[lines.length - 1]);
+        assertTrue(lines[lines.length - 1], matcher.matches());
+        assertTrue(Long.parseLong(matcher.group(2)) > 4);
+        assertTrue(Long.parseLong(matcher.group(3)) > 0);
+        assertEquals(4, Integer.parseInt(matcher.group(4)));
+    }
+}
@@ -0,0 +1,44 @@
+package org.benf.cfr.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ThreadsTest {
+    private File workDir;
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrthreads");
+        jar = DecompileFixture.sampleJar(workDir);
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    @Test
+    public void outputDoesNotDependOnThreadCount() throws Exception {
+        Map<String, String> two = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("threads", "2"));
+        assertFalse(two.isEmpty());
+        for (String threads : new String[]{"3", "4"}) {
+            Map<String, String> many = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("threads", threads));
+            assertEquals("--threads " + threads, two, many);
+        }
+    }
+
+    @Test
+    public void repeatedRunsAgree() throws Exception {
+        Map<String, String> first = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("threads", "4"));
+        Map<String, String> second = DecompileFixture.decompileToMap(jar, workDir, DecompileFixture.options("threads", "4"));
+        assertEquals(first, second);
+    }
+}
@@ -0,0 +1,12 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters;
+
+/*
+ * Input for DeepConditionalsTest - a single expression with 120 nested conditionals, each of which takes
+ * another round of the Op03 condensing loop.
+ */
+class DeepConditionals {
+    static int pick(int[] a) {
+        int res = a[1] == 1 && a[2] > 0 ? 1 : (a[2] == 2 && a[3] > 0 ? 2 : (a[3] == 3 && a[4] > 0 ? 3 : (a[4] == 4 && a[5] > 0 ? 4 : (a[5] == 5 && a[6] > 0 ? 5 : (a[6] == 6 && a[0] > 0 ? 6 : (a[0] == 7 && a[1] > 0 ? 7 : (a[1] == 8 && a[2] > 0 ? 8 : (a[2] == 9 && a[3] > 0 ? 9 : (a[3] == 10 && a[4] > 0 ? 10 : (a[4] == 11 && a[5] > 0 ? 11 : (a[5] == 12 && a[6] > 0 ? 12 : (a[6] == 13 && a[0] > 0 ? 13 : (a[0] == 14 && a[1] > 0 ? 14 : (a[1] == 15 && a[2] > 0 ? 15 : (a[2] == 16 && a[3] > 0 ? 16 : (a[3] == 17 && a[4] > 0 ? 17 : (a[4] == 18 && a[5] > 0 ? 18 : (a[5] == 19 && a[6] > 0 ? 19 : (a[6] == 20 && a[0] > 0 ? 20 : (a[0] == 21 && a[1] > 0 ? 21 : (a[1] == 22 && a[2] > 0 ? 22 : (a[2] == 23 && a[3] > 0 ? 23 : (a[3] == 24 && a[4] > 0 ? 24 : (a[4] == 25 && a[5] > 0 ? 25 : (a[5] == 26 && a[6] > 0 ? 26 : (a[6] == 27 && a[0] > 0 ? 27 : (a[0] == 28 && a[1] > 0 ? 28 : (a[1] == 29 && a[2] > 0 ? 29 : (a[2] == 30 && a[3] > 0 ? 30 : (a[3] == 31 && a[4] > 0 ? 31 : (a[4] == 32 && a[5] > 0 ? 32 : (a[5] == 33 && a[6] > 0 ? 33 : (a[6] == 34 && a[0] > 0 ? 34 : (a[0] == 35 && a[1] > 0 ? 35 : (a[1] == 36 && a[2] > 0 ? 36 : (a[2] == 37 && a[3] > 0 ? 37 : (a[3] == 38 && a[4] > 0 ? 38 : (a[4] == 39 && a[5] > 0 ? 39 : (a[5] == 40 && a[6] > 0 ? 40 : (a[6] == 41 && a[0] > 0 ? 41 : (a[0] == 42 && a[1] > 0 ? 42 : (a[1] == 43 && a[2] > 0 ? 43 : (a[2] == 44 && a[3] > 0 ? 44 : (a[3] == 45 && a[4] > 0 ? 45 : (a[4] == 46 && a[5] > 0 ? 46 : (a[5] == 47 && a[6] > 0 ? 47 : (a[6] == 48 && a[0] > 0 ? 48 : (a[0] == 49 && a[1] > 0 ? 49 : (a[1] == 50 && a[2] > 0 ? 50 : (a[2] == 51 && a[3] > 0 ? 51 : (a[3] == 52 && a[4] > 0 ? 52 : (a[4] == 53 && a[5] > 0 ? 53 : (a[5] == 54 && a[6] > 0 ? 54 : (a[6] == 55 && a[0] > 0 ? 55 : (a[0] == 56 && a[1] > 0 ? 56 : (a[1] == 57 && a[2] > 0 ? 57 : (a[2] == 58 && a[3] > 0 ? 58 : (a[3] == 59 && a[4] > 0 ? 59 : (a[4] == 60 && a[5] > 0 ? 60 : (a[5] == 61 && a[6] > 0 ? 61 : (a[6] == 62 && a[0] > 0 ? 62 : (a[0] == 63 && a[1] > 0 ? 63 : (a[1] == 64 && a[2] > 0 ? 64 : (a[2] == 65 && a[3] > 0 ? 65 : (a[3] == 66 && a[4] > 0 ? 66 : (a[4] == 67 && a[5] > 0 ? 67 : (a[5] == 68 && a[6] > 0 ? 68 : (a[6] == 69 && a[0] > 0 ? 69 : (a[0] == 70 && a[1] > 0 ? 70 : (a[1] == 71 && a[2] > 0 ? 71 : (a[2] == 72 && a[3] > 0 ? 72 : (a[3] == 73 && a[4] > 0 ? 73 : (a[4] == 74 && a[5] > 0 ? 74 : (a[5] == 75 && a[6] > 0 ? 75 : (a[6] == 76 && a[0] > 0 ? 76 : (a[0] == 77 && a[1] > 0 ? 77 : (a[1] == 78 && a[2] > 0 ? 78 : (a[2] == 79 && a[3] > 0 ? 79 : (a[3] == 80 && a[4] > 0 ? 80 : (a[4] == 81 && a[5] > 0 ? 81 : (a[5] == 82 && a[6] > 0 ? 82 : (a[6] == 83 && a[0] > 0 ? 83 : (a[0] == 84 && a[1] > 0 ? 84 : (a[1] == 85 && a[2] > 0 ? 85 : (a[2] == 86 && a[3] > 0 ? 86 : (a[3] == 87 && a[4] > 0 ? 87 : (a[4] == 88 && a[5] > 0 ? 88 : (a[5] == 89 && a[6] > 0 ? 89 : (a[6] == 90 && a[0] > 0 ? 90 : (a[0] == 91 && a[1] > 0 ? 91 : (a[1] == 92 && a[2] > 0 ? 92 : (a[2] == 93 && a[3] > 0 ? 93 : (a[3] == 94 && a[4] > 0 ? 94 : (a[4] == 95 && a[5] > 0 ? 95 : (a[5] == 96 && a[6] > 0 ? 96 : (a[6] == 97 && a[0] > 0 ? 97 : (a[0] == 98 && a[1] > 0 ? 98 : (a[1] == 99 && a[2] > 0 ? 99 : (a[2] == 100 && a[3] > 0 ? 100 : (a[3] == 101 && a[4] > 0 ? 101 : (a[4] == 102 && a[5] > 0 ? 102 : (a[5] == 103 && a[6] > 0 ? 103 : (a[6] == 104 && a[0] > 0 ? 104 : (a[0] == 105 && a[1] > 0 ? 105 : (a[1] == 106 && a[2] > 0 ? 106 : (a[2] == 107 && a[3] > 0 ? 107 : (a[3] == 108 && a[4] > 0 ? 108 : (a[4] == 109 && a[5] > 0 ? 109 : (a[5] == 110 && a[6] > 0 ? 110 : (a[6] == 111 && a[0] > 0 ? 111 : (a[0] == 112 && a[1] > 0 ? 112 : (a[1] == 113 && a[2] > 0 ? 113 : (a[2] == 114 && a[3] > 0 ? 114 : (a[3] == 115 && a[4] > 0 ? 115 : (a[4] == 116 && a[5] > 0 ? 116 : (a[5] == 117 && a[6] > 0 ? 117 : (a[6] == 118 && a[0] > 0 ? 118 : (a[0] == 119 && a[1] > 0 ? 119 : (a[1] == 120 && a[2] > 0 ? 120 : 0)))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))))));
+        return res;
+    }
+}
@@ -0,0 +1,75 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters;
+
+import org.benf.cfr.reader.DecompileFixture;
+import org.benf.cfr.reader.api.AnalysisPassListener;
+import org.benf.cfr.reader.api.CfrDriver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeepConditionalsTest {
+    private static final int DEPTH = 120;
+
+    private File workDir;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrdeep");
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    private static class Counting implements AnalysisPassListener {
+        int condenseRounds;
+        int recoveryPasses = -1;
+
+        @Override
+        public synchronized void passComplete(String method, int recoveryPass, String pass, long nanos, long allocatedBytes) {
+            if (method.contains("pick") && pass.equals("Op03Rewriters.condenseConditionals")) condenseRounds++;
+        }
+
+        @Override
+        public synchronized void methodComplete(String method, int recoveryPasses, long nanos) {
+            if (method.contains("pick")) this.recoveryPasses = recoveryPasses;
+        }
+    }
+
+    /*
+     * Each level of nesting takes (about) one more round of condensing, and a round ahead of the fix for
+     * collapseAssignmentsIntoConditionals walked back over every statement before it - check the chain still
+     * comes out as a single expression, first time, and without the loop running away.
+     */
+    @Test
+    public void deepConditionalChain() throws Exception {
+        File classFile = new File("target/test-classes/org/benf/cfr/reader/bytecode/analysis/opgraph/op3rewriters/DeepConditionals.class");
+        File out = new File(workDir, "out");
+        Counting counting = new Counting();
+        Map<String, String> options = DecompileFixture.options("outputdir", out.getPath(), "silent", "true");
+        CfrDriver driver = new CfrDriver.Builder().withOptions(options).withAnalysisPassListener(counting).build();
+        driver.analyse(Collections.singletonList(classFile.getPath()));
+
+        Map<String, String> res = DecompileFixture.readJavaFiles(out);
+        assertEquals(1, res.size());
+        String content = res.values().iterator().next();
+        assertFalse(content, content.contains("** "));
+        assertFalse(content, content.contains("goto"));
+        int idx = content.indexOf("int res = ");
+        assertTrue(content, idx >= 0);
+        String statement = content.substring(idx, content.indexOf(';', idx));
+        assertEquals(DEPTH, statement.split("\\?").length - 1);
+
+        assertEquals(0, counting.recoveryPasses);
+        assertTrue(Integer.toString(counting.condenseRounds), counting.condenseRounds <= 2 * DEPTH);
+    }
+}
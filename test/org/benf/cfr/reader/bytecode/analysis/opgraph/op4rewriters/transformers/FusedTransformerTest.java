@@ -0,0 +1,125 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.structured.statement.Block;
+import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredComment;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.output.ToStringDumper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class FusedTransformerTest {
+    /*
+     * Replaces each comment with one whose text depends on what's there already, so the result depends
+     * on the order transformers run in.
+     */
+    private static class Rewrite extends AbstractFusableTransformer {
+        private final String suffix;
+        private final boolean twice;
+        private final boolean preOrder;
+        private final List<String> seen = ListFactory.newList();
+
+        private Rewrite(String suffix, boolean twice, boolean preOrder) {
+            this.suffix = suffix;
+            this.twice = twice;
+            this.preOrder = preOrder;
+        }
+
+        @Override
+        public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+            if (preOrder) in = transformLocal(in, scope);
+            in.transformStructuredChildren(this, scope);
+            if (!preOrder) in = transformLocal(in, scope);
+            return in;
+        }
+
+        @Override
+        public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
+            if (!(in instanceof StructuredComment)) return in;
+            String text = ToStringDumper.toString(in).trim();
+            seen.add(text);
+            return new StructuredComment(twice ? text + text : text + suffix);
+        }
+    }
+
+    private static class Remove extends AbstractFusableTransformer {
+        private final StructuredStatement target;
+
+        private Remove(StructuredStatement target) {
+            this.target = target;
+        }
+
+        @Override
+        public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
+            return in == target ? null : in;
+        }
+    }
+
+    private static Op04StructuredStatement block(Op04StructuredStatement... statements) {
+        return new Op04StructuredStatement(new Block(new LinkedList<Op04StructuredStatement>(Arrays.asList(statements)), true));
+    }
+
+    private static Op04StructuredStatement comment(String text) {
+        return new Op04StructuredStatement(new StructuredComment(text));
+    }
+
+    private static Op04StructuredStatement tree() {
+        return block(comment("a"), block(comment("b"), block(comment("c"))), comment("d"));
+    }
+
+    private static List<Rewrite> rewrites(boolean preOrder) {
+        return Arrays.asList(new Rewrite("x", false, preOrder), new Rewrite(null, true, preOrder), new Rewrite("y", false, preOrder));
+    }
+
+    private void checkSameAsSequential(boolean preOrder) {
+        Op04StructuredStatement sequential = tree();
+        for (Rewrite rewrite : rewrites(preOrder)) {
+            sequential.transform(rewrite, new StructuredScope());
+        }
+
+        Op04StructuredStatement fused = tree();
+        if (preOrder) {
+            FusedTransformer.preOrder(rewrites(true)).transform(fused);
+        } else {
+            FusedTransformer.postOrder(rewrites(false)).transform(fused);
+        }
+
+        assertEquals(ToStringDumper.toString(sequential), ToStringDumper.toString(fused));
+    }
+
+    @Test
+    public void preOrderSameAsSequential() {
+        checkSameAsSequential(true);
+    }
+
+    @Test
+    public void postOrderSameAsSequential() {
+        checkSameAsSequential(false);
+    }
+
+    @Test
+    public void removedStatementIsNotVisited() {
+        Op04StructuredStatement inner = block(comment("b"));
+        Op04StructuredStatement root = block(comment("a"), inner);
+        Rewrite after = new Rewrite("x", false, true);
+        FusedTransformer.preOrder(Arrays.asList(new Remove(inner.getStatement()), after)).transform(root);
+
+        assertNull(inner.getStatement());
+        assertEquals(1, after.seen.size());
+        assertFalse(after.seen.contains("// b"));
+    }
+}
@@ -0,0 +1,154 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.utils;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Graph;
+import org.benf.cfr.reader.util.functors.BinaryPredicate;
+import org.benf.cfr.reader.util.functors.UnaryFunction;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+ * The dataflow pass must give exactly what the simple worklist over maps would.
+ */
+public class SSADataflowTest {
+
+    private static class Node implements Graph<Node> {
+        private final List<Node> sources = new ArrayList<Node>();
+        private final List<Node> targets = new ArrayList<Node>();
+        private final SSAIdentifiers<String> idents;
+        private final boolean lenient;
+
+        private Node(SSAIdentifiers<String> idents, boolean lenient) {
+            this.idents = idents;
+            this.lenient = lenient;
+        }
+
+        @Override
+        public List<Node> getSources() {
+            return sources;
+        }
+
+        @Override
+        public List<Node> getTargets() {
+            return targets;
+        }
+    }
+
+    private static final UnaryFunction<Node, SSAIdentifiers<String>> IDENTS = new UnaryFunction<Node, SSAIdentifiers<String>>() {
+        @Override
+        public SSAIdentifiers<String> invoke(Node arg) {
+            return arg.idents;
+        }
+    };
+
+    private static final BinaryPredicate<String, String> ALWAYS = new BinaryPredicate<String, String>() {
+        @Override
+        public boolean test(String a, String b) {
+            return true;
+        }
+    };
+
+    private static final UnaryFunction<Node, BinaryPredicate<String, String>> PREDICATES = new UnaryFunction<Node, BinaryPredicate<String, String>>() {
+        @Override
+        public BinaryPredicate<String, String> invoke(Node arg) {
+            return arg.lenient ? ALWAYS : null;
+        }
+    };
+
+    private static void link(Node from, Node to) {
+        from.targets.add(to);
+        to.sources.add(from);
+    }
+
+    /*
+     * A random graph (with loops), where some nodes assign one of keys keys.  The last node isn't in
+     * the list we return, but is linked to from it.
+     */
+    private static List<Node> graph(long seed, int keys, int maxCount, SSAIdentifierFactory<String, Object> factory) {
+        Random random = new Random(seed);
+        int count = 5 + random.nextInt(maxCount);
+        List<Node> nodes = new ArrayList<Node>();
+        for (int x = 0; x <= count; ++x) {
+            SSAIdentifiers<String> idents = random.nextInt(3) == 0 ?
+                    new SSAIdentifiers<String>("k" + random.nextInt(keys), factory) :
+                    new SSAIdentifiers<String>();
+            nodes.add(new Node(idents, random.nextInt(4) == 0));
+        }
+        for (int x = 0; x < count - 1; ++x) {
+            link(nodes.get(x), nodes.get(x + 1));
+            if (random.nextInt(4) == 0) link(nodes.get(x + 1), nodes.get(random.nextInt(x + 1)));
+            if (random.nextInt(4) == 0) link(nodes.get(x), nodes.get(random.nextInt(count)));
+        }
+        Node outside = nodes.remove(count);
+        link(outside, nodes.get(1 + random.nextInt(count - 1)));
+        link(nodes.get(random.nextInt(count)), outside);
+        return nodes;
+    }
+
+    /*
+     * The simple worklist, merging maps.
+     */
+    private static void assignByMerging(List<Node> nodes, SSAIdentifiers<String> initialIdents) {
+        Node entryNode = nodes.get(0);
+        LinkedList<Node> toProcess = new LinkedList<Node>(nodes);
+        while (!toProcess.isEmpty()) {
+            Node node = toProcess.remove();
+            BinaryPredicate<String, String> pred = PREDICATES.invoke(node);
+            boolean changed = false;
+            if (node == entryNode && initialIdents != null) {
+                if (node.idents.mergeWith(initialIdents)) changed = true;
+            }
+            for (Node source : node.sources) {
+                if (node.idents.mergeWith(source.idents, pred)) changed = true;
+            }
+            if (changed) {
+                toProcess.addAll(node.targets);
+            }
+        }
+    }
+
+    private static List<Node> withOutside(List<Node> nodes) {
+        List<Node> res = new ArrayList<Node>(nodes);
+        for (Node node : nodes) {
+            for (Node source : node.sources) {
+                if (!res.contains(source)) res.add(source);
+            }
+        }
+        return res;
+    }
+
+    private static void checkMatches(long seeds, int keys, int maxCount) {
+        for (long seed = 0; seed < seeds; ++seed) {
+            List<Node> flowed = graph(seed, keys, maxCount, new SSAIdentifierFactory<String, Object>(null));
+            List<Node> simple = graph(seed, keys, maxCount, new SSAIdentifierFactory<String, Object>(null));
+            SSADataflow.assign(flowed, IDENTS, PREDICATES, null);
+            assignByMerging(simple, null);
+            flowed = withOutside(flowed);
+            simple = withOutside(simple);
+            assertEquals(simple.size(), flowed.size());
+            for (int x = 0; x < flowed.size(); ++x) {
+                String where = "seed " + seed + " node " + x;
+                assertEquals(where, simple.get(x).idents.getKnownIdentifiersOnEntry(), flowed.get(x).idents.getKnownIdentifiersOnEntry());
+                assertEquals(where, simple.get(x).idents.getKnownIdentifiersOnExit(), flowed.get(x).idents.getKnownIdentifiersOnExit());
+            }
+        }
+    }
+
+    @Test
+    public void matchesSimpleWorklist() {
+        checkMatches(500, 5, 30);
+    }
+
+    /*
+     * Enough keys that each node's tables have to grow.
+     */
+    @Test
+    public void matchesSimpleWorklistWithManyKeys() {
+        checkMatches(50, 300, 600);
+    }
+}
@@ -0,0 +1,70 @@
+package org.benf.cfr.reader.entities.constantpool;
+
+import org.benf.cfr.reader.DecompileFixture;
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.state.ClassFileSourceImpl;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConstantPoolTest {
+    private static Set<String> classNames(String sig) {
+        Set<String> res = new TreeSet<String>();
+        ConstantPoolUtils.addClassNames(sig, res);
+        return res;
+    }
+
+    private static Set<String> set(String... names) {
+        return new TreeSet<String>(Arrays.asList(names));
+    }
+
+    @Test
+    public void descriptors() {
+        assertEquals(set("java/lang/String"), classNames("Ljava/lang/String;"));
+        assertEquals(set("java/lang/String", "java/util/List"), classNames("(I[Ljava/lang/String;J)Ljava/util/List;"));
+        assertEquals(set(), classNames("([[IZ)V"));
+    }
+
+    @Test
+    public void signatures() {
+        assertEquals(set("java/util/Map", "java/lang/String", "java/lang/Comparable", "java/io/IOException"),
+                classNames("<T::Ljava/lang/Comparable<-TT;>;>(Ljava/util/Map<Ljava/lang/String;+TT;>;*)TT;^Ljava/io/IOException;"));
+        assertEquals(set("java/lang/Object", "java/util/Set", "java/lang/Number"),
+                classNames("<LIST:Ljava/lang/Object;>Ljava/lang/Object;Ljava/util/Set<[Ljava/lang/Number;>;"));
+        assertEquals(set("a/Outer", "a/Outer$Inner", "java/lang/String"),
+                classNames("La/Outer<Ljava/lang/String;>.Inner;"));
+    }
+
+    @Test
+    public void brokenSignaturesAreIgnored() {
+        classNames("Ljava/lang/String");
+        classNames("<T");
+        classNames("(Ljava/util/List<");
+    }
+
+    @Test
+    public void referencedClassNamesIncludeDescriptorsAndAnnotations() throws Exception {
+        File file = new File("target/test-classes/org/benf/cfr/reader/entities/constantpool/ReferencesWithoutClassEntries.class");
+        OptionsImpl options = new OptionsImpl(new HashMap<String, String>());
+        DCCommonState state = new DCCommonState(options, new ClassFileSourceImpl(options));
+        ClassFile classFile = new ClassFile(new BaseByteData(DecompileFixture.readFile(file)), file.getPath(), state);
+        List<String> names = classFile.getConstantPool().getReferencedClassNames();
+        assertTrue(names.contains("java/util/concurrent/Semaphore"));
+        assertTrue(names.contains("java/util/concurrent/TimeUnit"));
+        assertTrue(names.contains("java/util/zip/Adler32"));
+        assertTrue(names.contains("org/benf/cfr/reader/entities/constantpool/ReferencesWithoutClassEntries$Marker"));
+        assertFalse(names.contains("not/a/Class"));
+    }
+}
@@ -0,0 +1,27 @@
+package org.benf.cfr.reader.entities.constantpool;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+
+/*
+ * Input for ConstantPoolTest - names classes only in descriptors, signatures and annotations, none of
+ * which need a class entry in the constant pool.
+ */
+@ReferencesWithoutClassEntries.Marker
+class ReferencesWithoutClassEntries {
+    @interface Marker {
+    }
+
+    private Semaphore semaphore;
+    private List<TimeUnit> units;
+
+    Adler32 get() {
+        return null;
+    }
+
+    String literal() {
+        return "Lnot/a/Class;";
+    }
+}
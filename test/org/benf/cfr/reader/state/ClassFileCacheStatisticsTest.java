@@ -0,0 +1,51 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.DecompileFixture;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ClassFileCacheStatisticsTest {
+    private static final String LIBRARY_CLASS = "java/lang/Object.class";
+
+    private static DCCommonState newState(String... options) {
+        Options opts = new OptionsImpl(DecompileFixture.options(options));
+        return new DCCommonState(opts, new ClassFileSourceImpl(opts));
+    }
+
+    @Test
+    public void oneLookupPerRequest() {
+        DCCommonState state = newState("classcachesize", "4");
+        state.getClassFile(LIBRARY_CLASS);
+        EvictingClassFileCache.Statistics first = state.getClassFileCacheStatistics();
+        assertEquals(0, first.getHits());
+        assertEquals(1, first.getMisses());
+
+        state.getClassFile(LIBRARY_CLASS);
+        EvictingClassFileCache.Statistics second = state.getClassFileCacheStatistics();
+        assertEquals(1, second.getHits());
+        assertEquals(1, second.getMisses());
+    }
+
+    @Test
+    public void sharedLibraryState() {
+        DCCommonState library = newState("classcachesize", "4");
+        Options opts = new OptionsImpl(DecompileFixture.options("classcachesize", "4"));
+        DCCommonState state = new DCCommonState(opts, new ClassFileSourceImpl(opts), library);
+        state.getClassFile(LIBRARY_CLASS);
+        state.getClassFile(LIBRARY_CLASS);
+        EvictingClassFileCache.Statistics statistics = state.getClassFileCacheStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+    }
+
+    @Test
+    public void unbounded() {
+        DCCommonState state = newState();
+        state.getClassFile(LIBRARY_CLASS);
+        assertNull(state.getClassFileCacheStatistics());
+    }
+}
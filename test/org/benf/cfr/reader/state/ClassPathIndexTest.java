@@ -0,0 +1,156 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.DecompileFixture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClassPathIndexTest {
+    private static final String CLASS = "org/benf/cfr/reader/util/collections/ListFactory.class";
+    private static final byte[] PREAMBLE = "#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n".getBytes();
+
+    private File workDir;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrcpindex");
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    private File dir(String name) {
+        File dir = new File(workDir, name);
+        dir.mkdir();
+        return dir;
+    }
+
+    @Test
+    public void findsClassInJar() throws Exception {
+        File jar = DecompileFixture.sampleJar(dir("plain"));
+        assertEquals(jar.getPath(), new ClassPathIndex(jar.getPath(), false, null).getArchiveFor(CLASS));
+    }
+
+    @Test
+    public void findsClassInJarWithPreamble() throws Exception {
+        File jar = DecompileFixture.sampleJar(dir("preamble"), PREAMBLE);
+        assertEquals(jar.getPath(), new ClassPathIndex(jar.getPath(), false, null).getArchiveFor(CLASS));
+    }
+
+    @Test
+    public void preambleJarIsCached() throws Exception {
+        File jar = DecompileFixture.sampleJar(dir("preamble"), PREAMBLE);
+        String cache = dir("cache").getPath();
+        assertEquals(jar.getPath(), new ClassPathIndex(jar.getPath(), false, cache).getArchiveFor(CLASS));
+        assertEquals(jar.getPath(), new ClassPathIndex(jar.getPath(), false, cache).getArchiveFor(CLASS));
+    }
+
+    @Test
+    public void ignoresFilesWhichAreNotJars() throws Exception {
+        File notJar = new File(workDir, "notajar.jar");
+        FileOutputStream fos = new FileOutputStream(notJar);
+        try {
+            fos.write(PREAMBLE);
+        } finally {
+            fos.close();
+        }
+        File jar = DecompileFixture.sampleJar(dir("plain"));
+        ClassPathIndex index = new ClassPathIndex(notJar.getPath() + File.pathSeparator + jar.getPath(), false, null);
+        assertEquals(jar.getPath(), index.getArchiveFor(CLASS));
+        assertNull(index.getArchiveFor("no/such/Class.class"));
+    }
+
+    @Test
+    public void jarChangedAfterIndexing() throws Exception {
+        File dir = dir("changing");
+        File jar = DecompileFixture.sampleJar(dir);
+        ClassPathIndex index = new ClassPathIndex(jar.getPath(), false, null);
+        assertNull(index.getArchiveFor("no/such/Class.class"));
+        // Same classes, but all of them somewhere else.
+        assertEquals(jar, DecompileFixture.sampleJar(dir, PREAMBLE));
+        assertEquals(jar.getPath(), index.getArchiveFor(CLASS));
+    }
+
+    /*
+     * A cached index is only checked against the jar's size and modification time - if the jar's been
+     * changed without either changing, we mustn't fall over what we find where the index says to look.
+     */
+    @Test
+    public void cachedIndexWhichIsWrong() throws Exception {
+        File jar = DecompileFixture.sampleJar(dir("plain"));
+        String cache = dir("cache").getPath();
+        assertEquals(jar.getPath(), new ClassPathIndex(jar.getPath(), false, cache).getArchiveFor(CLASS));
+
+        long lastModified = jar.lastModified();
+        byte[] content = DecompileFixture.readFile(jar);
+        for (int x = 0; x + 4 <= content.length; ++x) {
+            // Every central directory entry's name length, made as long as it can be.
+            if (content[x] == 'P' && content[x + 1] == 'K' && content[x + 2] == 1 && content[x + 3] == 2) {
+                content[x + 28] = (byte) 0xFF;
+                content[x + 29] = (byte) 0xFF;
+            }
+        }
+        FileOutputStream fos = new FileOutputStream(jar);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+        assertTrue(jar.setLastModified(lastModified));
+
+        // Not a jar any more, as far as ZipFile is concerned, so not found - but no exception.
+        assertNull(new ClassPathIndex(jar.getPath(), false, cache).getArchiveFor(CLASS));
+    }
+
+    private static boolean cacheMentions(File cacheDir, File jar) throws IOException {
+        String content = new String(DecompileFixture.readFile(new File(cacheDir, "classpath.idx")), "ISO-8859-1");
+        return content.contains(jar.getAbsolutePath());
+    }
+
+    @Test
+    public void cacheForgetsRemovedJars() throws Exception {
+        File cacheDir = dir("cache");
+        File gone = DecompileFixture.sampleJar(dir("gone"));
+        File kept = DecompileFixture.sampleJar(dir("kept"));
+        new ClassPathIndex(gone.getPath() + File.pathSeparator + kept.getPath(), false, cacheDir.getPath()).getArchiveFor(CLASS);
+        assertTrue(cacheMentions(cacheDir, gone));
+        assertTrue(gone.delete());
+        File added = DecompileFixture.sampleJar(dir("added"));
+        new ClassPathIndex(added.getPath(), false, cacheDir.getPath()).getArchiveFor(CLASS);
+        assertFalse(cacheMentions(cacheDir, gone));
+        assertTrue(cacheMentions(cacheDir, kept));
+        assertTrue(cacheMentions(cacheDir, added));
+    }
+
+    @Test
+    public void cacheKeepsMostRecentlyUsed() throws Exception {
+        File cacheDir = dir("cache");
+        File[] jars = new File[3];
+        for (int x = 0; x < jars.length; ++x) {
+            jars[x] = DecompileFixture.sampleJar(dir("jar" + x));
+        }
+        ClassPathIndexCache cache = new ClassPathIndexCache(cacheDir.getPath(), 2);
+        cache.put(new ClassPathArchive(jars[0], jars[0].getPath()));
+        cache.put(new ClassPathArchive(jars[1], jars[1].getPath()));
+        assertNotNull(cache.get(jars[0], jars[0].getPath()));
+        cache.put(new ClassPathArchive(jars[2], jars[2].getPath()));
+        cache.save();
+
+        cache = new ClassPathIndexCache(cacheDir.getPath(), 2);
+        assertNotNull(cache.get(jars[0], jars[0].getPath()));
+        assertNull(cache.get(jars[1], jars[1].getPath()));
+        assertNotNull(cache.get(jars[2], jars[2].getPath()));
+    }
+}
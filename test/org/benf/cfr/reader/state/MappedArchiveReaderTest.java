@@ -0,0 +1,92 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.DecompileFixture;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedArchiveReaderTest {
+    private static final String NAME = "a/B.class";
+    private static final byte[] CONTENT = "not really a class file, but it'll do".getBytes();
+
+    private File workDir;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = DecompileFixture.newTempDir("cfrmmap");
+    }
+
+    @After
+    public void tearDown() {
+        DecompileFixture.deleteRecursively(workDir);
+    }
+
+    private File jar(boolean stored) throws IOException {
+        File jar = new File(workDir, stored ? "stored.jar" : "deflated.jar");
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            ZipEntry entry = new ZipEntry(NAME);
+            if (stored) {
+                CRC32 crc = new CRC32();
+                crc.update(CONTENT);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(CONTENT.length);
+                entry.setCrc(crc.getValue());
+            }
+            zos.putNextEntry(entry);
+            zos.write(CONTENT);
+            zos.closeEntry();
+        } finally {
+            zos.close();
+        }
+        return jar;
+    }
+
+    @Test
+    public void readsStoredAndDeflated() throws Exception {
+        for (boolean stored : new boolean[]{true, false}) {
+            ArchiveReader reader = MappedArchiveReader.create(jar(stored));
+            assertTrue(reader instanceof MappedArchiveReader);
+            assertArrayEquals(CONTENT, reader.getBytes(NAME));
+            assertNull(reader.getBytes("a/C.class"));
+            reader.close();
+        }
+    }
+
+    @Test
+    public void refusesReadsOnceClosed() throws Exception {
+        ArchiveReader reader = MappedArchiveReader.create(jar(false));
+        reader.getBytes(NAME);
+        reader.close();
+        try {
+            reader.getBytes(NAME);
+            fail("Read from a closed archive");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void viewsOutliveClose() throws Exception {
+        ArchiveReader reader = MappedArchiveReader.create(jar(true));
+        ByteData data = reader.getData(NAME);
+        reader.close();
+        // The mapping must still be there for this.
+        assertEquals(CONTENT[0], data.getS1At(0));
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 1, 4), data.getBytesAt(3, 1));
+    }
+}